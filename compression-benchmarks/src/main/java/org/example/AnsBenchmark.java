@@ -0,0 +1,79 @@
+package org.example;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the rANS coder with order-0 Huffman coding on one in-memory
+ * block. Both sides run on frequencies and code tables prepared during setup,
+ * so the numbers are those of the coding loops.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnsBenchmark {
+
+    @Param({ "ENGLISH_TEXT", "JSON_LOGS", "SINGLE_SYMBOL" })
+    public BenchmarkCorpus corpus;
+
+    @Param({ "1048576" })
+    public int size;
+
+    private final BlockCodec codec = new BlockCodec();
+
+    private byte[] data;
+    private int[] frequencies;
+    private byte[] ansPayload;
+    private byte[] huffmanRecord;
+    private byte[] decoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        data = corpus.generate(size);
+        frequencies = RansCoder.normalize(new CharacterFrequencyCounter().countBytes(data, 0, data.length));
+        ansPayload = RansCoder.encode(data, 0, data.length, frequencies);
+        huffmanRecord = codec.encode(data, 0, data.length);
+        decoded = new byte[data.length];
+    }
+
+    @Benchmark
+    public byte[] ansEncode(ThroughputCounter counter) {
+        counter.add(data.length);
+        return RansCoder.encode(data, 0, data.length, frequencies);
+    }
+
+    @Benchmark
+    public byte[] ansDecode(ThroughputCounter counter) throws IOException {
+        counter.add(data.length);
+        RansCoder.decode(ansPayload, 0, ansPayload.length, frequencies, decoded, 0, decoded.length);
+        return decoded;
+    }
+
+    @Benchmark
+    public byte[] huffmanEncode(ThroughputCounter counter) throws IOException {
+        counter.add(data.length);
+        return codec.encode(data, 0, data.length);
+    }
+
+    @Benchmark
+    public byte[] huffmanDecode(ThroughputCounter counter) throws IOException {
+        counter.add(data.length);
+        codec.decodeRecord(huffmanRecord, 0, huffmanRecord.length, decoded, 0);
+        return decoded;
+    }
+}
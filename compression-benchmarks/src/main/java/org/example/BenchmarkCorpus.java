@@ -0,0 +1,114 @@
+package org.example;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Synthetic inputs for the benchmarks. Every corpus is generated from a fixed
+ * seed, so runs on different machines measure the same bytes.
+ */
+public enum BenchmarkCorpus {
+
+    /** Prose built from common English words with punctuation. */
+    ENGLISH_TEXT {
+        @Override
+        void fill(SplittableRandom random, StringBuilder text) {
+            text.append(WORDS[skewed(random, WORDS.length)]);
+            int roll = random.nextInt(20);
+            text.append(roll == 0 ? ".\n" : roll == 1 ? ", " : " ");
+        }
+    },
+
+    /** Java-like source lines with indentation and identifiers. */
+    SOURCE_CODE {
+        @Override
+        void fill(SplittableRandom random, StringBuilder text) {
+            text.append("    ".repeat(1 + random.nextInt(3)));
+            String name = IDENTIFIERS[random.nextInt(IDENTIFIERS.length)];
+            switch (random.nextInt(4)) {
+                case 0 -> text.append("if (").append(name).append(" != null) {\n");
+                case 1 -> text.append("int ").append(name).append(" = ").append(random.nextInt(1000)).append(";\n");
+                case 2 -> text.append("return ").append(name).append(".get(index);\n");
+                default -> text.append("}\n");
+            }
+        }
+    },
+
+    /** Structured JSON log lines. */
+    JSON_LOGS {
+        @Override
+        void fill(SplittableRandom random, StringBuilder text) {
+            text.append("{\"timestamp\":\"2024-03-").append(10 + random.nextInt(20))
+                    .append("T12:").append(10 + random.nextInt(50)).append(":00Z\",\"level\":\"")
+                    .append(LEVELS[skewed(random, LEVELS.length)]).append("\",\"request\":")
+                    .append(random.nextInt(100000)).append(",\"message\":\"")
+                    .append(WORDS[random.nextInt(WORDS.length)]).append(' ')
+                    .append(WORDS[random.nextInt(WORDS.length)]).append("\"}\n");
+        }
+    },
+
+    /** Uniformly random bytes, which do not compress. */
+    RANDOM_BYTES {
+        @Override
+        public byte[] generate(int size) {
+            byte[] data = new byte[size];
+            new SplittableRandom(SEED).nextBytes(data);
+            return data;
+        }
+    },
+
+    /** A single repeated byte. */
+    SINGLE_SYMBOL {
+        @Override
+        public byte[] generate(int size) {
+            byte[] data = new byte[size];
+            Arrays.fill(data, (byte) 'a');
+            return data;
+        }
+    };
+
+    private static final long SEED = 0x5EED;
+
+    private static final String[] WORDS = {
+        "the", "of", "and", "to", "in", "a", "is", "that", "for", "it", "as", "was", "with", "be", "by", "on",
+        "not", "he", "this", "are", "or", "his", "from", "at", "which", "but", "have", "an", "had", "they",
+        "you", "were", "their", "one", "all", "we", "can", "her", "has", "there", "been", "compression",
+        "frequency", "symbol", "between", "through", "however", "another", "together", "probably"
+    };
+
+    private static final String[] IDENTIFIERS = {
+        "index", "buffer", "length", "count", "node", "result", "codeLengths", "frequencies", "output", "reader"
+    };
+
+    private static final String[] LEVELS = { "INFO", "DEBUG", "WARN", "ERROR" };
+
+    /**
+     * Generates {@code size} bytes of this corpus.
+     *
+     * @param size Number of bytes to generate
+     * @return the generated data
+     */
+    public byte[] generate(int size) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        StringBuilder text = new StringBuilder(size + 128);
+        while (text.length() < size) {
+            fill(random, text);
+        }
+        // All text corpora are ASCII, so characters and bytes line up
+        return text.substring(0, size).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    void fill(SplittableRandom random, StringBuilder text) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Picks an index biased towards the start of the range, roughly following
+     * the skew of natural language word frequencies.
+     */
+    private static int skewed(SplittableRandom random, int bound) {
+        double value = random.nextDouble();
+        return (int) (bound * value * value);
+    }
+}
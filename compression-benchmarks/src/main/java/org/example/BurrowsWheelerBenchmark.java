@@ -0,0 +1,79 @@
+package org.example;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the stages of the Burrows-Wheeler pipeline on one in-memory block:
+ * the forward transform with its suffix sort, the inverse transform, and the
+ * move-to-front ranking in both directions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BurrowsWheelerBenchmark {
+
+    @Param({ "ENGLISH_TEXT", "SOURCE_CODE", "JSON_LOGS", "SINGLE_SYMBOL" })
+    public BenchmarkCorpus corpus;
+
+    @Param({ "1048576" })
+    public int size;
+
+    private byte[] data;
+    private byte[] transformed;
+    private int primary;
+    private int[] symbols;
+    private int symbolCount;
+    private byte[] decoded;
+
+    @Setup
+    public void setUp() {
+        data = corpus.generate(size);
+        transformed = new byte[data.length];
+        primary = BurrowsWheelerTransform.forward(data, 0, data.length, transformed);
+        symbols = new int[data.length];
+        symbolCount = MoveToFrontCoder.encode(transformed, 0, transformed.length, symbols);
+        decoded = new byte[data.length];
+    }
+
+    @Benchmark
+    public int forwardTransform(ThroughputCounter counter) {
+        counter.add(data.length);
+        return BurrowsWheelerTransform.forward(data, 0, data.length, decoded);
+    }
+
+    @Benchmark
+    public byte[] inverseTransform(ThroughputCounter counter) throws IOException {
+        counter.add(data.length);
+        BurrowsWheelerTransform.inverse(transformed, primary, decoded, 0);
+        return decoded;
+    }
+
+    @Benchmark
+    public int moveToFrontEncode(ThroughputCounter counter) {
+        counter.add(data.length);
+        return MoveToFrontCoder.encode(transformed, 0, transformed.length, symbols);
+    }
+
+    @Benchmark
+    public byte[] moveToFrontDecode(ThroughputCounter counter) throws IOException {
+        counter.add(data.length);
+        MoveToFrontCoder.decode(symbols, symbolCount, decoded, 0, decoded.length);
+        return decoded;
+    }
+}
@@ -0,0 +1,104 @@
+package org.example;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares a reused {@link CompressionContext} with a {@link BlockCodec} on
+ * small messages, where setting up tables and buffers outweighs the coding,
+ * and with a context that codes with a {@link HuffmanDictionary} trained on
+ * messages of the same corpus.
+ * Run with {@code -prof gc} to see the allocation rate of each path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContextBenchmark {
+
+    @Param({ "ENGLISH_TEXT", "JSON_LOGS" })
+    public BenchmarkCorpus corpus;
+
+    @Param({ "256", "4096" })
+    public int size;
+
+    private final CompressionContext compression = new CompressionContext();
+    private final DecompressionContext decompression = new DecompressionContext();
+    private final BlockCodec codec = new BlockCodec();
+
+    private CompressionContext dictionaryCompression;
+    private DecompressionContext dictionaryDecompression;
+    private byte[] data;
+    private byte[] dictionaryRecord;
+    private byte[] record;
+    private byte[] compressed;
+    private byte[] decoded;
+
+    @Setup
+    public void setUp() {
+        data = corpus.generate(size);
+        record = compression.compress(data);
+        HuffmanDictionary dictionary = HuffmanDictionary.train(List.of(corpus.generate(64 << 10)));
+        dictionaryCompression = new CompressionContext(dictionary);
+        dictionaryDecompression = new DecompressionContext(dictionary);
+        dictionaryRecord = dictionaryCompression.compress(data);
+        compressed = new byte[CompressionContext.maxCompressedLength(size)];
+        decoded = new byte[size];
+    }
+
+    @Benchmark
+    public byte[] compressWithContext(ThroughputCounter counter) {
+        counter.add(data.length);
+        compression.compress(data, 0, data.length, compressed, 0);
+        return compressed;
+    }
+
+    @Benchmark
+    public byte[] compressWithCodec(ThroughputCounter counter) throws IOException {
+        counter.add(data.length);
+        return codec.encode(data, 0, data.length);
+    }
+
+    @Benchmark
+    public byte[] decompressWithContext(ThroughputCounter counter) throws IOException {
+        counter.add(data.length);
+        decompression.decompress(record, 0, record.length, decoded, 0);
+        return decoded;
+    }
+
+    @Benchmark
+    public byte[] decompressWithCodec(ThroughputCounter counter) throws IOException {
+        counter.add(data.length);
+        codec.decodeRecord(record, 0, record.length, decoded, 0);
+        return decoded;
+    }
+
+    @Benchmark
+    public byte[] compressWithDictionary(ThroughputCounter counter) {
+        counter.add(data.length);
+        dictionaryCompression.compress(data, 0, data.length, compressed, 0);
+        return compressed;
+    }
+
+    @Benchmark
+    public byte[] decompressWithDictionary(ThroughputCounter counter) throws IOException {
+        counter.add(data.length);
+        dictionaryDecompression.decompress(dictionaryRecord, 0, dictionaryRecord.length, decoded, 0);
+        return decoded;
+    }
+}
@@ -0,0 +1,131 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures whole-file compression and decompression through the public
+ * engines, including file I/O, for both the single-stream format and the
+ * block container, the latter with and without LZ77 match finding and with
+ * and without block checksums.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EngineBenchmark {
+
+    @Param({ "ENGLISH_TEXT", "SOURCE_CODE", "JSON_LOGS", "RANDOM_BYTES", "SINGLE_SYMBOL" })
+    public BenchmarkCorpus corpus;
+
+    @Param({ "16777216" })
+    public int size;
+
+    private final CompressionEngine compressionEngine = new CompressionEngine();
+    private final DecompressionEngine decompressionEngine = new DecompressionEngine();
+    private final BlockCompressionEngine blockCompressionEngine = new BlockCompressionEngine();
+    private final BlockCompressionEngine matchingCompressionEngine = new BlockCompressionEngine(CompressionLevel.DEFAULT);
+    private final BlockCompressionEngine checksummingCompressionEngine =
+            new BlockCompressionEngine(CompressionLevel.FAST, ForkJoinPool.commonPool(), true);
+    private final BlockDecompressionEngine blockDecompressionEngine = new BlockDecompressionEngine();
+
+    private Path directory;
+    private Path original;
+    private Path compressed;
+    private Path container;
+    private Path matchedContainer;
+    private Path checkedContainer;
+    private Path output;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("compression-benchmark");
+        original = Files.write(directory.resolve("original"), corpus.generate(size));
+        compressed = directory.resolve("compressed");
+        container = directory.resolve("container");
+        matchedContainer = directory.resolve("matched");
+        checkedContainer = directory.resolve("checked");
+        output = directory.resolve("output");
+        compressionEngine.compressBytes(original, compressed);
+        blockCompressionEngine.compress(original, container);
+        matchingCompressionEngine.compress(original, matchedContainer);
+        checksummingCompressionEngine.compress(original, checkedContainer);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public CompressionEngine.CompressionStats compress(ThroughputCounter counter) throws IOException {
+        counter.add(size);
+        return compressionEngine.compressBytes(original, output);
+    }
+
+    @Benchmark
+    public void decompress(ThroughputCounter counter) throws IOException {
+        counter.add(size);
+        decompressionEngine.decompress(compressed, output);
+    }
+
+    @Benchmark
+    public BlockIndex compressBlocks(ThroughputCounter counter) throws IOException {
+        counter.add(size);
+        return blockCompressionEngine.compress(original, output);
+    }
+
+    @Benchmark
+    public void decompressBlocks(ThroughputCounter counter) throws IOException {
+        counter.add(size);
+        blockDecompressionEngine.decompress(container, output);
+    }
+
+    @Benchmark
+    public BlockIndex compressBlocksWithMatches(ThroughputCounter counter) throws IOException {
+        counter.add(size);
+        return matchingCompressionEngine.compress(original, output);
+    }
+
+    @Benchmark
+    public void decompressMatchedBlocks(ThroughputCounter counter) throws IOException {
+        counter.add(size);
+        blockDecompressionEngine.decompress(matchedContainer, output);
+    }
+
+    @Benchmark
+    public BlockIndex compressCheckedBlocks(ThroughputCounter counter) throws IOException {
+        counter.add(size);
+        return checksummingCompressionEngine.compress(original, output);
+    }
+
+    @Benchmark
+    public void decompressCheckedBlocks(ThroughputCounter counter) throws IOException {
+        counter.add(size);
+        blockDecompressionEngine.decompress(checkedContainer, output);
+    }
+}
@@ -0,0 +1,97 @@
+package org.example;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the individual stages of Huffman coding on one in-memory block:
+ * frequency counting, tree building, code length construction from count
+ * arrays, code generation, encoding and decoding.
+ * Every stage reuses the output of the previous ones computed during setup,
+ * so each benchmark times only its own stage.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HuffmanStagesBenchmark {
+
+    @Param({ "ENGLISH_TEXT", "SOURCE_CODE", "JSON_LOGS", "RANDOM_BYTES", "SINGLE_SYMBOL" })
+    public BenchmarkCorpus corpus;
+
+    @Param({ "1048576" })
+    public int size;
+
+    private final CharacterFrequencyCounter frequencyCounter = new CharacterFrequencyCounter();
+    private final HuffmanTreeBuilder treeBuilder = new HuffmanTreeBuilder();
+    private final HuffmanCodeGenerator codeGenerator = new HuffmanCodeGenerator();
+    private final CodeLengthBuilder codeLengthBuilder = new CodeLengthBuilder();
+    private final BlockCodec codec = new BlockCodec();
+
+    private byte[] data;
+    private long[] counts;
+    private Map<Character, Long> frequencies;
+    private HuffmanNode root;
+    private byte[] record;
+    private byte[] decoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        data = corpus.generate(size);
+        counts = frequencyCounter.countBytes(data, 0, data.length);
+        frequencies = CharacterFrequencyCounter.toMap(counts);
+        root = treeBuilder.buildTree(frequencies);
+        record = codec.encode(data, 0, data.length);
+        decoded = new byte[data.length];
+    }
+
+    @Benchmark
+    public long[] countFrequencies(ThroughputCounter counter) {
+        counter.add(data.length);
+        return frequencyCounter.countBytes(data, 0, data.length);
+    }
+
+    @Benchmark
+    public HuffmanNode buildTree() {
+        return treeBuilder.buildTree(frequencies);
+    }
+
+    @Benchmark
+    public int[] buildCodeLengths() {
+        return codeLengthBuilder.buildCodeLengths(counts, LengthLimitedCodeBuilder.DEFAULT_MAX_CODE_LENGTH);
+    }
+
+    @Benchmark
+    public Map<Character, String> generateCodes() {
+        return codeGenerator.generateCanonicalCodes(codeGenerator.generateCodeLengths(root,
+                LengthLimitedCodeBuilder.DEFAULT_MAX_CODE_LENGTH));
+    }
+
+    @Benchmark
+    public byte[] encode(ThroughputCounter counter) throws IOException {
+        counter.add(data.length);
+        return codec.encode(data, 0, data.length);
+    }
+
+    @Benchmark
+    public byte[] decode(ThroughputCounter counter) throws IOException {
+        counter.add(data.length);
+        codec.decodeRecord(record, 0, record.length, decoded, 0);
+        return decoded;
+    }
+}
@@ -0,0 +1,72 @@
+package org.example;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how fast one in-memory block is encoded and decoded at each
+ * compression level, so the speed side of every preset can be read next to
+ * the block sizes it produces. Each level also runs with order-1 context
+ * modelling switched off and on, which shows what the extra coding attempt
+ * costs in throughput.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LevelBenchmark {
+
+    @Param({ "ENGLISH_TEXT", "SOURCE_CODE", "JSON_LOGS", "RANDOM_BYTES" })
+    public BenchmarkCorpus corpus;
+
+    @Param({ "0", "1", "3", "6", "9" })
+    public int level;
+
+    @Param({ "false", "true" })
+    public boolean contextModelling;
+
+    @Param({ "1048576" })
+    public int size;
+
+    private final BlockCodec decoder = new BlockCodec();
+
+    private BlockCodec codec;
+    private byte[] data;
+    private byte[] record;
+    private byte[] decoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        codec = new BlockCodec(CompressionLevel.of(level).withContextModelling(contextModelling));
+        data = corpus.generate(size);
+        record = codec.encode(data, 0, data.length);
+        decoded = new byte[data.length];
+    }
+
+    @Benchmark
+    public byte[] encode(ThroughputCounter counter) throws IOException {
+        counter.add(data.length);
+        return codec.encode(data, 0, data.length);
+    }
+
+    @Benchmark
+    public byte[] decode(ThroughputCounter counter) throws IOException {
+        counter.add(data.length);
+        decoder.decodeRecord(record, 0, record.length, decoded, 0);
+        return decoded;
+    }
+}
@@ -0,0 +1,67 @@
+package org.example;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares decoding one Huffman block from a single bit stream with decoding
+ * it from four interleaved streams. {@link CompressionContext} always writes
+ * a single stream, and its records are decoded with the same
+ * {@link CanonicalDecoder} as the block codec's streams records, so the
+ * difference is that of the decoding loops.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StreamsBenchmark {
+
+    @Param({ "ENGLISH_TEXT", "SOURCE_CODE", "JSON_LOGS" })
+    public BenchmarkCorpus corpus;
+
+    @Param({ "1048576" })
+    public int size;
+
+    private final BlockCodec codec = new BlockCodec();
+    private final DecompressionContext context = new DecompressionContext();
+
+    private byte[] singleStreamRecord;
+    private byte[] streamsRecord;
+    private byte[] decoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[] data = corpus.generate(size);
+        singleStreamRecord = new CompressionContext().compress(data);
+        streamsRecord = codec.encode(data, 0, data.length);
+        decoded = new byte[data.length];
+    }
+
+    @Benchmark
+    public byte[] singleStream(ThroughputCounter counter) throws IOException {
+        counter.add(decoded.length);
+        context.decompress(singleStreamRecord, 0, singleStreamRecord.length, decoded, 0);
+        return decoded;
+    }
+
+    @Benchmark
+    public byte[] fourStreams(ThroughputCounter counter) throws IOException {
+        counter.add(decoded.length);
+        codec.decodeRecord(streamsRecord, 0, streamsRecord.length, decoded, 0);
+        return decoded;
+    }
+}
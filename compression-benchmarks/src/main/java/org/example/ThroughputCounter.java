@@ -0,0 +1,36 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Secondary result that reports how many megabytes of input each benchmark
+ * processes per second, next to the usual operations per second.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class ThroughputCounter {
+
+    private static final double BYTES_PER_MEGABYTE = 1024.0 * 1024.0;
+
+    private long bytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        bytes = 0;
+    }
+
+    /**
+     * Records that one operation processed {@code length} bytes of input.
+     */
+    public void add(long length) {
+        bytes += length;
+    }
+
+    public double megabytes() {
+        return bytes / BYTES_PER_MEGABYTE;
+    }
+}
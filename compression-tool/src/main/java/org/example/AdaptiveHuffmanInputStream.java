@@ -0,0 +1,172 @@
+package org.example;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Input stream that decompresses a stream written by
+ * {@link AdaptiveHuffmanOutputStream}, decoding bytes as they are read and
+ * mirroring the encoder's tree updates.
+ */
+public class AdaptiveHuffmanInputStream extends FilterInputStream {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final AdaptiveHuffmanTree tree = new AdaptiveHuffmanTree();
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private int bitBuffer;
+    private int bitCount;
+    private boolean endOfStream;
+    private boolean closed;
+
+    /**
+     * Reads and validates the stream header right away.
+     *
+     * @param input Source of the compressed stream
+     * @throws IOException if the header is missing or malformed
+     */
+    public AdaptiveHuffmanInputStream(InputStream input) throws IOException {
+        super(Objects.requireNonNull(input, "Input cannot be null"));
+        DataInputStream header = new DataInputStream(input);
+        try {
+            if (header.readInt() != BlockIndex.MAGIC_NUMBER) {
+                throw new IOException("Invalid magic number");
+            }
+            byte version = header.readByte();
+            if (version != AdaptiveHuffmanOutputStream.VERSION) {
+                throw new IOException("Unsupported version: " + version);
+            }
+        } catch (EOFException e) {
+            throw new IOException("Unexpected end of file while reading stream header", e);
+        }
+    }
+
+    /**
+     * Checks whether a file starts with an adaptive stream header.
+     *
+     * @param path File to inspect
+     * @return true if the file is an adaptive stream
+     * @throws IOException if an I/O error occurs
+     */
+    public static boolean isAdaptiveStream(Path path) throws IOException {
+        try (DataInputStream input = new DataInputStream(Files.newInputStream(path))) {
+            return input.readInt() == BlockIndex.MAGIC_NUMBER
+                    && input.readByte() == AdaptiveHuffmanOutputStream.VERSION;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        ensureOpen();
+        return decode();
+    }
+
+    @Override
+    public int read(byte[] data, int offset, int length) throws IOException {
+        Objects.checkFromIndexSize(offset, length, data.length);
+        ensureOpen();
+        if (length == 0) {
+            return 0;
+        }
+        int count = 0;
+        while (count < length) {
+            if (count > 0 && position == limit && in.available() <= 0) {
+                // Hand back what is decoded rather than block on a pipe that has nothing more yet
+                break;
+            }
+            int symbol = decode();
+            if (symbol == -1) {
+                return count == 0 ? -1 : count;
+            }
+            data[offset + count++] = (byte) symbol;
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long count) throws IOException {
+        ensureOpen();
+        long skipped = 0;
+        while (skipped < count && decode() != -1) {
+            skipped++;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        ensureOpen();
+        return 0;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            in.close();
+        }
+    }
+
+    /**
+     * Decodes the next symbol.
+     *
+     * @return the next byte, or -1 once the end of stream code has been read
+     */
+    private int decode() throws IOException {
+        if (endOfStream) {
+            return -1;
+        }
+        int node = tree.root();
+        while (!tree.isLeaf(node)) {
+            node = tree.child(node, readBits(1));
+        }
+        int symbol = tree.isNotYetTransmitted(node) ? readBits(AdaptiveHuffmanTree.SYMBOL_BITS) : tree.symbol(node);
+        if (symbol >= AdaptiveHuffmanTree.ALPHABET_SIZE || (tree.isNotYetTransmitted(node) && tree.contains(symbol))) {
+            throw new IOException("Invalid symbol in adaptive stream: " + symbol);
+        }
+        tree.update(symbol);
+        if (symbol == AdaptiveHuffmanTree.END_OF_STREAM) {
+            endOfStream = true;
+            return -1;
+        }
+        return symbol;
+    }
+
+    private int readBits(int length) throws IOException {
+        while (bitCount < length) {
+            if (position == limit) {
+                limit = in.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    throw new IOException("Unexpected end of file while reading compressed data");
+                }
+            }
+            bitBuffer = (bitBuffer << 8) | (buffer[position++] & 0xFF);
+            bitCount += 8;
+        }
+        bitCount -= length;
+        return (bitBuffer >>> bitCount) & ((1 << length) - 1);
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
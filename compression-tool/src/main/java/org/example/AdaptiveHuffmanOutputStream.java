@@ -0,0 +1,141 @@
+package org.example;
+
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
+
+/**
+ * Output stream that compresses in a single pass with an
+ * {@link AdaptiveHuffmanTree}. Each byte is coded as soon as it is written,
+ * so output starts immediately and memory does not grow with the input.
+ *
+ * <p>An adaptive stream is laid out as: - Magic number (4 bytes): 0xC0DE -
+ * Version (1 byte): 5 - MSB-first code bits ending with the code of
+ * {@link AdaptiveHuffmanTree#END_OF_STREAM}, zero padded to a byte
+ */
+public class AdaptiveHuffmanOutputStream extends FilterOutputStream {
+
+    static final byte VERSION = 5;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final AdaptiveHuffmanTree tree = new AdaptiveHuffmanTree();
+    private final byte[] path = new byte[AdaptiveHuffmanTree.ALPHABET_SIZE + 1];
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int count;
+    private int bitBuffer;
+    private int bitCount;
+    private boolean finished;
+    private boolean closed;
+
+    /**
+     * Writes the stream header right away.
+     *
+     * @param output Destination of the compressed stream
+     * @throws IOException if writing the header fails
+     */
+    public AdaptiveHuffmanOutputStream(OutputStream output) throws IOException {
+        super(Objects.requireNonNull(output, "Output cannot be null"));
+        DataOutputStream header = new DataOutputStream(output);
+        header.writeInt(BlockIndex.MAGIC_NUMBER);
+        header.writeByte(VERSION);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        encode(b & 0xFF);
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) throws IOException {
+        Objects.checkFromIndexSize(offset, length, data.length);
+        ensureOpen();
+        for (int i = offset; i < offset + length; i++) {
+            encode(data[i] & 0xFF);
+        }
+    }
+
+    /**
+     * Writes every complete byte of code bits and flushes the underlying
+     * stream. Up to seven bits of the last code stay pending until more data
+     * or the end of the stream completes their byte.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        drain();
+        out.flush();
+    }
+
+    /**
+     * Writes the end of stream code and the final padded byte without closing
+     * the underlying stream. Further writes are rejected.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        encode(AdaptiveHuffmanTree.END_OF_STREAM);
+        if (bitCount > 0) {
+            writeBits(0, 8 - bitCount);
+        }
+        drain();
+        out.flush();
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void encode(int symbol) throws IOException {
+        boolean known = tree.contains(symbol);
+        int length = tree.path(symbol, path);
+        for (int i = 0; i < length; i++) {
+            writeBits(path[i], 1);
+        }
+        if (!known) {
+            writeBits(symbol, AdaptiveHuffmanTree.SYMBOL_BITS);
+        }
+        tree.update(symbol);
+    }
+
+    private void writeBits(int bits, int length) throws IOException {
+        bitBuffer = (bitBuffer << length) | bits;
+        bitCount += length;
+        while (bitCount >= 8) {
+            bitCount -= 8;
+            if (count == buffer.length) {
+                drain();
+            }
+            buffer[count++] = (byte) (bitBuffer >>> bitCount);
+        }
+    }
+
+    private void drain() throws IOException {
+        out.write(buffer, 0, count);
+        count = 0;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (finished) {
+            throw new IOException("Stream is finished");
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Huffman tree that adapts to its input one symbol at a time, following the
+ * FGK algorithm. Encoder and decoder start from the same empty tree and apply
+ * the same {@link #update} after every symbol, so no frequency table is ever
+ * transmitted and coding can start with the first byte.
+ *
+ * <p>Nodes live in flat arrays indexed by their implicit order number: weights
+ * never decrease with the index and siblings sit next to each other (the
+ * sibling property). A symbol that has not been seen yet is sent as the path
+ * to the NYT ("not yet transmitted") leaf followed by {@link #SYMBOL_BITS} raw
+ * bits. Symbols are the 256 byte values plus {@link #END_OF_STREAM}.
+ *
+ * <p>Weights are bounded: once the root reaches {@link #MAX_WEIGHT} the tree
+ * starts over, which keeps memory constant on unbounded streams and lets the
+ * codes follow drifting statistics.
+ */
+public final class AdaptiveHuffmanTree {
+
+    public static final int END_OF_STREAM = 256;
+    public static final int ALPHABET_SIZE = END_OF_STREAM + 1;
+    public static final int SYMBOL_BITS = 9;
+    static final int MAX_WEIGHT = 1 << 24;
+
+    private static final int MAX_NODES = 2 * (ALPHABET_SIZE + 1) - 1;
+    private static final int ROOT = MAX_NODES - 1;
+    private static final int NONE = -1;
+
+    private final int[] weight = new int[MAX_NODES];
+    private final int[] parent = new int[MAX_NODES];
+    private final int[] left = new int[MAX_NODES];
+    private final int[] right = new int[MAX_NODES];
+    private final int[] symbol = new int[MAX_NODES];
+    private final int[] leaf = new int[ALPHABET_SIZE];
+    private int notYetTransmitted;
+
+    public AdaptiveHuffmanTree() {
+        reset();
+    }
+
+    /**
+     * Returns the tree to its initial state, a lone NYT leaf.
+     */
+    public void reset() {
+        Arrays.fill(weight, 0);
+        Arrays.fill(parent, NONE);
+        Arrays.fill(left, NONE);
+        Arrays.fill(right, NONE);
+        Arrays.fill(symbol, NONE);
+        Arrays.fill(leaf, NONE);
+        notYetTransmitted = ROOT;
+    }
+
+    /**
+     * Writes the branch bits leading from the root to the leaf of
+     * {@code symbol}, or to the NYT leaf if the symbol has not been seen yet.
+     *
+     * @param value Symbol to locate, 0 to {@link #END_OF_STREAM}
+     * @param path Receives one 0 (left) or 1 (right) per branch, root first;
+     * at least {@link #ALPHABET_SIZE} + 1 entries
+     * @return the number of branch bits written
+     */
+    public int path(int value, byte[] path) {
+        checkSymbol(value);
+        int node = leaf[value] == NONE ? notYetTransmitted : leaf[value];
+        int depth = 0;
+        for (int current = node; current != ROOT; current = parent[current]) {
+            depth++;
+        }
+        for (int index = depth - 1; node != ROOT; node = parent[node], index--) {
+            path[index] = (byte) (right[parent[node]] == node ? 1 : 0);
+        }
+        return depth;
+    }
+
+    /**
+     * Returns true if {@code value} already has a leaf of its own.
+     */
+    public boolean contains(int value) {
+        checkSymbol(value);
+        return leaf[value] != NONE;
+    }
+
+    public int root() {
+        return ROOT;
+    }
+
+    public boolean isLeaf(int node) {
+        return left[node] == NONE;
+    }
+
+    public boolean isNotYetTransmitted(int node) {
+        return node == notYetTransmitted;
+    }
+
+    /**
+     * Follows one branch of an internal node.
+     *
+     * @param node Internal node
+     * @param bit 0 for the left child, 1 for the right
+     * @return the child
+     */
+    public int child(int node, int bit) {
+        return bit == 0 ? left[node] : right[node];
+    }
+
+    /**
+     * Returns the symbol of a leaf other than the NYT leaf.
+     */
+    public int symbol(int node) {
+        return symbol[node];
+    }
+
+    /**
+     * Counts one more occurrence of {@code value}, adding a leaf for it if it
+     * is new, and restores the sibling property.
+     *
+     * @param value Symbol that was just coded
+     */
+    public void update(int value) {
+        checkSymbol(value);
+        if (weight[ROOT] >= MAX_WEIGHT) {
+            reset();
+        }
+
+        int node = leaf[value];
+        if (node == NONE) {
+            // The NYT leaf becomes an internal node over a new NYT leaf and the symbol's leaf
+            int internal = notYetTransmitted;
+            node = internal - 1;
+            notYetTransmitted = internal - 2;
+            left[internal] = notYetTransmitted;
+            right[internal] = node;
+            parent[node] = internal;
+            parent[notYetTransmitted] = internal;
+            symbol[node] = value;
+            leaf[value] = node;
+        }
+
+        while (node != NONE) {
+            int leader = node;
+            while (leader + 1 < MAX_NODES && weight[leader + 1] == weight[node]) {
+                leader++;
+            }
+            if (leader != node && leader != parent[node]) {
+                swap(node, leader);
+                node = leader;
+            }
+            weight[node]++;
+            node = parent[node];
+        }
+    }
+
+    /**
+     * Exchanges the subtrees at two positions of equal weight. Each position
+     * keeps its parent, so the subtrees trade places in the tree.
+     */
+    private void swap(int first, int second) {
+        int swapped = symbol[first];
+        symbol[first] = symbol[second];
+        symbol[second] = swapped;
+        swapped = left[first];
+        left[first] = left[second];
+        left[second] = swapped;
+        swapped = right[first];
+        right[first] = right[second];
+        right[second] = swapped;
+        adopt(first);
+        adopt(second);
+    }
+
+    private void adopt(int node) {
+        if (isLeaf(node)) {
+            if (symbol[node] != NONE) {
+                leaf[symbol[node]] = node;
+            }
+        } else {
+            parent[left[node]] = node;
+            parent[right[node]] = node;
+        }
+    }
+
+    private static void checkSymbol(int value) {
+        if (value < 0 || value >= ALPHABET_SIZE) {
+            throw new IllegalArgumentException("Symbol out of range: " + value);
+        }
+    }
+}
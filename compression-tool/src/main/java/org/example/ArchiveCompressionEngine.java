@@ -0,0 +1,242 @@
+package org.example;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Compresses a directory tree, or a single file, into an archive with a
+ * central directory (see {@link ArchiveDirectory}). Every member is cut into
+ * blocks, and each block is read and encoded by its own task on an executor,
+ * so thousands of small files are read and compressed concurrently. Records
+ * are written in member order as their tasks complete, and the writer
+ * computes every member's CRC32C as it goes.
+ *
+ * <p>Member reads are plain blocking I/O, so an executor of virtual threads
+ * ({@link java.util.concurrent.Executors#newVirtualThreadPerTaskExecutor()})
+ * overlaps them well when the files live on slow storage; the common
+ * {@link ForkJoinPool} suits local disks, where encoding dominates.
+ */
+public class ArchiveCompressionEngine {
+
+    private final int blockSize;
+    private final ExecutorService executor;
+    private final int maxBlocksInFlight;
+    private final BlockCodec codec;
+
+    /**
+     * Creates an engine that compresses at {@link CompressionLevel#FAST} on
+     * the common pool, like the other engines' defaults.
+     */
+    public ArchiveCompressionEngine() {
+        this(CompressionLevel.FAST, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param level Level whose block size and encoding are used
+     */
+    public ArchiveCompressionEngine(CompressionLevel level) {
+        this(level, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param level Level whose block size and encoding are used
+     * @param executor Executor that reads and encodes blocks; it is not shut
+     * down by this engine
+     */
+    public ArchiveCompressionEngine(CompressionLevel level, ExecutorService executor) {
+        Objects.requireNonNull(level, "Compression level cannot be null");
+        this.blockSize = level.blockSize();
+        this.executor = Objects.requireNonNull(executor, "Executor cannot be null");
+        this.maxBlocksInFlight = 4 * Runtime.getRuntime().availableProcessors();
+        this.codec = new BlockCodec(level);
+    }
+
+    /**
+     * Archives every regular file under a directory, named by its path
+     * relative to the directory, or a single file, named by its file name.
+     * Members are stored in the order of their names.
+     *
+     * @param sourcePath Directory or file to archive
+     * @param archivePath Path to the output archive
+     * @return the central directory of the written archive
+     * @throws IOException if an I/O error occurs or a file shrinks while it
+     * is archived
+     * @throws IllegalArgumentException if the source does not exist or a
+     * file name cannot be stored
+     */
+    public ArchiveDirectory compress(Path sourcePath, Path archivePath) throws IOException, IllegalArgumentException {
+        Objects.requireNonNull(sourcePath, "Source path cannot be null");
+        Objects.requireNonNull(archivePath, "Archive path cannot be null");
+
+        List<Member> members = listMembers(sourcePath, archivePath);
+        List<ArchiveDirectory.Entry> entries = new ArrayList<>(members.size());
+        Deque<PendingBlock> pending = new ArrayDeque<>();
+
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(archivePath)))) {
+            ArchiveDirectory.writeHeader(output);
+            MemberWriter writer = new MemberWriter(output, members, entries, ArchiveDirectory.HEADER_SIZE);
+
+            try {
+                for (int m = 0; m < members.size(); m++) {
+                    Member member = members.get(m);
+                    if (member.size() == 0) {
+                        // Keep empty members in order behind the records still being encoded
+                        pending.add(new PendingBlock(m, null));
+                    }
+                    for (long start = 0; start < member.size(); start += blockSize) {
+                        long blockStart = start;
+                        int length = (int) Math.min(blockSize, member.size() - start);
+                        Future<Block> block = executor.submit(() -> encodeBlock(member, blockStart, length));
+                        pending.add(new PendingBlock(m, block));
+
+                        // Bound the number of blocks held in memory
+                        if (pending.size() >= maxBlocksInFlight) {
+                            writer.write(pending.poll());
+                        }
+                    }
+                }
+                while (!pending.isEmpty()) {
+                    writer.write(pending.poll());
+                }
+            } finally {
+                for (PendingBlock block : pending) {
+                    if (block.future() != null) {
+                        block.future().cancel(true);
+                    }
+                }
+            }
+
+            ArchiveDirectory directory = new ArchiveDirectory(entries);
+            directory.write(output, writer.position);
+            return directory;
+        }
+    }
+
+    /**
+     * Lists the regular files to archive, sorted by member name, leaving out
+     * the archive itself.
+     */
+    private static List<Member> listMembers(Path sourcePath, Path archivePath) throws IOException {
+        if (Files.isRegularFile(sourcePath)) {
+            Member member = new Member(sourcePath.getFileName().toString(), sourcePath, Files.size(sourcePath));
+            ArchiveDirectory.checkName(member.name());
+            return List.of(member);
+        }
+        if (!Files.isDirectory(sourcePath)) {
+            throw new IllegalArgumentException("Source does not exist or is not a file or directory: " + sourcePath);
+        }
+
+        Path archive = archivePath.toAbsolutePath().normalize();
+        List<Member> members = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(sourcePath)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (!Files.isRegularFile(file) || file.toAbsolutePath().normalize().equals(archive)) {
+                    continue;
+                }
+                StringBuilder name = new StringBuilder();
+                for (Path segment : sourcePath.relativize(file)) {
+                    name.append(name.isEmpty() ? "" : "/").append(segment);
+                }
+                ArchiveDirectory.checkName(name.toString());
+                members.add(new Member(name.toString(), file, Files.size(file)));
+            }
+        }
+        members.sort(Comparator.comparing(Member::name));
+        return members;
+    }
+
+    /**
+     * Reads one block of a member and encodes it, keeping the uncompressed
+     * bytes next to the record so the writer can checksum them.
+     */
+    private Block encodeBlock(Member member, long start, int length) throws IOException {
+        byte[] data = new byte[length];
+        try (FileChannel channel = FileChannel.open(member.path(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) {
+                    throw new IOException("File shrank while it was archived: " + member.path());
+                }
+            }
+        }
+        return new Block(data, codec.encode(data, 0, length));
+    }
+
+    /**
+     * A file to archive, with the size it had when the source was listed.
+     */
+    private record Member(String name, Path path, long size) {
+    }
+
+    private record Block(byte[] data, byte[] record) {
+    }
+
+    /**
+     * A block task of a member, or a null future for an empty member.
+     */
+    private record PendingBlock(int member, Future<Block> future) {
+    }
+
+    /**
+     * Writes records in member order and closes every member's directory
+     * entry once its last block is written.
+     */
+    private static final class MemberWriter {
+
+        private final DataOutputStream output;
+        private final List<Member> members;
+        private final List<ArchiveDirectory.Entry> entries;
+        private final CRC32C checksum = new CRC32C();
+        private long position;
+        private long memberOffset;
+        private long memberWritten;
+
+        MemberWriter(DataOutputStream output, List<Member> members, List<ArchiveDirectory.Entry> entries,
+                long position) {
+            this.output = output;
+            this.members = members;
+            this.entries = entries;
+            this.position = position;
+            this.memberOffset = position;
+        }
+
+        /**
+         * Writes the next block, or closes an empty member.
+         */
+        void write(PendingBlock pending) throws IOException {
+            Member member = members.get(pending.member());
+            if (pending.future() != null) {
+                Block block = IoSupport.await(pending.future());
+                output.write(block.record());
+                position += block.record().length;
+                checksum.update(block.data(), 0, block.data().length);
+                memberWritten += block.data().length;
+            }
+            if (memberWritten == member.size()) {
+                entries.add(new ArchiveDirectory.Entry(member.name(), memberOffset, position - memberOffset,
+                        member.size(), (int) checksum.getValue()));
+                checksum.reset();
+                memberOffset = position;
+                memberWritten = 0;
+            }
+        }
+    }
+}
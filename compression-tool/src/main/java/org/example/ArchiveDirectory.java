@@ -0,0 +1,229 @@
+package org.example;
+
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Central directory of an archive written by {@link ArchiveCompressionEngine}.
+ * The archive layout is: - Magic number (4 bytes): 0xC0DE - Version (1 byte):
+ * 7 - Flags (1 byte, reserved, 0) - Member data: the block records (see
+ * {@link BlockCodec}) of every member in turn - Central directory: for each
+ * member: name length (varint), name (UTF-8), record offset (8 bytes, long),
+ * compressed length (8 bytes, long), size (8 bytes, long), CRC32C of the
+ * member's bytes (4 bytes, int) - Directory offset (8 bytes, long) - Member
+ * count (4 bytes, int) - End marker (4 bytes)
+ *
+ * <p>A member is cut into blocks of the compression level's block size, so
+ * it holds one record per block and none when it is empty. Names are
+ * relative paths with {@code /} separators; names that are absolute, empty,
+ * or step outside the extraction directory are rejected when the directory
+ * is read. As with {@link BlockIndex}, the fixed-size trailer lets readers
+ * find the directory from the end of the file and then seek straight to any
+ * member.
+ */
+public class ArchiveDirectory {
+
+    static final byte VERSION = 7;
+    static final int HEADER_SIZE = 6;
+    static final int TRAILER_SIZE = 16;
+    static final int MAX_NAME_LENGTH = 4096;
+
+    private static final int ENTRY_FIXED_SIZE = 28;
+
+    /**
+     * Location and integrity data of one member.
+     *
+     * @param name Relative path of the member, with {@code /} separators
+     * @param offset Offset of the member's first record in the archive
+     * @param compressedLength Total length of the member's records
+     * @param size Number of bytes in the member
+     * @param checksum CRC32C of the member's bytes
+     */
+    public record Entry(String name, long offset, long compressedLength, long size, int checksum) {
+    }
+
+    private final List<Entry> entries;
+    private final Map<String, Entry> entriesByName;
+
+    /**
+     * @throws IllegalArgumentException if a name is invalid or used twice
+     */
+    ArchiveDirectory(List<Entry> entries) {
+        this.entries = List.copyOf(entries);
+        this.entriesByName = new HashMap<>();
+        for (Entry entry : this.entries) {
+            checkName(entry.name());
+            if (entriesByName.put(entry.name(), entry) != null) {
+                throw new IllegalArgumentException("Archive has two members named " + entry.name());
+            }
+        }
+    }
+
+    /**
+     * Checks whether a file starts with an archive header.
+     *
+     * @param path File to inspect
+     * @return true if the file is an archive
+     * @throws IOException if an I/O error occurs
+     */
+    public static boolean isArchive(Path path) throws IOException {
+        try (DataInputStream input = new DataInputStream(Files.newInputStream(path))) {
+            return input.readInt() == BlockIndex.MAGIC_NUMBER && input.readByte() == VERSION;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads the header, trailer and central directory of an archive.
+     *
+     * @param channel Channel over the archive file
+     * @return the central directory
+     * @throws IOException if the archive is malformed
+     */
+    public static ArchiveDirectory read(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_SIZE + TRAILER_SIZE) {
+            throw new IOException("File is too short to be an archive");
+        }
+
+        ByteBuffer header = IoSupport.readFully(channel, 0, HEADER_SIZE);
+        if (header.getInt() != BlockIndex.MAGIC_NUMBER) {
+            throw new IOException("Invalid magic number");
+        }
+        byte version = header.get();
+        if (version != VERSION) {
+            throw new IOException("Unsupported version: " + version);
+        }
+        int flags = header.get() & 0xFF;
+        if (flags != 0) {
+            throw new IOException("Unsupported archive flags: " + flags);
+        }
+
+        ByteBuffer trailer = IoSupport.readFully(channel, size - TRAILER_SIZE, TRAILER_SIZE);
+        long directoryOffset = trailer.getLong();
+        int memberCount = trailer.getInt();
+        if (trailer.getInt() != BlockIndex.END_MARKER) {
+            throw new IOException("Invalid archive end marker");
+        }
+        long directoryLength = size - TRAILER_SIZE - directoryOffset;
+        if (memberCount < 0 || directoryOffset < HEADER_SIZE || directoryLength < 0
+                || directoryLength > Integer.MAX_VALUE || directoryLength < (long) memberCount * (ENTRY_FIXED_SIZE + 1)) {
+            throw new IOException("Invalid central directory location");
+        }
+
+        byte[] directory = IoSupport.readFully(channel, directoryOffset, (int) directoryLength).array();
+        ByteBuffer fields = ByteBuffer.wrap(directory);
+        Entry[] entries = new Entry[memberCount];
+        int position = 0;
+        for (int i = 0; i < memberCount; i++) {
+            long nameLength = HeaderReader.readVarInt(directory, position, directory.length);
+            position += (int) (nameLength >>> Integer.SIZE);
+            int length = (int) nameLength;
+            if (length > MAX_NAME_LENGTH || directory.length - position < length + ENTRY_FIXED_SIZE) {
+                throw new IOException("Invalid central directory entry: " + i);
+            }
+            String name = new String(directory, position, length, StandardCharsets.UTF_8);
+            position += length;
+            long offset = fields.getLong(position);
+            long compressedLength = fields.getLong(position + 8);
+            long memberSize = fields.getLong(position + 16);
+            int checksum = fields.getInt(position + 24);
+            position += ENTRY_FIXED_SIZE;
+            if (offset < HEADER_SIZE || compressedLength < 0 || compressedLength > directoryOffset - offset
+                    || memberSize < 0 || (memberSize == 0) != (compressedLength == 0)) {
+                throw new IOException("Invalid central directory entry: " + i);
+            }
+            entries[i] = new Entry(name, offset, compressedLength, memberSize, checksum);
+        }
+        if (position != directory.length) {
+            throw new IOException("Central directory does not match its trailer");
+        }
+        try {
+            return new ArchiveDirectory(List.of(entries));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid central directory: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Checks that a member name is a relative path that stays inside the
+     * directory it is extracted to.
+     *
+     * @throws IllegalArgumentException if the name is invalid
+     */
+    static void checkName(String name) {
+        if (name.isEmpty() || name.getBytes(StandardCharsets.UTF_8).length > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("Invalid member name length: " + name.length());
+        }
+        if (name.indexOf('\\') >= 0 || name.indexOf('\0') >= 0) {
+            throw new IllegalArgumentException("Invalid character in member name: " + name);
+        }
+        for (String segment : name.split("/", -1)) {
+            if (segment.isEmpty() || segment.equals(".") || segment.equals("..")) {
+                throw new IllegalArgumentException("Member name is not a plain relative path: " + name);
+            }
+        }
+    }
+
+    static void writeHeader(DataOutput output) throws IOException {
+        output.writeInt(BlockIndex.MAGIC_NUMBER);
+        output.writeByte(VERSION);
+        output.writeByte(0);
+    }
+
+    /**
+     * Writes the central directory and the trailer.
+     *
+     * @param output The output positioned right after the last member
+     * @param position Offset of {@code output} within the archive file
+     * @throws IOException if an I/O error occurs
+     */
+    void write(DataOutput output, long position) throws IOException {
+        for (Entry entry : entries) {
+            byte[] name = entry.name().getBytes(StandardCharsets.UTF_8);
+            HeaderWriter.writeVarInt(name.length, output);
+            output.write(name);
+            output.writeLong(entry.offset());
+            output.writeLong(entry.compressedLength());
+            output.writeLong(entry.size());
+            output.writeInt(entry.checksum());
+        }
+        output.writeLong(position);
+        output.writeInt(entries.size());
+        output.writeInt(BlockIndex.END_MARKER);
+    }
+
+    /**
+     * Returns the members in archive order.
+     */
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Returns the member with the given name, or null if there is none.
+     */
+    public Entry getEntry(String name) {
+        return entriesByName.get(name);
+    }
+
+    public int getEntryCount() {
+        return entries.size();
+    }
+
+    public long getTotalSize() {
+        return entries.stream().mapToLong(Entry::size).sum();
+    }
+}
@@ -0,0 +1,177 @@
+package org.example;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32C;
+
+/**
+ * Extracts members of archives written by {@link ArchiveCompressionEngine}.
+ * A member is located through the {@link ArchiveDirectory} and read with
+ * positional reads from its first record, so extracting one member touches
+ * nothing else in the archive. Extracting a whole archive decodes members
+ * concurrently on an executor. Every member is checked against its CRC32C.
+ */
+public class ArchiveExtractionEngine {
+
+    // Block type, uncompressed length and body length, the varints at their longest
+    private static final int MAX_FRAMING_SIZE = 11;
+
+    private final ExecutorService executor;
+    private final BlockCodec codec;
+
+    public ArchiveExtractionEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param executor Executor that decodes members; it is not shut down by
+     * this engine
+     */
+    public ArchiveExtractionEngine(ExecutorService executor) {
+        this.executor = Objects.requireNonNull(executor, "Executor cannot be null");
+        this.codec = new BlockCodec();
+    }
+
+    /**
+     * Extracts one member.
+     *
+     * @param archivePath Path to the archive
+     * @param name Name of the member
+     * @param outputPath Path receiving the member's bytes
+     * @throws IOException if an I/O error occurs or the member is corrupt
+     * @throws IllegalArgumentException if the archive has no such member
+     */
+    public void extract(Path archivePath, String name, Path outputPath) throws IOException, IllegalArgumentException {
+        Objects.requireNonNull(archivePath, "Archive path cannot be null");
+        Objects.requireNonNull(name, "Member name cannot be null");
+        Objects.requireNonNull(outputPath, "Output path cannot be null");
+
+        try (FileChannel input = FileChannel.open(archivePath, StandardOpenOption.READ)) {
+            ArchiveDirectory.Entry entry = ArchiveDirectory.read(input).getEntry(name);
+            if (entry == null) {
+                throw new IllegalArgumentException("Archive has no member named " + name);
+            }
+            try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(outputPath))) {
+                decodeMember(input, entry, output);
+            }
+        }
+    }
+
+    /**
+     * Extracts every member below a directory, creating subdirectories as
+     * needed.
+     *
+     * @param archivePath Path to the archive
+     * @param directory Directory receiving the members
+     * @return the central directory of the archive
+     * @throws IOException if an I/O error occurs or a member is corrupt
+     */
+    public ArchiveDirectory extractAll(Path archivePath, Path directory) throws IOException {
+        Objects.requireNonNull(archivePath, "Archive path cannot be null");
+        Objects.requireNonNull(directory, "Directory cannot be null");
+
+        try (FileChannel input = FileChannel.open(archivePath, StandardOpenOption.READ)) {
+            ArchiveDirectory archive = ArchiveDirectory.read(input);
+            Path root = directory.toAbsolutePath().normalize();
+            List<Future<Void>> tasks = new ArrayList<>(archive.getEntryCount());
+            AtomicBoolean failed = new AtomicBoolean();
+            try {
+                for (ArchiveDirectory.Entry entry : archive.getEntries()) {
+                    tasks.add(executor.submit(() -> {
+                        // Members not yet started are skipped once one has failed
+                        if (!failed.get()) {
+                            try {
+                                extractTo(input, entry, root);
+                            } catch (IOException | RuntimeException e) {
+                                failed.set(true);
+                                throw e;
+                            }
+                        }
+                        return null;
+                    }));
+                }
+            } catch (RuntimeException e) {
+                // The executor refused a member; the submitted ones still finish before the channel closes
+                failed.set(true);
+                try {
+                    IoSupport.awaitAll(tasks, failed);
+                } catch (IOException | RuntimeException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw e;
+            }
+            IoSupport.awaitAll(tasks, failed);
+            return archive;
+        }
+    }
+
+    private void extractTo(FileChannel input, ArchiveDirectory.Entry entry, Path root) throws IOException {
+        Path target = root.resolve(entry.name()).normalize();
+        // Names were checked when the directory was read; this guards the resolved path as well
+        if (!target.startsWith(root) || target.equals(root)) {
+            throw new IOException("Member would be extracted outside the directory: " + entry.name());
+        }
+        Files.createDirectories(target.getParent());
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(target))) {
+            decodeMember(input, entry, output);
+        }
+    }
+
+    /**
+     * Decodes the records of a member in turn and verifies its checksum.
+     */
+    private void decodeMember(FileChannel input, ArchiveDirectory.Entry entry, OutputStream output)
+            throws IOException {
+        CRC32C checksum = new CRC32C();
+        long position = entry.offset();
+        long end = entry.offset() + entry.compressedLength();
+        long remaining = entry.size();
+        while (position < end) {
+            byte[] framing = IoSupport.readFully(input, position, (int) Math.min(MAX_FRAMING_SIZE, end - position))
+                    .array();
+            long uncompressed = HeaderReader.readVarInt(framing, 1, framing.length);
+            int uncompressedLength = (int) uncompressed;
+            int bodyOffset = 1 + (int) (uncompressed >>> Integer.SIZE);
+            long body = HeaderReader.readVarInt(framing, bodyOffset, framing.length);
+            int bodyLength = (int) body;
+            // Bodies are never longer than their block, which bounds the record before it is cast
+            if (uncompressedLength <= 0 || uncompressedLength > remaining
+                    || uncompressedLength > BlockCompressionEngine.MAX_BLOCK_SIZE
+                    || bodyLength < 0 || bodyLength > BlockCompressionEngine.MAX_BLOCK_SIZE) {
+                throw new IOException("Invalid record in member " + entry.name());
+            }
+            long recordLength = bodyOffset + (body >>> Integer.SIZE) + bodyLength;
+            if (recordLength > end - position) {
+                throw new IOException("Invalid record in member " + entry.name());
+            }
+
+            byte[] record = IoSupport.readFully(input, position, (int) recordLength).array();
+            byte[] data = new byte[uncompressedLength];
+            codec.decodeRecord(record, 0, record.length, data, 0);
+            checksum.update(data, 0, data.length);
+            output.write(data);
+            position += recordLength;
+            remaining -= uncompressedLength;
+        }
+        if (remaining != 0) {
+            throw new IOException("Member " + entry.name() + " is truncated");
+        }
+        if ((int) checksum.getValue() != entry.checksum()) {
+            throw new IOException(String.format("Checksum mismatch in member %s: expected %08x but was %08x",
+                    entry.name(), entry.checksum(), (int) checksum.getValue()));
+        }
+    }
+}
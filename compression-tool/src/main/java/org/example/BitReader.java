@@ -0,0 +1,128 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads a most-significant-bit-first bit stream from an {@link InputStream}
+ * or a byte array. Bytes are pulled from the source in bulk and kept in a
+ * 64-bit accumulator so callers can peek at several bits at once.
+ */
+class BitReader {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream input;
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    private boolean endOfInput;
+
+    private long bitBuffer;
+    private int bitCount;
+    private long bitsConsumed;
+
+    BitReader(InputStream input) {
+        this(input, DEFAULT_BUFFER_SIZE);
+    }
+
+    BitReader(InputStream input, int bufferSize) {
+        this.input = input;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Reads bits directly from a region of an array without copying it.
+     */
+    BitReader(byte[] data, int offset, int length) {
+        this.input = null;
+        this.buffer = data;
+        this.position = offset;
+        this.limit = offset + length;
+        this.endOfInput = true;
+    }
+
+    /**
+     * Points a reader created over an array at another region and forgets
+     * the bits buffered so far, so that one reader serves many payloads.
+     *
+     * @throws IllegalStateException if the reader reads from a stream
+     */
+    void reset(byte[] data, int offset, int length) {
+        if (input != null) {
+            throw new IllegalStateException("Only array readers can be reset");
+        }
+        this.buffer = data;
+        this.position = offset;
+        this.limit = offset + length;
+        this.bitBuffer = 0;
+        this.bitCount = 0;
+        this.bitsConsumed = 0;
+    }
+
+    /**
+     * Returns the next {@code count} bits without consuming them. Bits past
+     * the end of the input read as zero.
+     *
+     * @param count number of bits to peek, at most 32
+     * @return the bits, right-aligned
+     * @throws IOException if an I/O error occurs
+     */
+    int peek(int count) throws IOException {
+        if (bitCount < count) {
+            refill();
+            if (bitCount < count) {
+                return (int) ((bitBuffer << (count - bitCount)) & mask(count));
+            }
+        }
+        return (int) ((bitBuffer >>> (bitCount - count)) & mask(count));
+    }
+
+    /**
+     * Consumes {@code count} bits that were previously peeked.
+     *
+     * @param count number of bits to consume
+     * @throws IOException if fewer than {@code count} bits remain
+     */
+    void skip(int count) throws IOException {
+        if (bitCount < count) {
+            refill();
+            if (bitCount < count) {
+                throw new IOException("Unexpected end of file while reading compressed data");
+            }
+        }
+        bitCount -= count;
+        bitsConsumed += count;
+    }
+
+    long bitsConsumed() {
+        return bitsConsumed;
+    }
+
+    private void refill() throws IOException {
+        while (bitCount <= 56) {
+            if (position == limit) {
+                if (endOfInput || !fillBuffer()) {
+                    return;
+                }
+            }
+            bitBuffer = (bitBuffer << 8) | (buffer[position++] & 0xFF);
+            bitCount += 8;
+        }
+    }
+
+    private boolean fillBuffer() throws IOException {
+        int read = input.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            endOfInput = true;
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    private static long mask(int count) {
+        return (1L << count) - 1;
+    }
+}
@@ -0,0 +1,99 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes a most-significant-bit-first bit stream to a channel. Codes are
+ * shifted into a 64-bit accumulator and emitted as whole words into a reusable
+ * buffer, which is drained to the channel when it fills up.
+ */
+class BitWriter {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+
+    private long accumulator;
+    private int bitCount;
+    private long bitsWritten;
+
+    BitWriter(WritableByteChannel channel) {
+        this(channel, ByteBuffer.allocateDirect(DEFAULT_BUFFER_SIZE));
+    }
+
+    /**
+     * @param channel Destination of the bit stream
+     * @param buffer Reusable staging buffer, at least 8 bytes; it is cleared
+     * before use
+     */
+    BitWriter(WritableByteChannel channel, ByteBuffer buffer) {
+        this.channel = channel;
+        this.buffer = buffer.clear().order(ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Appends a code.
+     *
+     * @param code Code bits, right-aligned, with no bits set above
+     * {@code length}
+     * @param length Number of bits, 1 to 64
+     * @throws IOException if draining the buffer fails
+     */
+    void write(long code, int length) throws IOException {
+        int free = 64 - bitCount;
+        if (length < free) {
+            accumulator = (accumulator << length) | code;
+            bitCount += length;
+        } else {
+            int rest = length - free;
+            long word = free == 64 ? code : (accumulator << free) | (code >>> rest);
+            putWord(word);
+            accumulator = code;
+            bitCount = rest;
+        }
+        bitsWritten += length;
+    }
+
+    /**
+     * Writes out the pending bits, zero padding the last byte, and drains the
+     * buffer to the channel.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    void flush() throws IOException {
+        if (bitCount > 0) {
+            long word = accumulator << (64 - bitCount);
+            for (int shift = 56; shift > 56 - ((bitCount + 7) / 8) * 8; shift -= 8) {
+                if (!buffer.hasRemaining()) {
+                    drain();
+                }
+                buffer.put((byte) (word >>> shift));
+            }
+            bitCount = 0;
+        }
+        drain();
+    }
+
+    long bitsWritten() {
+        return bitsWritten;
+    }
+
+    private void putWord(long word) throws IOException {
+        if (buffer.remaining() < Long.BYTES) {
+            drain();
+        }
+        buffer.putLong(word);
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,794 @@
+package org.example;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Encodes and decodes the blocks of a block container. Every block is coded
+ * on its own, with byte values as symbols and its own canonical code table,
+ * so blocks can be processed independently and in parallel. Codes are limited
+ * to {@link LengthLimitedCodeBuilder#DEFAULT_MAX_CODE_LENGTH} bits.
+ *
+ * <p>A block record is laid out as: - Block type (1 byte) - Uncompressed length
+ * (varint) - Body length (varint) - Body - CRC32C of the uncompressed bytes
+ * (4 bytes, only in containers and streams with
+ * {@link BlockIndex#CHECKSUM_FLAG} set). A Huffman body holds the code length
+ * table followed by the MSB-first payload bits, zero padded to a byte; a
+ * block of a single distinct byte has a one-entry table and no payload.
+ *
+ * <p>Huffman blocks of {@value #MIN_STREAMS_LENGTH} bytes or more are split
+ * into {@value #STREAMS} consecutive segments of {@code ceil(length / 4)}
+ * bytes, the last one possibly shorter, each coded into its own bit stream
+ * with the block's table. A streams body holds the code length table, a jump
+ * table with the byte lengths of the first three streams (varints) and the
+ * four streams, each zero padded to a byte. The decoder advances all four
+ * streams in one loop, which overlaps the otherwise serial chain of table
+ * lookup and shift by code length; the jump table and padding cost a few
+ * bytes, which only pays on larger blocks.
+ *
+ * <p>A stored body holds the bytes of the block as they are. It is written at
+ * {@link CompressionLevel#STORE}, and at every other level for blocks whose
+ * byte histogram has near maximal entropy (already compressed or random data)
+ * or whose coded body would not be smaller than the block, so a block never
+ * grows by more than its framing.
+ *
+ * <p>With match finding enabled, blocks are also tokenized by
+ * {@link Lz77MatchFinder} and the cheaper coding is kept. An LZ77 body holds
+ * the literal/length code table, the distance code table (empty if there are
+ * no matches) and the payload bits: per token a literal/length code, and for
+ * matches the length extra bits, a distance code and the distance extra bits.
+ *
+ * <p>With context modelling enabled, blocks are also coded with order-1
+ * tables, one per value of the preceding byte, and the cheapest coding is
+ * kept. A context body holds 256 code length tables, one per context (an
+ * empty table for bytes that are never followed by anything), and the
+ * payload bits: every byte coded with the table of the byte before it, the
+ * first one with the table of byte 0. A context with a single successor
+ * codes it with no bits at all.
+ *
+ * <p>With ANS coding enabled, blocks are also coded with {@link RansCoder}.
+ * An ANS body holds the normalized symbol frequencies (see
+ * {@link RansCoder#writeFrequencies}) followed by the rANS bytes.
+ *
+ * <p>With the Burrows-Wheeler stage enabled, blocks are also run through
+ * {@link BurrowsWheelerTransform} and {@link MoveToFrontCoder} and the
+ * resulting symbols Huffman coded. A Burrows-Wheeler body holds the primary
+ * index (varint), the number of symbols (varint), the symbol code length
+ * table and the payload bits.
+ *
+ * <p>A dictionary body, written only by {@link CompressionContext}, holds the
+ * {@link HuffmanDictionary#id()} of the table it was coded with (4 bytes)
+ * followed by the payload bits; the codec itself does not decode it.
+ */
+class BlockCodec {
+
+    static final int TYPE_HUFFMAN = 0;
+    static final int TYPE_LZ77 = 1;
+    static final int TYPE_STORED = 2;
+    static final int TYPE_DICTIONARY = 3;
+    static final int TYPE_CONTEXT = 4;
+    static final int TYPE_ANS = 5;
+    static final int TYPE_HUFFMAN_STREAMS = 6;
+    static final int TYPE_BURROWS_WHEELER = 7;
+    static final int END_OF_BLOCKS = 0xFF;
+    static final int CHECKSUM_SIZE = Integer.BYTES;
+
+    static final int STREAMS = 4;
+    static final int MIN_STREAMS_LENGTH = 16 * 1024;
+
+    private static final int BIT_BUFFER_SIZE = 16 * 1024;
+
+    private final CharacterFrequencyCounter frequencyCounter;
+    private final CodeLengthBuilder codeLengthBuilder;
+    private final HeaderWriter headerWriter;
+    private final HeaderReader headerReader;
+    private final boolean storesBlocks;
+    private final boolean checksums;
+    private final boolean contextModelling;
+    private final boolean ansCoding;
+    private final boolean burrowsWheeler;
+    private final Lz77MatchFinder matchFinder;
+
+    /**
+     * Creates a codec that codes every block with order-0 Huffman codes.
+     */
+    BlockCodec() {
+        this(CompressionLevel.FAST);
+    }
+
+    /**
+     * @param level Level that decides how blocks are encoded; decoding does
+     * not depend on it
+     */
+    BlockCodec(CompressionLevel level) {
+        this(level, false);
+    }
+
+    /**
+     * @param level Level that decides how blocks are encoded; decoding does
+     * not depend on it
+     * @param checksums Whether encoded records end with a CRC32C of the block
+     */
+    BlockCodec(CompressionLevel level, boolean checksums) {
+        this.storesBlocks = level.storesBlocks();
+        this.checksums = checksums;
+        this.contextModelling = level.contextModelling();
+        this.ansCoding = level.ansCoding();
+        this.burrowsWheeler = level.burrowsWheeler();
+        this.matchFinder = level.findsMatches() ? new Lz77MatchFinder(level.maxChainLength(), parsing(level)) : null;
+        this.frequencyCounter = new CharacterFrequencyCounter();
+        this.codeLengthBuilder = new CodeLengthBuilder();
+        this.headerWriter = new HeaderWriter();
+        this.headerReader = new HeaderReader();
+    }
+
+    private static Lz77MatchFinder.Parsing parsing(CompressionLevel level) {
+        if (level.optimalParsing()) {
+            return Lz77MatchFinder.Parsing.OPTIMAL;
+        }
+        return level.lazyMatching() ? Lz77MatchFinder.Parsing.LAZY : Lz77MatchFinder.Parsing.GREEDY;
+    }
+
+    /**
+     * Compresses a region of bytes into a complete block record.
+     *
+     * @param data Source array
+     * @param offset Start of the block in the array
+     * @param length Number of bytes in the block, at least one
+     * @return the framed block record
+     * @throws IOException if an I/O error occurs
+     */
+    byte[] encode(byte[] data, int offset, int length) throws IOException {
+        if (length <= 0) {
+            throw new IllegalArgumentException("Block cannot be empty");
+        }
+        if (storesBlocks) {
+            return stored(data, offset, length);
+        }
+        long[] counts = frequencyCounter.countBytes(data, offset, length);
+        if (CharacterFrequencyCounter.isIncompressible(counts, length)) {
+            return stored(data, offset, length);
+        }
+        int[] lengths = codeLengthBuilder.buildCodeLengths(counts, LengthLimitedCodeBuilder.DEFAULT_MAX_CODE_LENGTH);
+        Map<Character, Integer> codeLengths = CodeLengthBuilder.toMap(lengths);
+        ByteArrayOutputStream huffmanBody = new ByteArrayOutputStream(length / 2 + 64);
+        DataOutputStream huffmanOutput = new DataOutputStream(huffmanBody);
+        headerWriter.writeCodeLengths(codeLengths, huffmanOutput);
+        huffmanOutput.flush();
+        if (codeLengths.size() == 1) {
+            // A lone symbol decodes from the table alone, so no other coding can beat an empty payload
+            return record(TYPE_HUFFMAN, data, offset, length, huffmanBody);
+        }
+        // Every candidate is measured as its serialized tables plus its payload
+        long huffmanBits = (long) huffmanBody.size() * Byte.SIZE + CodeLengthBuilder.totalBits(counts, lengths);
+        long budgetBits = Math.min(huffmanBits, (long) length * Byte.SIZE);
+
+        ByteArrayOutputStream bestBody = null;
+        int bestType = TYPE_HUFFMAN;
+        if (contextModelling) {
+            ByteArrayOutputStream body = encodeContexts(data, offset, length, budgetBits);
+            if (body != null) {
+                bestBody = body;
+                bestType = TYPE_CONTEXT;
+                budgetBits = (long) body.size() * Byte.SIZE;
+            }
+        }
+        if (ansCoding) {
+            ByteArrayOutputStream body = encodeAns(data, offset, length, counts, budgetBits);
+            if (body != null) {
+                bestBody = body;
+                bestType = TYPE_ANS;
+                budgetBits = (long) body.size() * Byte.SIZE;
+            }
+        }
+        if (burrowsWheeler) {
+            ByteArrayOutputStream body = encodeBurrowsWheeler(data, offset, length, budgetBits);
+            if (body != null) {
+                bestBody = body;
+                bestType = TYPE_BURROWS_WHEELER;
+                budgetBits = (long) body.size() * Byte.SIZE;
+            }
+        }
+        if (matchFinder != null) {
+            Lz77MatchFinder.Tokens tokens = matchFinder.tokenize(data, offset, length);
+            ByteArrayOutputStream body = encodeTokens(tokens, budgetBits);
+            if (body != null) {
+                return body.size() < length
+                        ? record(TYPE_LZ77, data, offset, length, body)
+                        : stored(data, offset, length);
+            }
+        }
+        if (bestBody != null) {
+            return bestBody.size() < length
+                    ? record(bestType, data, offset, length, bestBody)
+                    : stored(data, offset, length);
+        }
+        if (huffmanBits >= (long) length * Byte.SIZE) {
+            return stored(data, offset, length);
+        }
+
+        PackedCodes packed = PackedCodes.fromLengths(lengths);
+        int type = TYPE_HUFFMAN;
+        if (length >= MIN_STREAMS_LENGTH) {
+            writeStreams(huffmanOutput, data, offset, length, packed);
+            type = TYPE_HUFFMAN_STREAMS;
+        } else {
+            writeBits(huffmanOutput, data, offset, length, packed);
+        }
+        huffmanOutput.flush();
+        return huffmanBody.size() < length
+                ? record(type, data, offset, length, huffmanBody)
+                : stored(data, offset, length);
+    }
+
+    /**
+     * Frames the bytes of a block unchanged.
+     */
+    private byte[] stored(byte[] data, int offset, int length) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(length);
+        body.write(data, offset, length);
+        return record(TYPE_STORED, data, offset, length, body);
+    }
+
+    /**
+     * Codes LZ77 tokens, unless their tables and payload would not be smaller
+     * than {@code budgetBits}.
+     *
+     * @return the LZ77 body, or null if the other codings are cheaper
+     */
+    private ByteArrayOutputStream encodeTokens(Lz77MatchFinder.Tokens tokens, long budgetBits) throws IOException {
+        int[] values = tokens.tokens();
+        long[] literalCounts = new long[Lz77MatchFinder.LITERAL_LENGTH_SYMBOLS];
+        long[] distanceCounts = new long[Lz77MatchFinder.DISTANCE_CODES];
+        long extraBits = 0;
+        for (int i = 0; i < tokens.count(); i++) {
+            int token = values[i];
+            if (Lz77MatchFinder.isMatch(token)) {
+                int lengthCode = Lz77MatchFinder.lengthCode(Lz77MatchFinder.matchLength(token));
+                int distanceCode = Lz77MatchFinder.distanceCode(Lz77MatchFinder.matchDistance(token));
+                literalCounts[256 + lengthCode]++;
+                distanceCounts[distanceCode]++;
+                extraBits += Lz77MatchFinder.LENGTH_EXTRA_BITS[lengthCode]
+                        + Lz77MatchFinder.DISTANCE_EXTRA_BITS[distanceCode];
+            } else {
+                literalCounts[token]++;
+            }
+        }
+
+        int[] literalLengths = codeLengthBuilder.buildCodeLengths(literalCounts,
+                LengthLimitedCodeBuilder.DEFAULT_MAX_CODE_LENGTH);
+        int[] distanceLengths = codeLengthBuilder.buildCodeLengths(distanceCounts,
+                LengthLimitedCodeBuilder.DEFAULT_MAX_CODE_LENGTH);
+        long tokenBits = CodeLengthBuilder.totalBits(literalCounts, literalLengths)
+                + CodeLengthBuilder.totalBits(distanceCounts, distanceLengths)
+                + extraBits;
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream((int) Math.min(Integer.MAX_VALUE - 8, tokenBits / 8 + 1024));
+        DataOutputStream bodyOutput = new DataOutputStream(body);
+        headerWriter.writeCodeLengths(CodeLengthBuilder.toMap(literalLengths), bodyOutput);
+        headerWriter.writeCodeLengths(CodeLengthBuilder.toMap(distanceLengths), bodyOutput);
+        if ((long) body.size() * Byte.SIZE + tokenBits >= budgetBits) {
+            return null;
+        }
+
+        PackedCodes literalCodes = PackedCodes.fromLengths(literalLengths);
+        PackedCodes distanceCodes = PackedCodes.fromLengths(distanceLengths);
+        BitWriter bits = new BitWriter(Channels.newChannel(bodyOutput), ByteBuffer.allocate(BIT_BUFFER_SIZE));
+        for (int i = 0; i < tokens.count(); i++) {
+            int token = values[i];
+            if (!Lz77MatchFinder.isMatch(token)) {
+                bits.write(literalCodes.getCode(token), literalCodes.getLength(token));
+                continue;
+            }
+            int matchLength = Lz77MatchFinder.matchLength(token);
+            int lengthCode = Lz77MatchFinder.lengthCode(matchLength);
+            bits.write(literalCodes.getCode(256 + lengthCode), literalCodes.getLength(256 + lengthCode));
+            writeExtraBits(bits, matchLength - Lz77MatchFinder.LENGTH_BASE[lengthCode],
+                    Lz77MatchFinder.LENGTH_EXTRA_BITS[lengthCode]);
+            int distance = Lz77MatchFinder.matchDistance(token);
+            int distanceCode = Lz77MatchFinder.distanceCode(distance);
+            bits.write(distanceCodes.getCode(distanceCode), distanceCodes.getLength(distanceCode));
+            writeExtraBits(bits, distance - Lz77MatchFinder.DISTANCE_BASE[distanceCode],
+                    Lz77MatchFinder.DISTANCE_EXTRA_BITS[distanceCode]);
+        }
+        bits.flush();
+        bodyOutput.flush();
+        return body;
+    }
+
+    /**
+     * Codes a block with order-1 tables, unless the tables and payload would
+     * not be smaller than {@code budgetBits}.
+     *
+     * @return the context body, or null if the other codings are cheaper
+     */
+    private ByteArrayOutputStream encodeContexts(byte[] data, int offset, int length, long budgetBits)
+            throws IOException {
+        int symbols = CharacterFrequencyCounter.BYTE_SYMBOLS;
+        long[] counts = new long[symbols * symbols];
+        int previous = 0;
+        for (int i = offset; i < offset + length; i++) {
+            int symbol = data[i] & 0xFF;
+            counts[(previous << 8) | symbol]++;
+            previous = symbol;
+        }
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream(length / 2 + 1024);
+        DataOutputStream bodyOutput = new DataOutputStream(body);
+        PackedCodes[] contexts = new PackedCodes[symbols];
+        long[] contextCounts = new long[symbols];
+        int[] lengths = new int[symbols];
+        long[] sortedSymbols = new long[symbols];
+        long[] work = new long[symbols];
+        long payloadBits = 0;
+        for (int context = 0; context < symbols; context++) {
+            System.arraycopy(counts, context << 8, contextCounts, 0, symbols);
+            codeLengthBuilder.buildCodeLengths(contextCounts, LengthLimitedCodeBuilder.DEFAULT_MAX_CODE_LENGTH,
+                    lengths, sortedSymbols, work);
+            Map<Character, Integer> codeLengths = CodeLengthBuilder.toMap(lengths);
+            headerWriter.writeCodeLengths(codeLengths, bodyOutput);
+            if (codeLengths.size() > 1) {
+                payloadBits += CodeLengthBuilder.totalBits(contextCounts, lengths);
+                contexts[context] = PackedCodes.fromLengths(lengths);
+            }
+        }
+        if ((long) body.size() * Byte.SIZE + payloadBits >= budgetBits) {
+            return null;
+        }
+
+        BitWriter bits = new BitWriter(Channels.newChannel(bodyOutput), ByteBuffer.allocate(BIT_BUFFER_SIZE));
+        previous = 0;
+        for (int i = offset; i < offset + length; i++) {
+            int symbol = data[i] & 0xFF;
+            PackedCodes codes = contexts[previous];
+            if (codes != null) {
+                bits.write(codes.getCode(symbol), codes.getLength(symbol));
+            }
+            previous = symbol;
+        }
+        bits.flush();
+        bodyOutput.flush();
+        return body;
+    }
+
+    /**
+     * Codes a block with rANS, unless the frequency table, the states and the
+     * estimated payload would not be smaller than {@code budgetBits}.
+     *
+     * @return the ANS body, or null if the other codings are cheaper
+     */
+    private static ByteArrayOutputStream encodeAns(byte[] data, int offset, int length, long[] counts,
+            long budgetBits) throws IOException {
+        int[] frequencies = RansCoder.normalize(counts);
+        ByteArrayOutputStream body = new ByteArrayOutputStream(length / 2 + 1024);
+        DataOutputStream bodyOutput = new DataOutputStream(body);
+        RansCoder.writeFrequencies(frequencies, bodyOutput);
+        long estimatedBits = (long) body.size() * Byte.SIZE + RansCoder.costBits(counts, frequencies)
+                + (long) RansCoder.STATES * Integer.SIZE;
+        if (estimatedBits >= budgetBits) {
+            return null;
+        }
+        bodyOutput.write(RansCoder.encode(data, offset, length, frequencies));
+        bodyOutput.flush();
+        return body;
+    }
+
+    /**
+     * Codes a block through the Burrows-Wheeler transform and move-to-front
+     * ranking, unless the body would not be smaller than {@code budgetBits}.
+     *
+     * @return the Burrows-Wheeler body, or null if the other codings are
+     * cheaper
+     */
+    private ByteArrayOutputStream encodeBurrowsWheeler(byte[] data, int offset, int length, long budgetBits)
+            throws IOException {
+        byte[] transformed = new byte[length];
+        int primary = BurrowsWheelerTransform.forward(data, offset, length, transformed);
+        int[] symbols = new int[length];
+        int count = MoveToFrontCoder.encode(transformed, 0, length, symbols);
+        long[] counts = new long[MoveToFrontCoder.SYMBOLS];
+        for (int i = 0; i < count; i++) {
+            counts[symbols[i]]++;
+        }
+        int[] lengths = codeLengthBuilder.buildCodeLengths(counts, LengthLimitedCodeBuilder.DEFAULT_MAX_CODE_LENGTH);
+        Map<Character, Integer> codeLengths = CodeLengthBuilder.toMap(lengths);
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream(length / 3 + 1024);
+        DataOutputStream bodyOutput = new DataOutputStream(body);
+        HeaderWriter.writeVarInt(primary, bodyOutput);
+        HeaderWriter.writeVarInt(count, bodyOutput);
+        headerWriter.writeCodeLengths(codeLengths, bodyOutput);
+        if ((long) body.size() * Byte.SIZE + CodeLengthBuilder.totalBits(counts, lengths) >= budgetBits) {
+            return null;
+        }
+
+        PackedCodes codes = PackedCodes.fromLengths(lengths);
+        BitWriter bits = new BitWriter(Channels.newChannel(bodyOutput), ByteBuffer.allocate(BIT_BUFFER_SIZE));
+        for (int i = 0; i < count; i++) {
+            bits.write(codes.getCode(symbols[i]), codes.getLength(symbols[i]));
+        }
+        bits.flush();
+        bodyOutput.flush();
+        return body;
+    }
+
+    private static void writeExtraBits(BitWriter bits, int value, int count) throws IOException {
+        if (count > 0) {
+            bits.write(value, count);
+        }
+    }
+
+    private byte[] record(int type, byte[] data, int offset, int length, ByteArrayOutputStream body)
+            throws IOException {
+        ByteArrayOutputStream record = new ByteArrayOutputStream(body.size() + 11 + CHECKSUM_SIZE);
+        DataOutputStream recordOutput = new DataOutputStream(record);
+        recordOutput.writeByte(type);
+        HeaderWriter.writeVarInt(length, recordOutput);
+        HeaderWriter.writeVarInt(body.size(), recordOutput);
+        body.writeTo(recordOutput);
+        if (checksums) {
+            recordOutput.writeInt(checksum(data, offset, length));
+        }
+        recordOutput.flush();
+        return record.toByteArray();
+    }
+
+    /**
+     * Decodes a complete block record without a checksum.
+     *
+     * @param record Array holding the record
+     * @param offset Start of the record in the array
+     * @param length Length of the record
+     * @param destination Array receiving the decoded bytes
+     * @param destinationOffset Where the decoded bytes start
+     * @return the number of decoded bytes
+     * @throws IOException if the record is malformed
+     */
+    int decodeRecord(byte[] record, int offset, int length, byte[] destination, int destinationOffset)
+            throws IOException {
+        return decodeRecord(record, offset, length, destination, destinationOffset, false);
+    }
+
+    /**
+     * Decodes a complete block record.
+     *
+     * @param record Array holding the record
+     * @param offset Start of the record in the array
+     * @param length Length of the record
+     * @param destination Array receiving the decoded bytes
+     * @param destinationOffset Where the decoded bytes start
+     * @param checksummed Whether the record ends with a checksum, which is
+     * then verified against the decoded bytes
+     * @return the number of decoded bytes
+     * @throws IOException if the record is malformed or fails its checksum
+     */
+    int decodeRecord(byte[] record, int offset, int length, byte[] destination, int destinationOffset,
+            boolean checksummed) throws IOException {
+        ByteArrayInputStream in = new ByteArrayInputStream(record, offset, length);
+        DataInputStream input = new DataInputStream(in);
+        int type = input.readUnsignedByte();
+        int uncompressedLength = HeaderReader.readVarInt(input);
+        int bodyLength = HeaderReader.readVarInt(input);
+        int trailer = checksummed ? CHECKSUM_SIZE : 0;
+        if (bodyLength != in.available() - trailer) {
+            throw new IOException("Block body length does not match its record");
+        }
+        int bodyOffset = offset + length - trailer - bodyLength;
+        decodeBody(type, record, bodyOffset, bodyLength, destination, destinationOffset, uncompressedLength);
+        if (checksummed) {
+            in.skip(bodyLength);
+            verifyChecksum(input.readInt(), destination, destinationOffset, uncompressedLength);
+        }
+        return uncompressedLength;
+    }
+
+    /**
+     * Computes the CRC32C of a region; the JIT compiles it to the CRC
+     * instructions of the processor where they exist.
+     */
+    static int checksum(byte[] data, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(data, offset, length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Checks decoded bytes against the checksum stored with their record.
+     *
+     * @throws IOException if they differ
+     */
+    static void verifyChecksum(int expected, byte[] data, int offset, int length) throws IOException {
+        int actual = checksum(data, offset, length);
+        if (actual != expected) {
+            throw new IOException(String.format("Block checksum mismatch: expected %08x but was %08x", expected,
+                    actual));
+        }
+    }
+
+    /**
+     * Decodes a block body whose framing has already been read.
+     *
+     * @param type Block type from the record
+     * @param body Array holding the body
+     * @param offset Start of the body in the array
+     * @param length Length of the body
+     * @param destination Array receiving the decoded bytes
+     * @param destinationOffset Where the decoded bytes start
+     * @param uncompressedLength Number of bytes to decode
+     * @throws IOException if the body is malformed
+     */
+    void decodeBody(int type, byte[] body, int offset, int length, byte[] destination, int destinationOffset,
+            int uncompressedLength) throws IOException {
+        if (destination.length - destinationOffset < uncompressedLength) {
+            throw new IOException("Block is larger than the container block size");
+        }
+        switch (type) {
+            case TYPE_HUFFMAN -> decodeHuffman(body, offset, length, destination, destinationOffset, uncompressedLength);
+            case TYPE_HUFFMAN_STREAMS -> decodeStreams(body, offset, length, destination, destinationOffset,
+                    uncompressedLength);
+            case TYPE_LZ77 -> decodeTokens(body, offset, length, destination, destinationOffset, uncompressedLength);
+            case TYPE_CONTEXT -> decodeContexts(body, offset, length, destination, destinationOffset,
+                    uncompressedLength);
+            case TYPE_ANS -> {
+                ByteArrayInputStream in = new ByteArrayInputStream(body, offset, length);
+                int[] frequencies = RansCoder.readFrequencies(new DataInputStream(in));
+                int payload = offset + length - in.available();
+                RansCoder.decode(body, payload, in.available(), frequencies, destination, destinationOffset,
+                        uncompressedLength);
+            }
+            case TYPE_BURROWS_WHEELER -> decodeBurrowsWheeler(body, offset, length, destination,
+                    destinationOffset, uncompressedLength);
+            case TYPE_STORED -> {
+                if (length != uncompressedLength) {
+                    throw new IOException("Stored block length does not match its body");
+                }
+                System.arraycopy(body, offset, destination, destinationOffset, length);
+            }
+            default -> throw new IOException("Unsupported block type: " + type);
+        }
+    }
+
+    private void decodeHuffman(byte[] body, int offset, int length, byte[] destination, int destinationOffset,
+            int uncompressedLength) throws IOException {
+        ByteArrayInputStream in = new ByteArrayInputStream(body, offset, length);
+        int[] lengths = readCodes(new DataInputStream(in), CharacterFrequencyCounter.BYTE_SYMBOLS);
+        int single = -1;
+        int coded = 0;
+        for (int symbol = 0; symbol < lengths.length; symbol++) {
+            if (lengths[symbol] > 0) {
+                single = symbol;
+                coded++;
+            }
+        }
+        if (coded == 0) {
+            throw new IOException("Block has no code table");
+        }
+
+        if (coded == 1) {
+            Arrays.fill(destination, destinationOffset, destinationOffset + uncompressedLength, (byte) single);
+            return;
+        }
+
+        int payloadOffset = offset + length - in.available();
+        BitReader reader = new BitReader(body, payloadOffset, in.available());
+        HuffmanDecodingTable table = decodingTable(lengths);
+        int end = destinationOffset + uncompressedLength;
+        for (int i = destinationOffset; i < end; i++) {
+            destination[i] = (byte) table.decode(reader);
+        }
+    }
+
+    private void decodeStreams(byte[] body, int offset, int length, byte[] destination, int destinationOffset,
+            int uncompressedLength) throws IOException {
+        // The encoder never splits shorter blocks, and the first three segments must fit in the block
+        int segmentLength = segmentLength(uncompressedLength);
+        if (uncompressedLength < MIN_STREAMS_LENGTH || 3L * segmentLength > uncompressedLength) {
+            throw new IOException("Block is too short to be split into streams: " + uncompressedLength);
+        }
+        int end = offset + length;
+        CanonicalDecoder decoder = new CanonicalDecoder();
+        int position = decoder.readTable(body, offset, end);
+        int single = decoder.singleSymbol();
+        if (single >= 0) {
+            Arrays.fill(destination, destinationOffset, destinationOffset + uncompressedLength, (byte) single);
+            return;
+        }
+        int[] streamLengths = new int[STREAMS - 1];
+        long jumped = 0;
+        for (int stream = 0; stream < STREAMS - 1; stream++) {
+            long size = HeaderReader.readVarInt(body, position, end);
+            position += (int) (size >>> Integer.SIZE);
+            streamLengths[stream] = (int) size;
+            jumped += streamLengths[stream];
+        }
+        if (jumped > end - position) {
+            throw new IOException("Stream jump table reaches outside its block");
+        }
+        // The last stream runs to the end of the body
+        int[] bounds = new int[STREAMS + 1];
+        bounds[0] = position;
+        for (int stream = 0; stream < STREAMS - 1; stream++) {
+            bounds[stream + 1] = bounds[stream] + streamLengths[stream];
+        }
+        bounds[STREAMS] = end;
+        decoder.decodeInterleaved(body, bounds, destination, destinationOffset, segmentLength, uncompressedLength);
+    }
+
+    /**
+     * Returns the length of every segment of a streams block but the last.
+     */
+    private static int segmentLength(int length) {
+        return (length + STREAMS - 1) / STREAMS;
+    }
+
+    private void decodeTokens(byte[] body, int offset, int length, byte[] destination, int destinationOffset,
+            int uncompressedLength) throws IOException {
+        ByteArrayInputStream in = new ByteArrayInputStream(body, offset, length);
+        DataInputStream input = new DataInputStream(in);
+        int[] literalLengths = readCodes(input, Lz77MatchFinder.LITERAL_LENGTH_SYMBOLS);
+        int[] distanceLengths = readCodes(input, Lz77MatchFinder.DISTANCE_CODES);
+        HuffmanDecodingTable literals = decodingTable(literalLengths);
+        HuffmanDecodingTable distances = Arrays.stream(distanceLengths).allMatch(codeLength -> codeLength == 0)
+                ? null : decodingTable(distanceLengths);
+
+        BitReader reader = new BitReader(body, offset + length - in.available(), in.available());
+        int position = destinationOffset;
+        int end = destinationOffset + uncompressedLength;
+        while (position < end) {
+            int symbol = literals.decode(reader);
+            if (symbol < 256) {
+                destination[position++] = (byte) symbol;
+                continue;
+            }
+            int lengthCode = symbol - 256;
+            int matchLength = Lz77MatchFinder.LENGTH_BASE[lengthCode]
+                    + readExtraBits(reader, Lz77MatchFinder.LENGTH_EXTRA_BITS[lengthCode]);
+            if (distances == null) {
+                throw new IOException("Match in a block without distance codes");
+            }
+            int distanceCode = distances.decode(reader);
+            int distance = Lz77MatchFinder.DISTANCE_BASE[distanceCode]
+                    + readExtraBits(reader, Lz77MatchFinder.DISTANCE_EXTRA_BITS[distanceCode]);
+            if (distance > position - destinationOffset || matchLength > end - position) {
+                throw new IOException("Match reaches outside its block");
+            }
+            // Byte by byte, since a match may overlap the bytes it produces
+            for (int from = position - distance, stop = position + matchLength; position < stop; ) {
+                destination[position++] = destination[from++];
+            }
+        }
+    }
+
+    private void decodeContexts(byte[] body, int offset, int length, byte[] destination, int destinationOffset,
+            int uncompressedLength) throws IOException {
+        int end = offset + length;
+        CanonicalDecoder[] contexts = new CanonicalDecoder[CharacterFrequencyCounter.BYTE_SYMBOLS];
+        int position = offset;
+        for (int context = 0; context < contexts.length; context++) {
+            if (position == end) {
+                throw new IOException("Block has no code table");
+            }
+            if (body[position] == 0) {
+                position++;
+                continue;
+            }
+            contexts[context] = new CanonicalDecoder();
+            position = contexts[context].readTable(body, position, end);
+        }
+
+        BitReader reader = new BitReader(body, position, end - position);
+        int previous = 0;
+        for (int i = destinationOffset; i < destinationOffset + uncompressedLength; i++) {
+            CanonicalDecoder decoder = contexts[previous];
+            if (decoder == null) {
+                throw new IOException("Byte follows a context without codes: " + previous);
+            }
+            previous = decoder.decodeSymbol(reader);
+            destination[i] = (byte) previous;
+        }
+    }
+
+    private void decodeBurrowsWheeler(byte[] body, int offset, int length, byte[] destination,
+            int destinationOffset, int uncompressedLength) throws IOException {
+        ByteArrayInputStream in = new ByteArrayInputStream(body, offset, length);
+        DataInputStream input = new DataInputStream(in);
+        int primary = HeaderReader.readVarInt(input);
+        int count = HeaderReader.readVarInt(input);
+        // Zero runs take fewer symbols than bytes, and every other symbol is one byte
+        if (count > uncompressedLength) {
+            throw new IOException("Block has more symbols than bytes: " + count);
+        }
+        HuffmanDecodingTable table = decodingTable(readCodes(input, MoveToFrontCoder.SYMBOLS));
+
+        BitReader reader = new BitReader(body, offset + length - in.available(), in.available());
+        int[] symbols = new int[count];
+        for (int i = 0; i < count; i++) {
+            symbols[i] = table.decode(reader);
+        }
+        byte[] transformed = new byte[uncompressedLength];
+        MoveToFrontCoder.decode(symbols, count, transformed, 0, uncompressedLength);
+        BurrowsWheelerTransform.inverse(transformed, primary, destination, destinationOffset);
+    }
+
+    /**
+     * Reads a code length table and checks its symbols against an alphabet.
+     *
+     * @return the code length of every symbol of the alphabet
+     */
+    private int[] readCodes(DataInputStream input, int alphabetSize) throws IOException {
+        Map<Character, Integer> codeLengths = headerReader.readCodeLengths(input);
+        int[] lengths = new int[alphabetSize];
+        for (Map.Entry<Character, Integer> entry : codeLengths.entrySet()) {
+            char symbol = entry.getKey();
+            if (symbol >= alphabetSize) {
+                throw new IOException("Invalid symbol in block code table: " + (int) symbol);
+            }
+            lengths[symbol] = entry.getValue();
+        }
+        return lengths;
+    }
+
+    /**
+     * Builds the decoding table of a code length table.
+     *
+     * @throws IOException if no symbol has a code or the lengths do not
+     * describe a prefix code
+     */
+    private static HuffmanDecodingTable decodingTable(int[] lengths) throws IOException {
+        try {
+            return HuffmanDecodingTable.fromLengths(lengths);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid code length table: " + e.getMessage(), e);
+        }
+    }
+
+    private static int readExtraBits(BitReader reader, int count) throws IOException {
+        if (count == 0) {
+            return 0;
+        }
+        int value = reader.peek(count);
+        reader.skip(count);
+        return value;
+    }
+
+    /**
+     * Writes the jump table and the four streams of a streams body.
+     */
+    private void writeStreams(DataOutputStream output, byte[] data, int offset, int length, PackedCodes packed)
+            throws IOException {
+        int segment = segmentLength(length);
+        ByteArrayOutputStream[] streams = new ByteArrayOutputStream[STREAMS];
+        for (int stream = 0; stream < STREAMS; stream++) {
+            int start = Math.min(stream * segment, length);
+            int segmentEnd = Math.min(start + segment, length);
+            streams[stream] = new ByteArrayOutputStream(segment / 2 + 16);
+            DataOutputStream streamOutput = new DataOutputStream(streams[stream]);
+            writeBits(streamOutput, data, offset + start, segmentEnd - start, packed);
+            streamOutput.flush();
+        }
+        for (int stream = 0; stream < STREAMS - 1; stream++) {
+            HeaderWriter.writeVarInt(streams[stream].size(), output);
+        }
+        for (ByteArrayOutputStream stream : streams) {
+            stream.writeTo(output);
+        }
+    }
+
+    private void writeBits(DataOutputStream output, byte[] data, int offset, int length, PackedCodes packed)
+            throws IOException {
+        BitWriter bits = new BitWriter(Channels.newChannel(output), ByteBuffer.allocate(BIT_BUFFER_SIZE));
+        for (int index = offset; index < offset + length; index++) {
+            int symbol = data[index] & 0xFF;
+            bits.write(packed.getCode(symbol), packed.getLength(symbol));
+        }
+        bits.flush();
+    }
+}
@@ -0,0 +1,141 @@
+package org.example;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Compresses files into a block container. The input is cut into fixed-size
+ * blocks that are counted, coded and encoded independently on an executor,
+ * then written in order followed by a block index (see {@link BlockIndex}).
+ * A {@link CompressionLevel} picks the block size and how blocks are encoded.
+ */
+public class BlockCompressionEngine {
+
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+    public static final int MAX_BLOCK_SIZE = 64 << 20;
+
+    private final int blockSize;
+    private final int flags;
+    private final ExecutorService executor;
+    private final int maxBlocksInFlight;
+    private final BlockCodec codec;
+
+    public BlockCompressionEngine() {
+        this(CompressionLevel.FAST, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param level Level whose block size and encoding are used
+     */
+    public BlockCompressionEngine(CompressionLevel level) {
+        this(level, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param blockSize Number of input bytes per block
+     * @param executor Executor that encodes blocks; it is not shut down by
+     * this engine
+     */
+    public BlockCompressionEngine(int blockSize, ExecutorService executor) {
+        this(CompressionLevel.FAST.withBlockSize(blockSize), executor);
+    }
+
+    /**
+     * @param level Level whose block size and encoding are used
+     * @param executor Executor that encodes blocks; it is not shut down by
+     * this engine
+     */
+    public BlockCompressionEngine(CompressionLevel level, ExecutorService executor) {
+        this(level, executor, false);
+    }
+
+    /**
+     * @param level Level whose block size and encoding are used
+     * @param executor Executor that encodes blocks; it is not shut down by
+     * this engine
+     * @param checksums Whether every block carries a CRC32C of its data, so
+     * corruption is detected when it is decompressed
+     */
+    public BlockCompressionEngine(CompressionLevel level, ExecutorService executor, boolean checksums) {
+        Objects.requireNonNull(level, "Compression level cannot be null");
+        this.blockSize = level.blockSize();
+        this.flags = checksums ? BlockIndex.CHECKSUM_FLAG : 0;
+        this.executor = Objects.requireNonNull(executor, "Executor cannot be null");
+        this.maxBlocksInFlight = 2 * Runtime.getRuntime().availableProcessors();
+        this.codec = new BlockCodec(level, checksums);
+    }
+
+    /**
+     * Compresses a file into a block container.
+     *
+     * @param inputPath Path to the input file to compress
+     * @param outputPath Path to the output container
+     * @return the index of the written container
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if the input file is invalid
+     */
+    public BlockIndex compress(Path inputPath, Path outputPath) throws IOException, IllegalArgumentException {
+        Objects.requireNonNull(inputPath, "Input path cannot be null");
+        Objects.requireNonNull(outputPath, "Output path cannot be null");
+
+        if (!Files.exists(inputPath) || !Files.isRegularFile(inputPath)) {
+            throw new IllegalArgumentException("Input file does not exist or is not a regular file: " + inputPath);
+        }
+
+        List<Long> recordOffsets = new ArrayList<>();
+        List<Integer> recordLengths = new ArrayList<>();
+        List<Integer> uncompressedLengths = new ArrayList<>();
+        Deque<Future<byte[]>> pending = new ArrayDeque<>();
+
+        try (InputStream input = Files.newInputStream(inputPath);
+                DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(outputPath)))) {
+            BlockIndex.writeHeader(output, flags, blockSize);
+            long position = BlockIndex.HEADER_SIZE;
+
+            try {
+                byte[] block;
+                while ((block = input.readNBytes(blockSize)).length > 0) {
+                    byte[] data = block;
+                    uncompressedLengths.add(data.length);
+                    pending.add(executor.submit(() -> codec.encode(data, 0, data.length)));
+
+                    // Bound the number of blocks held in memory
+                    if (pending.size() >= maxBlocksInFlight) {
+                        position = writeRecord(output, IoSupport.await(pending.poll()), position, recordOffsets,
+                                recordLengths);
+                    }
+                }
+                while (!pending.isEmpty()) {
+                    position = writeRecord(output, IoSupport.await(pending.poll()), position, recordOffsets,
+                            recordLengths);
+                }
+            } finally {
+                pending.forEach(future -> future.cancel(true));
+            }
+
+            BlockIndex index = new BlockIndex(flags, blockSize, recordOffsets, recordLengths, uncompressedLengths);
+            index.write(output, position);
+            return index;
+        }
+    }
+
+    private long writeRecord(DataOutputStream output, byte[] record, long position, List<Long> recordOffsets,
+            List<Integer> recordLengths) throws IOException {
+        recordOffsets.add(position);
+        recordLengths.add(record.length);
+        output.write(record);
+        return position + record.length;
+    }
+}
@@ -0,0 +1,163 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Decompresses block containers written by {@link BlockCompressionEngine}.
+ * Blocks are located through the container's {@link BlockIndex}, decoded on
+ * an executor, and written straight to their final offsets in the output with
+ * positional channel writes, so no ordering between workers is needed.
+ * Block checksums, when the container has them, are verified by the worker
+ * that decodes the block, so verification runs in parallel as well.
+ */
+public class BlockDecompressionEngine {
+
+    private final ExecutorService executor;
+    private final BlockCodec codec;
+
+    public BlockDecompressionEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param executor Executor that decodes blocks; it is not shut down by
+     * this engine
+     */
+    public BlockDecompressionEngine(ExecutorService executor) {
+        this.executor = Objects.requireNonNull(executor, "Executor cannot be null");
+        this.codec = new BlockCodec();
+    }
+
+    /**
+     * Decompresses a whole block container.
+     *
+     * @param inputPath Path to the container
+     * @param outputPath Path to the decompressed output
+     * @throws IOException if an I/O error occurs or the container is malformed
+     * @throws IllegalArgumentException if the input file is invalid
+     */
+    public void decompress(Path inputPath, Path outputPath) throws IOException, IllegalArgumentException {
+        checkPaths(inputPath, outputPath);
+
+        try (FileChannel input = FileChannel.open(inputPath, StandardOpenOption.READ);
+                FileChannel output = openOutput(outputPath)) {
+            BlockIndex index = BlockIndex.read(input);
+            decodeRange(input, index, 0, index.getTotalUncompressedLength(), output);
+        }
+    }
+
+    /**
+     * Decompresses a byte range of the original data, decoding only the blocks
+     * that cover it.
+     *
+     * @param inputPath Path to the container
+     * @param outputPath Path receiving exactly {@code length} bytes
+     * @param offset Start of the range in the uncompressed data
+     * @param length Number of bytes to extract
+     * @throws IOException if an I/O error occurs or the container is malformed
+     * @throws IllegalArgumentException if the input file is invalid or the
+     * range lies outside the uncompressed data
+     */
+    public void decompressRange(Path inputPath, Path outputPath, long offset, long length)
+            throws IOException, IllegalArgumentException {
+        checkPaths(inputPath, outputPath);
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("Offset and length cannot be negative");
+        }
+
+        try (FileChannel input = FileChannel.open(inputPath, StandardOpenOption.READ)) {
+            BlockIndex index = BlockIndex.read(input);
+            if (offset + length > index.getTotalUncompressedLength()) {
+                throw new IllegalArgumentException("Range " + offset + "+" + length
+                        + " exceeds uncompressed length " + index.getTotalUncompressedLength());
+            }
+            try (FileChannel output = openOutput(outputPath)) {
+                decodeRange(input, index, offset, offset + length, output);
+            }
+        }
+    }
+
+    private void decodeRange(FileChannel input, BlockIndex index, long start, long end, FileChannel output)
+            throws IOException {
+        if (start == end) {
+            return;
+        }
+        int first = index.findBlock(start);
+        int last = index.findBlock(end - 1);
+
+        List<Future<Void>> tasks = new ArrayList<>(last - first + 1);
+        AtomicBoolean failed = new AtomicBoolean();
+        try {
+            for (int block = first; block <= last; block++) {
+                int current = block;
+                tasks.add(executor.submit(() -> {
+                    // Blocks not yet started are skipped once one has failed
+                    if (!failed.get()) {
+                        try {
+                            decodeBlock(input, index, current, start, end, output);
+                        } catch (IOException | RuntimeException e) {
+                            failed.set(true);
+                            throw e;
+                        }
+                    }
+                    return null;
+                }));
+            }
+        } catch (RuntimeException e) {
+            // The executor refused a block; the submitted ones still finish before the channels close
+            failed.set(true);
+            try {
+                IoSupport.awaitAll(tasks, failed);
+            } catch (IOException | RuntimeException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        IoSupport.awaitAll(tasks, failed);
+    }
+
+    private void decodeBlock(FileChannel input, BlockIndex index, int block, long start, long end,
+            FileChannel output) throws IOException {
+        ByteBuffer record = IoSupport.readFully(input, index.getRecordOffset(block), index.getRecordLength(block));
+        byte[] data = new byte[index.getUncompressedLength(block)];
+        int decoded = codec.decodeRecord(record.array(), 0, record.limit(), data, 0, index.hasChecksums());
+        if (decoded != data.length) {
+            throw new IOException("Block " + block + " length does not match the block index");
+        }
+
+        long blockStart = index.getUncompressedOffset(block);
+        int from = (int) (Math.max(start, blockStart) - blockStart);
+        int to = (int) (Math.min(end, blockStart + data.length) - blockStart);
+        ByteBuffer slice = ByteBuffer.wrap(data, from, to - from);
+        long position = blockStart + from - start;
+        while (slice.hasRemaining()) {
+            position += output.write(slice, position);
+        }
+    }
+
+    private static FileChannel openOutput(Path outputPath) throws IOException {
+        return FileChannel.open(outputPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private static void checkPaths(Path inputPath, Path outputPath) {
+        Objects.requireNonNull(inputPath, "Input path cannot be null");
+        Objects.requireNonNull(outputPath, "Output path cannot be null");
+
+        if (!Files.exists(inputPath) || !Files.isRegularFile(inputPath)) {
+            throw new IllegalArgumentException("Input file does not exist or is not a regular file: " + inputPath);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package org.example;
+
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Block offset index of a block container file. The container layout is: -
+ * Magic number (4 bytes): 0xC0DE - Version (1 byte): 3 - Flags (1 byte) -
+ * Block size (4 bytes, int) - Block records (see {@link BlockCodec}) - End of
+ * blocks marker (1 byte): 0xFF - For each block: record offset (8 bytes,
+ * long), record length (4 bytes, int), uncompressed length (4 bytes, int) -
+ * Index offset (8 bytes, long) - Block count (4 bytes, int) - End marker (4
+ * bytes)
+ *
+ * <p>The fixed-size trailer lets readers locate the index from the end of the
+ * file and then seek straight to any block. With {@link #CHECKSUM_FLAG} set,
+ * every block record ends with a CRC32C of its uncompressed bytes.
+ */
+public class BlockIndex {
+
+    static final int MAGIC_NUMBER = 0xC0DE;
+    static final byte VERSION = 3;
+    static final int END_MARKER = 0x454E44;
+    static final int HEADER_SIZE = 10;
+    static final int ENTRY_SIZE = 16;
+    static final int TRAILER_SIZE = 16;
+
+    /** Block records carry a CRC32C of their uncompressed bytes. */
+    public static final int CHECKSUM_FLAG = 0x01;
+
+    private final int flags;
+    private final int blockSize;
+    private final long[] recordOffsets;
+    private final int[] recordLengths;
+    private final int[] uncompressedLengths;
+    private final long[] uncompressedOffsets;
+
+    BlockIndex(int flags, int blockSize, long[] recordOffsets, int[] recordLengths, int[] uncompressedLengths) {
+        this.flags = flags;
+        this.blockSize = blockSize;
+        this.recordOffsets = recordOffsets;
+        this.recordLengths = recordLengths;
+        this.uncompressedLengths = uncompressedLengths;
+        this.uncompressedOffsets = new long[uncompressedLengths.length + 1];
+        for (int i = 0; i < uncompressedLengths.length; i++) {
+            uncompressedOffsets[i + 1] = uncompressedOffsets[i] + uncompressedLengths[i];
+        }
+    }
+
+    BlockIndex(int flags, int blockSize, List<Long> recordOffsets, List<Integer> recordLengths,
+            List<Integer> uncompressedLengths) {
+        this(flags, blockSize,
+                recordOffsets.stream().mapToLong(Long::longValue).toArray(),
+                recordLengths.stream().mapToInt(Integer::intValue).toArray(),
+                uncompressedLengths.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Checks whether a file starts with a block container header.
+     *
+     * @param path File to inspect
+     * @return true if the file is a block container
+     * @throws IOException if an I/O error occurs
+     */
+    public static boolean isBlockContainer(Path path) throws IOException {
+        try (DataInputStream input = new DataInputStream(Files.newInputStream(path))) {
+            return input.readInt() == MAGIC_NUMBER && input.readByte() == VERSION;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads the header, trailer and index of a block container.
+     *
+     * @param channel Channel over the container file
+     * @return the block index
+     * @throws IOException if the container is malformed
+     */
+    public static BlockIndex read(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_SIZE + 1 + TRAILER_SIZE) {
+            throw new IOException("File is too short to be a block container");
+        }
+
+        ByteBuffer header = IoSupport.readFully(channel, 0, HEADER_SIZE);
+        if (header.getInt() != MAGIC_NUMBER) {
+            throw new IOException("Invalid magic number");
+        }
+        byte version = header.get();
+        if (version != VERSION) {
+            throw new IOException("Unsupported version: " + version);
+        }
+        int flags = header.get() & 0xFF;
+        if ((flags & ~CHECKSUM_FLAG) != 0) {
+            throw new IOException("Unsupported container flags: " + flags);
+        }
+        int blockSize = header.getInt();
+        if (blockSize <= 0 || blockSize > BlockCompressionEngine.MAX_BLOCK_SIZE) {
+            throw new IOException("Invalid block size: " + blockSize);
+        }
+
+        ByteBuffer trailer = IoSupport.readFully(channel, size - TRAILER_SIZE, TRAILER_SIZE);
+        long indexOffset = trailer.getLong();
+        int blockCount = trailer.getInt();
+        if (trailer.getInt() != END_MARKER) {
+            throw new IOException("Invalid container end marker");
+        }
+        long indexLength = (long) blockCount * ENTRY_SIZE;
+        if (blockCount < 0 || indexLength > Integer.MAX_VALUE || indexOffset < HEADER_SIZE + 1
+                || indexOffset + indexLength != size - TRAILER_SIZE) {
+            throw new IOException("Invalid block index location");
+        }
+
+        ByteBuffer entries = IoSupport.readFully(channel, indexOffset, (int) indexLength);
+        long[] recordOffsets = new long[blockCount];
+        int[] recordLengths = new int[blockCount];
+        int[] uncompressedLengths = new int[blockCount];
+        for (int i = 0; i < blockCount; i++) {
+            recordOffsets[i] = entries.getLong();
+            recordLengths[i] = entries.getInt();
+            uncompressedLengths[i] = entries.getInt();
+            if (recordOffsets[i] < HEADER_SIZE || recordLengths[i] <= 0
+                    || recordOffsets[i] + recordLengths[i] >= indexOffset
+                    || uncompressedLengths[i] <= 0 || uncompressedLengths[i] > blockSize) {
+                throw new IOException("Invalid block index entry: " + i);
+            }
+        }
+        return new BlockIndex(flags, blockSize, recordOffsets, recordLengths, uncompressedLengths);
+    }
+
+    /**
+     * Returns the block holding the given uncompressed position.
+     *
+     * @param position Offset in the uncompressed data
+     * @return the block number
+     * @throws IndexOutOfBoundsException if the position is past the end
+     */
+    public int findBlock(long position) {
+        if (position < 0 || position >= getTotalUncompressedLength()) {
+            throw new IndexOutOfBoundsException("Position out of range: " + position);
+        }
+        int low = 0;
+        int high = recordOffsets.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (uncompressedOffsets[middle] <= position) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    static void writeHeader(DataOutput output, int flags, int blockSize) throws IOException {
+        output.writeInt(MAGIC_NUMBER);
+        output.writeByte(VERSION);
+        output.writeByte(flags);
+        output.writeInt(blockSize);
+    }
+
+    /**
+     * Writes the end of blocks marker, the index entries and the trailer.
+     *
+     * @param output The output positioned right after the last block record
+     * @param position Offset of {@code output} within the container file
+     * @throws IOException if an I/O error occurs
+     */
+    void write(DataOutput output, long position) throws IOException {
+        output.writeByte(BlockCodec.END_OF_BLOCKS);
+        long indexOffset = position + 1;
+        for (int i = 0; i < recordOffsets.length; i++) {
+            output.writeLong(recordOffsets[i]);
+            output.writeInt(recordLengths[i]);
+            output.writeInt(uncompressedLengths[i]);
+        }
+        output.writeLong(indexOffset);
+        output.writeInt(recordOffsets.length);
+        output.writeInt(END_MARKER);
+    }
+
+    public int getFlags() {
+        return flags;
+    }
+
+    public boolean hasChecksums() {
+        return (flags & CHECKSUM_FLAG) != 0;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public int getBlockCount() {
+        return recordOffsets.length;
+    }
+
+    public long getRecordOffset(int block) {
+        return recordOffsets[block];
+    }
+
+    public int getRecordLength(int block) {
+        return recordLengths[block];
+    }
+
+    public int getUncompressedLength(int block) {
+        return uncompressedLengths[block];
+    }
+
+    public long getUncompressedOffset(int block) {
+        return uncompressedOffsets[block];
+    }
+
+    public long getTotalUncompressedLength() {
+        return uncompressedOffsets[uncompressedOffsets.length - 1];
+    }
+}
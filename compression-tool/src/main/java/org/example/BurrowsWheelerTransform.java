@@ -0,0 +1,248 @@
+package org.example;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Burrows-Wheeler transform of a block, computed from its suffix array.
+ * Sorting the suffixes groups bytes by the context that follows them, so the
+ * transformed block has long runs of few distinct values that
+ * {@link MoveToFrontCoder} turns into small, repetitive ranks.
+ *
+ * <p>The block is treated as if it ended with a sentinel smaller than every
+ * byte. The transform holds the byte before every suffix in sorted order,
+ * leaving out the sentinel, and the primary index is the row at which the
+ * sentinel stood; the whole suffix, which the sentinel precedes, is at that
+ * row. Suffix arrays are built with SA-IS (Nong, Zhang and Chan), which
+ * runs in linear time whatever the input, so repetitive blocks cost no more
+ * than others.
+ */
+final class BurrowsWheelerTransform {
+
+    private static final int SYMBOLS = CharacterFrequencyCounter.BYTE_SYMBOLS;
+
+    private BurrowsWheelerTransform() {
+    }
+
+    /**
+     * Transforms a region of bytes.
+     *
+     * @param data Source array
+     * @param offset Start of the block in the array
+     * @param length Number of bytes in the block, at least one
+     * @param transformed Array receiving the {@code length} transformed bytes
+     * @return the primary index, from 1 to {@code length}
+     */
+    static int forward(byte[] data, int offset, int length, byte[] transformed) {
+        // Bytes are shifted up by one so that 0 is free for the sentinel
+        int[] text = new int[length + 1];
+        for (int i = 0; i < length; i++) {
+            text[i] = (data[offset + i] & 0xFF) + 1;
+        }
+        int[] suffixes = new int[length + 1];
+        suffixArray(text, suffixes, length + 1, SYMBOLS + 1);
+
+        int primary = -1;
+        int out = 0;
+        for (int row = 0; row <= length; row++) {
+            int suffix = suffixes[row];
+            if (suffix == 0) {
+                primary = row;
+            } else {
+                transformed[out++] = data[offset + suffix - 1];
+            }
+        }
+        return primary;
+    }
+
+    /**
+     * Restores a block from its transform.
+     *
+     * @param transformed The transformed bytes
+     * @param primary The primary index returned by {@link #forward}
+     * @param destination Array receiving the block
+     * @param offset Where the block starts
+     * @throws IOException if the primary index is out of range or the
+     * transform does not describe a single block
+     */
+    static void inverse(byte[] transformed, int primary, byte[] destination, int offset) throws IOException {
+        int length = transformed.length;
+        if (primary < 1 || primary > length) {
+            throw new IOException("Invalid Burrows-Wheeler primary index: " + primary);
+        }
+        // Row 0 is the sentinel's; every byte value's rows follow those of smaller values
+        int[] starts = new int[SYMBOLS];
+        for (byte b : transformed) {
+            starts[b & 0xFF]++;
+        }
+        int start = 1;
+        for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+            int count = starts[symbol];
+            starts[symbol] = start;
+            start += count;
+        }
+        // Last-to-first mapping: the row of the suffix one byte longer than each row's suffix
+        int[] previousRow = new int[length + 1];
+        for (int row = 0; row <= length; row++) {
+            if (row != primary) {
+                previousRow[row] = starts[transformed[row < primary ? row : row - 1] & 0xFF]++;
+            }
+        }
+
+        int row = 0;
+        for (int i = length - 1; i >= 0; i--) {
+            if (row == primary) {
+                throw new IOException("Burrows-Wheeler transform is corrupt");
+            }
+            destination[offset + i] = transformed[row < primary ? row : row - 1];
+            row = previousRow[row];
+        }
+        if (row != primary) {
+            throw new IOException("Burrows-Wheeler transform is corrupt");
+        }
+    }
+
+    /**
+     * Builds the suffix array of {@code text[0, length)}, whose last symbol
+     * must be a unique 0 and whose others lie in [1, {@code alphabetSize}).
+     */
+    static void suffixArray(int[] text, int[] suffixes, int length, int alphabetSize) {
+        if (length == 1) {
+            suffixes[0] = 0;
+            return;
+        }
+        // S-type suffixes are smaller than the suffix after them, L-type ones larger
+        boolean[] sType = new boolean[length];
+        sType[length - 1] = true;
+        for (int i = length - 2; i >= 0; i--) {
+            sType[i] = text[i] < text[i + 1] || (text[i] == text[i + 1] && sType[i + 1]);
+        }
+        int[] buckets = new int[alphabetSize];
+
+        // Place the leftmost S-type positions at their bucket ends and induce a sort of their substrings
+        bucketEnds(text, length, buckets);
+        Arrays.fill(suffixes, 0, length, -1);
+        for (int i = 1; i < length; i++) {
+            if (isLeftmostS(sType, i)) {
+                suffixes[--buckets[text[i]]] = i;
+            }
+        }
+        induce(text, suffixes, sType, length, buckets);
+
+        // Name the sorted substrings; equal substrings share a name
+        int reducedLength = 0;
+        for (int i = 0; i < length; i++) {
+            if (isLeftmostS(sType, suffixes[i])) {
+                suffixes[reducedLength++] = suffixes[i];
+            }
+        }
+        Arrays.fill(suffixes, reducedLength, length, -1);
+        int names = 0;
+        int previous = -1;
+        for (int i = 0; i < reducedLength; i++) {
+            int position = suffixes[i];
+            if (previous < 0 || !sameSubstring(text, sType, position, previous)) {
+                names++;
+                previous = position;
+            }
+            // Leftmost S-type positions are at least two apart, so position / 2 is free of collisions
+            suffixes[reducedLength + position / 2] = names - 1;
+        }
+        int[] reduced = new int[reducedLength];
+        for (int i = length - 1, j = reducedLength - 1; i >= reducedLength; i--) {
+            if (suffixes[i] >= 0) {
+                reduced[j--] = suffixes[i];
+            }
+        }
+
+        // Sort the reduced string, recursing only if some names repeat
+        int[] reducedSuffixes = new int[reducedLength];
+        if (names < reducedLength) {
+            suffixArray(reduced, reducedSuffixes, reducedLength, names);
+        } else {
+            for (int i = 0; i < reducedLength; i++) {
+                reducedSuffixes[reduced[i]] = i;
+            }
+        }
+
+        // Place the leftmost S-type positions in their final order and induce the rest
+        for (int i = 1, j = 0; i < length; i++) {
+            if (isLeftmostS(sType, i)) {
+                reduced[j++] = i;
+            }
+        }
+        bucketEnds(text, length, buckets);
+        Arrays.fill(suffixes, 0, length, -1);
+        for (int i = reducedLength - 1; i >= 0; i--) {
+            int position = reduced[reducedSuffixes[i]];
+            suffixes[--buckets[text[position]]] = position;
+        }
+        induce(text, suffixes, sType, length, buckets);
+    }
+
+    /**
+     * Induces the L-type suffixes from left to right, then the S-type ones
+     * from right to left, from the positions already in place.
+     */
+    private static void induce(int[] text, int[] suffixes, boolean[] sType, int length, int[] buckets) {
+        bucketStarts(text, length, buckets);
+        for (int i = 0; i < length; i++) {
+            int j = suffixes[i] - 1;
+            if (j >= 0 && !sType[j]) {
+                suffixes[buckets[text[j]]++] = j;
+            }
+        }
+        bucketEnds(text, length, buckets);
+        for (int i = length - 1; i >= 0; i--) {
+            int j = suffixes[i] - 1;
+            if (j >= 0 && sType[j]) {
+                suffixes[--buckets[text[j]]] = j;
+            }
+        }
+    }
+
+    /**
+     * Compares the substrings from two leftmost S-type positions up to and
+     * including the next such position.
+     */
+    private static boolean sameSubstring(int[] text, boolean[] sType, int a, int b) {
+        for (int d = 0; ; d++) {
+            if (text[a + d] != text[b + d] || sType[a + d] != sType[b + d]) {
+                return false;
+            }
+            if (d > 0 && (isLeftmostS(sType, a + d) || isLeftmostS(sType, b + d))) {
+                return true;
+            }
+        }
+    }
+
+    private static boolean isLeftmostS(boolean[] sType, int i) {
+        return i > 0 && sType[i] && !sType[i - 1];
+    }
+
+    private static void bucketStarts(int[] text, int length, int[] buckets) {
+        countSymbols(text, length, buckets);
+        int sum = 0;
+        for (int symbol = 0; symbol < buckets.length; symbol++) {
+            int count = buckets[symbol];
+            buckets[symbol] = sum;
+            sum += count;
+        }
+    }
+
+    private static void bucketEnds(int[] text, int length, int[] buckets) {
+        countSymbols(text, length, buckets);
+        int sum = 0;
+        for (int symbol = 0; symbol < buckets.length; symbol++) {
+            sum += buckets[symbol];
+            buckets[symbol] = sum;
+        }
+    }
+
+    private static void countSymbols(int[] text, int length, int[] buckets) {
+        Arrays.fill(buckets, 0);
+        for (int i = 0; i < length; i++) {
+            buckets[text[i]]++;
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package org.example;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Decoder for canonical codes over byte symbols, held in flat arrays that are
+ * rebuilt in place when new code lengths are loaded.
+ *
+ * <p>Codes up to {@value HuffmanDecodingTable#PRIMARY_BITS} bits long decode
+ * with a single probe of a flat table; longer codes, which only occur in
+ * skewed inputs of several kilobytes, are decoded bit by bit from the
+ * canonical code ranges. Once loaded, decoding only reads the arrays, so a
+ * decoder that is not reloaded can be shared between threads.
+ */
+final class CanonicalDecoder {
+
+    private static final int SYMBOLS = CharacterFrequencyCounter.BYTE_SYMBOLS;
+    private static final int MAX_CODE_LENGTH = HuffmanCodeGenerator.MAX_CANONICAL_CODE_LENGTH;
+    private static final int TABLE_BITS = HuffmanDecodingTable.PRIMARY_BITS;
+    private static final int SYMBOL_SHIFT = 8;
+    private static final int LENGTH_MASK = 0xFF;
+    // Codes decoded from one refill of a 64-bit buffer holding at least 57 bits
+    private static final int SYMBOLS_PER_REFILL = 3;
+    private static final int FAST_CODE_LENGTH = 57 / SYMBOLS_PER_REFILL;
+    private static final VarHandle BIG_ENDIAN_LONG =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final int[] lengths = new int[SYMBOLS];
+    private final int[] lengthCounts = new int[MAX_CODE_LENGTH + 1];
+    private final long[] firstCode = new long[MAX_CODE_LENGTH + 1];
+    private final int[] firstIndex = new int[MAX_CODE_LENGTH + 1];
+    private final int[] nextIndex = new int[MAX_CODE_LENGTH + 1];
+    private final int[] canonicalOrder = new int[SYMBOLS];
+    private final int[] table = new int[1 << TABLE_BITS];
+    private int tableBits;
+    private int maxLength;
+    private int codedSymbols;
+
+    /**
+     * Loads a table in the layout of {@link HeaderWriter#writeCodeLengths}.
+     *
+     * @param data Array holding the table
+     * @param position Start of the table
+     * @param end End of the readable region
+     * @return the position after the table
+     * @throws IOException if the table is malformed
+     */
+    int readTable(byte[] data, int position, int end) throws IOException {
+        if (position == end) {
+            throw new IOException("Block has no code table");
+        }
+        int longest = data[position++] & 0xFF;
+        if (longest > MAX_CODE_LENGTH) {
+            throw new IOException("Invalid maximum code length: " + longest);
+        }
+        int total = 0;
+        for (int length = 1; length <= longest; length++) {
+            long count = HeaderReader.readVarInt(data, position, end);
+            lengthCounts[length] = (int) count;
+            position += (int) (count >>> Integer.SIZE);
+            total += lengthCounts[length];
+            if (total > SYMBOLS) {
+                throw new IOException("Invalid symbol in code length table");
+            }
+        }
+
+        Arrays.fill(lengths, 0);
+        for (int length = 1; length <= longest; length++) {
+            int symbol = -1;
+            for (int i = 0; i < lengthCounts[length]; i++) {
+                long gap = HeaderReader.readVarInt(data, position, end);
+                position += (int) (gap >>> Integer.SIZE);
+                symbol += (int) gap + 1;
+                if (symbol >= SYMBOLS || lengths[symbol] != 0) {
+                    throw new IOException("Invalid symbol in byte block: " + symbol);
+                }
+                lengths[symbol] = length;
+            }
+        }
+        load();
+        return position;
+    }
+
+    /**
+     * Loads code lengths indexed by symbol.
+     *
+     * @throws IOException if there are no codes or the lengths do not
+     * describe a prefix code
+     */
+    void setLengths(int[] codeLengths) throws IOException {
+        for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+            if (codeLengths[symbol] < 0 || codeLengths[symbol] > MAX_CODE_LENGTH) {
+                throw new IOException("Invalid code length: " + codeLengths[symbol]);
+            }
+        }
+        System.arraycopy(codeLengths, 0, lengths, 0, SYMBOLS);
+        load();
+    }
+
+    /**
+     * Orders the symbols canonically, works out the code range of every
+     * length and fills the flat table.
+     */
+    private void load() throws IOException {
+        Arrays.fill(lengthCounts, 0);
+        maxLength = 0;
+        for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+            lengthCounts[lengths[symbol]]++;
+            maxLength = Math.max(maxLength, lengths[symbol]);
+        }
+        codedSymbols = SYMBOLS - lengthCounts[0];
+        if (codedSymbols == 0) {
+            throw new IOException("Block has no code table");
+        }
+
+        long code = 0;
+        int index = 0;
+        for (int length = 1; length <= maxLength; length++) {
+            code <<= 1;
+            firstCode[length] = code;
+            firstIndex[length] = index;
+            code += lengthCounts[length];
+            index += lengthCounts[length];
+            if (Long.compareUnsigned(code, 1L << length) > 0) {
+                throw new IOException("Invalid code length table: Code lengths do not describe a prefix code");
+            }
+        }
+        System.arraycopy(firstIndex, 0, nextIndex, 0, maxLength + 1);
+        for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+            if (lengths[symbol] > 0) {
+                canonicalOrder[nextIndex[lengths[symbol]]++] = symbol;
+            }
+        }
+        buildTable();
+    }
+
+    /**
+     * Fills the flat table for every code of up to {@link #tableBits} bits.
+     * Canonical codes of those lengths cover a prefix of the table; the rest
+     * is cleared, so codes that are longer, or unassigned, read as zero.
+     */
+    private void buildTable() {
+        tableBits = Math.min(TABLE_BITS, maxLength);
+        int filled = 0;
+        for (int length = 1; length <= tableBits; length++) {
+            int span = 1 << (tableBits - length);
+            for (int i = 0; i < lengthCounts[length]; i++) {
+                int entry = (canonicalOrder[firstIndex[length] + i] << SYMBOL_SHIFT) | length;
+                Arrays.fill(table, filled, filled + span, entry);
+                filled += span;
+            }
+        }
+        Arrays.fill(table, filled, 1 << tableBits, 0);
+    }
+
+    /**
+     * Returns the only coded symbol, or -1 if there are several.
+     */
+    int singleSymbol() {
+        return codedSymbols == 1 ? canonicalOrder[0] : -1;
+    }
+
+    /**
+     * Decodes {@code length} symbols into {@code destination}. With a single
+     * coded symbol no bits are read, as in {@link BlockCodec}.
+     *
+     * @throws IOException if the bits run out or hold an unassigned code
+     */
+    void decode(BitReader reader, byte[] destination, int offset, int length) throws IOException {
+        int end = offset + length;
+        if (codedSymbols == 1) {
+            Arrays.fill(destination, offset, end, (byte) canonicalOrder[0]);
+            return;
+        }
+        for (int i = offset; i < end; i++) {
+            int entry = table[reader.peek(tableBits)];
+            if (entry != 0) {
+                reader.skip(entry & LENGTH_MASK);
+                destination[i] = (byte) (entry >>> SYMBOL_SHIFT);
+            } else {
+                destination[i] = (byte) decodeLong(reader);
+            }
+        }
+    }
+
+    /**
+     * Decodes one symbol; with a single coded symbol no bits are read.
+     *
+     * @throws IOException if the bits run out or hold an unassigned code
+     */
+    int decodeSymbol(BitReader reader) throws IOException {
+        if (codedSymbols == 1) {
+            return canonicalOrder[0];
+        }
+        return next(reader);
+    }
+
+    /**
+     * Decodes a block split into four consecutive segments of
+     * {@code segmentLength} bytes, the last one possibly shorter, each coded
+     * in its own bit stream. Every round decodes symbols from all four
+     * streams, whose bit buffers are held in locals: the lookups and shifts of
+     * one stream do not wait for another's, so the processor overlaps four
+     * otherwise serial chains.
+     *
+     * @param data Array holding the streams
+     * @param bounds Start of each stream followed by the end of the last one
+     * @throws IOException if a stream runs out or holds an unassigned code
+     */
+    void decodeInterleaved(byte[] data, int[] bounds, byte[] destination, int offset, int segmentLength,
+            int length) throws IOException {
+        if (codedSymbols == 1) {
+            Arrays.fill(destination, offset, offset + length, (byte) canonicalOrder[0]);
+            return;
+        }
+        int s1 = offset + segmentLength;
+        int s2 = s1 + segmentLength;
+        int s3 = s2 + segmentLength;
+        int lastLength = offset + length - s3;
+        int p0 = bounds[0];
+        int p1 = bounds[1];
+        int p2 = bounds[2];
+        int p3 = bounds[3];
+        long b0 = 0;
+        long b1 = 0;
+        long b2 = 0;
+        long b3 = 0;
+        int a0 = 0;
+        int a1 = 0;
+        int a2 = 0;
+        int a3 = 0;
+        int i = 0;
+        if (maxLength <= FAST_CODE_LENGTH) {
+            // A refill leaves at least 57 bits, enough for SYMBOLS_PER_REFILL codes
+            for (; i + SYMBOLS_PER_REFILL <= lastLength; i += SYMBOLS_PER_REFILL) {
+                int k0 = (Long.SIZE - a0) >>> 3;
+                int k1 = (Long.SIZE - a1) >>> 3;
+                int k2 = (Long.SIZE - a2) >>> 3;
+                int k3 = (Long.SIZE - a3) >>> 3;
+                b0 = load(data, p0, bounds[1], b0, a0, k0);
+                b1 = load(data, p1, bounds[2], b1, a1, k1);
+                b2 = load(data, p2, bounds[3], b2, a2, k2);
+                b3 = load(data, p3, bounds[4], b3, a3, k3);
+                p0 += k0;
+                p1 += k1;
+                p2 += k2;
+                p3 += k3;
+                a0 += k0 << 3;
+                a1 += k1 << 3;
+                a2 += k2 << 3;
+                a3 += k3 << 3;
+                for (int j = i; j < i + SYMBOLS_PER_REFILL; j++) {
+                    int e0 = entry(b0);
+                    int e1 = entry(b1);
+                    int e2 = entry(b2);
+                    int e3 = entry(b3);
+                    destination[offset + j] = (byte) (e0 >>> SYMBOL_SHIFT);
+                    destination[s1 + j] = (byte) (e1 >>> SYMBOL_SHIFT);
+                    destination[s2 + j] = (byte) (e2 >>> SYMBOL_SHIFT);
+                    destination[s3 + j] = (byte) (e3 >>> SYMBOL_SHIFT);
+                    b0 <<= e0 & LENGTH_MASK;
+                    b1 <<= e1 & LENGTH_MASK;
+                    b2 <<= e2 & LENGTH_MASK;
+                    b3 <<= e3 & LENGTH_MASK;
+                    a0 -= e0 & LENGTH_MASK;
+                    a1 -= e1 & LENGTH_MASK;
+                    a2 -= e2 & LENGTH_MASK;
+                    a3 -= e3 & LENGTH_MASK;
+                }
+            }
+        }
+
+        // The rest of every segment, symbol by symbol from where the fast loop left its stream
+        BitReader r0 = resume(data, bounds[0], bounds[1], p0, a0);
+        BitReader r1 = resume(data, bounds[1], bounds[2], p1, a1);
+        BitReader r2 = resume(data, bounds[2], bounds[3], p2, a2);
+        BitReader r3 = resume(data, bounds[3], bounds[4], p3, a3);
+        for (; i < lastLength; i++) {
+            destination[offset + i] = (byte) next(r0);
+            destination[s1 + i] = (byte) next(r1);
+            destination[s2 + i] = (byte) next(r2);
+            destination[s3 + i] = (byte) next(r3);
+        }
+        for (; i < segmentLength; i++) {
+            destination[offset + i] = (byte) next(r0);
+            destination[s1 + i] = (byte) next(r1);
+            destination[s2 + i] = (byte) next(r2);
+        }
+    }
+
+    /**
+     * Appends {@code count} bytes of a stream below the {@code available}
+     * bits at the top of {@code bits}; bytes past the end read as zero. A
+     * round consumes at least three bits, so fewer than 64 are ever available.
+     */
+    private static long load(byte[] data, int position, int end, long bits, int available, int count) {
+        if (end - position >= Long.BYTES) {
+            // Bits past the count are the stream's next ones in their final place, so loading them again is harmless
+            return bits | ((long) BIG_ENDIAN_LONG.get(data, position) >>> available);
+        }
+        for (int j = 0; j < count; j++, position++) {
+            long value = position < end ? data[position] & 0xFF : 0;
+            bits |= value << (Long.SIZE - Byte.SIZE - available - j * Byte.SIZE);
+        }
+        return bits;
+    }
+
+    /**
+     * Returns the table entry of the code at the top of {@code bits}, looking
+     * up codes longer than the table by their canonical ranges.
+     */
+    private int entry(long bits) throws IOException {
+        int entry = table[(int) (bits >>> (Long.SIZE - tableBits))];
+        if (entry != 0) {
+            return entry;
+        }
+        for (int length = tableBits + 1; length <= maxLength; length++) {
+            long offset = (bits >>> (Long.SIZE - length)) - firstCode[length];
+            if (offset >= 0 && offset < lengthCounts[length]) {
+                return (canonicalOrder[firstIndex[length] + (int) offset] << SYMBOL_SHIFT) | length;
+            }
+        }
+        throw new IOException("Invalid Huffman code in compressed data");
+    }
+
+    /**
+     * Opens a reader at the first bit a local bit buffer has not consumed.
+     *
+     * @throws IOException if the buffer consumed more bits than the stream has
+     */
+    private static BitReader resume(byte[] data, int start, int end, int position, int available)
+            throws IOException {
+        long consumed = (long) (position - start) * Byte.SIZE - available;
+        if (consumed > (long) (end - start) * Byte.SIZE) {
+            throw new IOException("Unexpected end of file while reading compressed data");
+        }
+        int next = start + (int) (consumed / Byte.SIZE);
+        BitReader reader = new BitReader(data, next, end - next);
+        if (consumed % Byte.SIZE != 0) {
+            reader.skip((int) (consumed % Byte.SIZE));
+        }
+        return reader;
+    }
+
+    private int next(BitReader reader) throws IOException {
+        int entry = table[reader.peek(tableBits)];
+        if (entry != 0) {
+            reader.skip(entry & LENGTH_MASK);
+            return entry >>> SYMBOL_SHIFT;
+        }
+        return decodeLong(reader);
+    }
+
+    /**
+     * Decodes a code longer than the flat table, one bit at a time.
+     */
+    private int decodeLong(BitReader reader) throws IOException {
+        long code = reader.peek(tableBits);
+        reader.skip(tableBits);
+        for (int length = tableBits + 1; length <= maxLength; length++) {
+            code = (code << 1) | reader.peek(1);
+            reader.skip(1);
+            long offset = code - firstCode[length];
+            if (offset >= 0 && offset < lengthCounts[length]) {
+                return canonicalOrder[firstIndex[length] + (int) offset];
+            }
+        }
+        throw new IOException("Invalid Huffman code in compressed data");
+    }
+}
@@ -3,47 +3,266 @@ package org.example;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
+/**
+ * Counts symbol frequencies. Counts are accumulated in flat {@code long}
+ * arrays indexed by symbol (65536 entries for characters, 256 for bytes) and
+ * fed from bulk reads; large files are memory-mapped, split into segments and
+ * counted on several threads.
+ */
 public class CharacterFrequencyCounter {
 
-    public Map<Character, Long> count(Path path) throws IOException {
-        Objects.requireNonNull(path, "path");
-        if (!Files.exists(path) || !Files.isRegularFile(path) || !Files.isReadable(path)) {
-            throw new IllegalArgumentException("File is not a readable, regular file: " + path);
-        }
+    static final int CHARACTER_SYMBOLS = Character.MAX_VALUE + 1;
+    static final int BYTE_SYMBOLS = 256;
 
-        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
-            return count(reader);
-        }
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final long PARALLEL_THRESHOLD = 4L << 20;
+    private static final long MIN_SEGMENT_SIZE = 1L << 20;
+    private static final long MAX_SEGMENT_SIZE = 1L << 30;
+    // Data is worth coding only if the entropy estimate saves at least 1/64 of its size
+    private static final int MIN_SAVING_FRACTION = 64;
+
+    private final ExecutorService executor;
+
+    public CharacterFrequencyCounter() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param executor Executor that counts the segments of large files; it is
+     * not shut down by this counter
+     */
+    public CharacterFrequencyCounter(ExecutorService executor) {
+        this.executor = Objects.requireNonNull(executor, "Executor cannot be null");
+    }
+
+    public Map<Character, Long> count(Path path) throws IOException {
+        return toMap(countCharacters(path));
     }
 
     public Map<Character, Long> count(String content) throws IOException {
         Objects.requireNonNull(content, "content");
         try (Reader reader = new StringReader(content)) {
-            return count(reader);
+            return toMap(count(reader));
+        }
+    }
+
+    /**
+     * Counts byte values in a region of an array. Each byte is reported as the
+     * character with the same unsigned value (0-255).
+     */
+    public Map<Character, Long> count(byte[] data, int offset, int length) {
+        return toMap(countBytes(data, offset, length));
+    }
+
+    /**
+     * Counts the UTF-8 decoded characters of a file. Files above a few MB are
+     * memory-mapped and counted in parallel segments that start on character
+     * boundaries.
+     *
+     * @param path File to count
+     * @return counts indexed by character value
+     * @throws IOException if an I/O error occurs or the file is not valid UTF-8
+     */
+    public long[] countCharacters(Path path) throws IOException {
+        checkReadable(path);
+        if (Files.size(path) < PARALLEL_THRESHOLD) {
+            try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                return count(reader);
+            }
         }
+        return countSegments(path, true);
     }
 
-    private Map<Character, Long> count(Reader reader) throws IOException {
-        Map<Character, LongAdder> runningCounts = new HashMap<>();
-        int value;
-        while ((value = reader.read()) != -1) {
-            char character = (char) value;
-            runningCounts.computeIfAbsent(character, ignored -> new LongAdder()).increment();
+    /**
+     * Counts the byte values of a file, in parallel segments for large files.
+     *
+     * @param path File to count
+     * @return counts indexed by unsigned byte value
+     * @throws IOException if an I/O error occurs
+     */
+    public long[] countBytes(Path path) throws IOException {
+        checkReadable(path);
+        return countSegments(path, false);
+    }
+
+    public long[] countBytes(byte[] data, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, data.length);
+        long[] counts = new long[BYTE_SYMBOLS];
+        for (int i = offset; i < offset + length; i++) {
+            counts[data[i] & 0xFF]++;
         }
+        return counts;
+    }
 
+    /**
+     * Counts the remaining bytes of a buffer without moving its position.
+     */
+    public long[] countBytes(ByteBuffer buffer) {
+        long[] counts = new long[BYTE_SYMBOLS];
+        addBytes(buffer.duplicate(), counts);
+        return counts;
+    }
+
+    /**
+     * Converts an array of counts into a map holding the non-zero entries.
+     */
+    static Map<Character, Long> toMap(long[] counts) {
         Map<Character, Long> result = new HashMap<>();
-        for (Map.Entry<Character, LongAdder> entry : runningCounts.entrySet()) {
-            result.put(entry.getKey(), entry.getValue().longValue());
+        for (int symbol = 0; symbol < counts.length; symbol++) {
+            if (counts[symbol] > 0) {
+                result.put((char) symbol, counts[symbol]);
+            }
         }
         return Collections.unmodifiableMap(result);
     }
+
+    /**
+     * Estimates the order-0 entropy of a histogram: the number of bits an
+     * ideal coder that knows the counts would spend, which no Huffman code
+     * undercuts.
+     */
+    static double entropyBits(long[] counts) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        double logTotal = Math.log(total);
+        double nats = 0;
+        for (long count : counts) {
+            if (count > 0) {
+                nats += count * (logTotal - Math.log(count));
+            }
+        }
+        return nats / Math.log(2);
+    }
+
+    /**
+     * Tells whether {@code size} bytes with this histogram are not worth
+     * coding, because even an ideal order-0 coder would barely shrink them.
+     * Already compressed and random data end up here.
+     */
+    static boolean isIncompressible(long[] counts, long size) {
+        return entropyBits(counts) / Byte.SIZE >= size - size / MIN_SAVING_FRACTION;
+    }
+
+    private long[] count(Reader reader) throws IOException {
+        long[] counts = new long[CHARACTER_SYMBOLS];
+        char[] chunk = new char[READ_BUFFER_SIZE];
+        int read;
+        while ((read = reader.read(chunk)) != -1) {
+            for (int i = 0; i < read; i++) {
+                counts[chunk[i]]++;
+            }
+        }
+        return counts;
+    }
+
+    private long[] countSegments(Path path, boolean characters) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int threads = Runtime.getRuntime().availableProcessors();
+            long segmentSize = Math.min(MAX_SEGMENT_SIZE, Math.max(MIN_SEGMENT_SIZE, (size + threads - 1) / threads));
+
+            List<Future<long[]>> segments = new ArrayList<>();
+            try {
+                long start = 0;
+                while (start < size) {
+                    long end = Math.min(size, start + segmentSize);
+                    if (characters) {
+                        // Continuation bytes after the cut belong to this segment's last character
+                        int tail = 0;
+                        while (end < size && tail < 3 && isContinuationByte(channel, end)) {
+                            end++;
+                            tail++;
+                        }
+                    }
+                    ByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                    segments.add(executor.submit(() -> characters ? countUtf8(segment) : countBytes(segment)));
+                    start = end;
+                }
+
+                long[] total = new long[characters ? CHARACTER_SYMBOLS : BYTE_SYMBOLS];
+                for (Future<long[]> segment : segments) {
+                    long[] counts = IoSupport.await(segment);
+                    for (int symbol = 0; symbol < total.length; symbol++) {
+                        total[symbol] += counts[symbol];
+                    }
+                }
+                return total;
+            } finally {
+                segments.forEach(segment -> segment.cancel(true));
+            }
+        }
+    }
+
+    private static boolean isContinuationByte(FileChannel channel, long position) throws IOException {
+        ByteBuffer single = IoSupport.readFully(channel, position, 1);
+        return (single.get() & 0xC0) == 0x80;
+    }
+
+    private static long[] countUtf8(ByteBuffer segment) throws IOException {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+        CharBuffer chunk = CharBuffer.allocate(READ_BUFFER_SIZE);
+        long[] counts = new long[CHARACTER_SYMBOLS];
+        CoderResult result;
+        do {
+            result = decoder.decode(segment, chunk, true);
+            if (result.isError()) {
+                result.throwException();
+            }
+            addCharacters(chunk.flip(), counts);
+            chunk.clear();
+        } while (result.isOverflow());
+
+        while (decoder.flush(chunk).isOverflow()) {
+            addCharacters(chunk.flip(), counts);
+            chunk.clear();
+        }
+        addCharacters(chunk.flip(), counts);
+        return counts;
+    }
+
+    private static void addCharacters(CharBuffer chars, long[] counts) {
+        char[] array = chars.array();
+        for (int i = chars.position(); i < chars.limit(); i++) {
+            counts[array[i]]++;
+        }
+    }
+
+    private static void addBytes(ByteBuffer buffer, long[] counts) {
+        byte[] chunk = new byte[Math.min(buffer.remaining(), 64 * 1024)];
+        while (buffer.hasRemaining()) {
+            int length = Math.min(chunk.length, buffer.remaining());
+            buffer.get(chunk, 0, length);
+            for (int i = 0; i < length; i++) {
+                counts[chunk[i] & 0xFF]++;
+            }
+        }
+    }
+
+    private static void checkReadable(Path path) {
+        Objects.requireNonNull(path, "path");
+        if (!Files.exists(path) || !Files.isRegularFile(path) || !Files.isReadable(path)) {
+            throw new IllegalArgumentException("File is not a readable, regular file: " + path);
+        }
+    }
 }
@@ -0,0 +1,218 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Computes Huffman code lengths straight from a symbol-indexed count array,
+ * without building a tree of {@link HuffmanNode} objects.
+ *
+ * <p>The present symbols are sorted once by count; the lengths then follow in
+ * linear time from the two-queue merge, run in place over a single
+ * {@code long} array (Moffat and Katajainen): the sorted leaves form one
+ * queue, and the internal nodes, which are created in non-decreasing weight
+ * order, form the other in the already consumed front of the array. When the
+ * result exceeds the length limit, the lengths are rebuilt with
+ * {@link LengthLimitedCodeBuilder}.
+ */
+public class CodeLengthBuilder {
+
+    // Counts below this bound leave room for a 17-bit symbol in a packed sort key
+    private static final int SYMBOL_BITS = 17;
+    private static final long PACKED_COUNT_LIMIT = 1L << (Long.SIZE - 1 - SYMBOL_BITS);
+
+    private final LengthLimitedCodeBuilder lengthLimitedBuilder = new LengthLimitedCodeBuilder();
+
+    /**
+     * Computes optimal code lengths limited to {@code maxLength} bits.
+     *
+     * @param counts Count of every symbol, indexed by symbol; zero marks an
+     * absent symbol
+     * @param maxLength Longest allowed code, 1 to 63
+     * @return the code length of every symbol, zero for absent ones; a lone
+     * symbol gets a one-bit code
+     * @throws IllegalArgumentException if a count is negative or there are
+     * more symbols than codes of {@code maxLength} bits can tell apart
+     */
+    public int[] buildCodeLengths(long[] counts, int maxLength) {
+        Objects.requireNonNull(counts, "Counts cannot be null");
+        int[] lengths = new int[counts.length];
+        buildCodeLengths(counts, maxLength, lengths, new long[counts.length], new long[counts.length]);
+        return lengths;
+    }
+
+    /**
+     * Computes code lengths like {@link #buildCodeLengths(long[], int)} into
+     * arrays owned by the caller, so that callers coding many small inputs
+     * allocate nothing here unless the lengths exceed the limit.
+     *
+     * @param counts Count of every symbol, indexed by symbol
+     * @param maxLength Longest allowed code, 1 to 63
+     * @param lengths Receives the code length of every symbol, at least as
+     * long as {@code counts}
+     * @param symbols Work space, at least as long as {@code counts}
+     * @param work Work space, at least as long as {@code counts}
+     */
+    void buildCodeLengths(long[] counts, int maxLength, int[] lengths, long[] symbols, long[] work) {
+        int present = sortSymbols(counts, symbols);
+        Arrays.fill(lengths, 0, counts.length, 0);
+        if (present == 0) {
+            return;
+        }
+        if (present == 1) {
+            lengths[(int) symbols[0]] = 1;
+            return;
+        }
+
+        for (int i = 0; i < present; i++) {
+            work[i] = counts[(int) symbols[i]];
+        }
+        computeLengths(work, present);
+
+        if (work[0] > maxLength) {
+            long[] weights = new long[present];
+            for (int i = 0; i < present; i++) {
+                weights[i] = counts[(int) symbols[i]];
+            }
+            int[] limited = lengthLimitedBuilder.buildCodeLengths(weights, maxLength);
+            for (int i = 0; i < present; i++) {
+                lengths[(int) symbols[i]] = limited[i];
+            }
+            return;
+        }
+
+        for (int i = 0; i < present; i++) {
+            lengths[(int) symbols[i]] = (int) work[i];
+        }
+    }
+
+    /**
+     * Returns the payload length in bits of symbols with the given counts
+     * coded with the given lengths.
+     */
+    static long totalBits(long[] counts, int[] lengths) {
+        long total = 0;
+        for (int symbol = 0; symbol < counts.length; symbol++) {
+            total += counts[symbol] * lengths[symbol];
+        }
+        return total;
+    }
+
+    /**
+     * Converts a symbol-indexed length array into a map holding the non-zero
+     * entries, in the form taken by the header writers and code generators.
+     */
+    public static Map<Character, Integer> toMap(int[] lengths) {
+        Map<Character, Integer> result = new HashMap<>();
+        for (int symbol = 0; symbol < lengths.length; symbol++) {
+            if (lengths[symbol] > 0) {
+                result.put((char) symbol, lengths[symbol]);
+            }
+        }
+        return Map.copyOf(result);
+    }
+
+    /**
+     * Replaces the first {@code n} ascending weights with their code lengths,
+     * in place. The first pass turns the array into parent pointers of the
+     * internal nodes, the second into internal node depths and the third into
+     * leaf depths.
+     */
+    private static void computeLengths(long[] a, int n) {
+
+        // Phase 1: two-queue merge; a[root] walks the internal nodes, a[leaf] the leaves
+        a[0] += a[1];
+        int root = 0;
+        int leaf = 2;
+        for (int next = 1; next < n - 1; next++) {
+            if (leaf >= n || a[root] < a[leaf]) {
+                a[next] = a[root];
+                a[root++] = next;
+            } else {
+                a[next] = a[leaf++];
+            }
+            if (leaf >= n || (root < next && a[root] < a[leaf])) {
+                a[next] += a[root];
+                a[root++] = next;
+            } else {
+                a[next] += a[leaf++];
+            }
+        }
+
+        // Phase 2: depths of the internal nodes, walking down from the root
+        a[n - 2] = 0;
+        for (int next = n - 3; next >= 0; next--) {
+            a[next] = a[(int) a[next]] + 1;
+        }
+
+        // Phase 3: leaf depths from the number of internal nodes at each depth
+        int available = 1;
+        int used = 0;
+        int depth = 0;
+        root = n - 2;
+        int next = n - 1;
+        while (available > 0) {
+            while (root >= 0 && a[root] == depth) {
+                used++;
+                root--;
+            }
+            while (available > used) {
+                a[next--] = depth;
+                available--;
+            }
+            available = 2 * used;
+            depth++;
+            used = 0;
+        }
+    }
+
+    /**
+     * Writes the symbols with a non-zero count into {@code symbols}, ordered
+     * by ascending count.
+     *
+     * @return the number of symbols written
+     */
+    private static int sortSymbols(long[] counts, long[] symbols) {
+        int present = 0;
+        long largest = 0;
+        for (long count : counts) {
+            if (count < 0) {
+                throw new IllegalArgumentException("Counts cannot be negative: " + count);
+            }
+            if (count > 0) {
+                present++;
+                largest = Math.max(largest, count);
+            }
+        }
+
+        if (largest < PACKED_COUNT_LIMIT && counts.length <= 1 << SYMBOL_BITS) {
+            int k = 0;
+            for (int symbol = 0; symbol < counts.length; symbol++) {
+                if (counts[symbol] > 0) {
+                    symbols[k++] = (counts[symbol] << SYMBOL_BITS) | symbol;
+                }
+            }
+            Arrays.sort(symbols, 0, present);
+            for (int i = 0; i < present; i++) {
+                symbols[i] &= (1 << SYMBOL_BITS) - 1;
+            }
+            return present;
+        }
+
+        Integer[] boxed = new Integer[present];
+        int k = 0;
+        for (int symbol = 0; symbol < counts.length; symbol++) {
+            if (counts[symbol] > 0) {
+                boxed[k++] = symbol;
+            }
+        }
+        Arrays.sort(boxed, Comparator.comparingLong(symbol -> counts[symbol]));
+        for (int i = 0; i < present; i++) {
+            symbols[i] = boxed[i];
+        }
+        return present;
+    }
+}
@@ -0,0 +1,295 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Reusable compressor for small, independent messages such as RPC payloads
+ * or cache entries. Every message becomes a single block record (see
+ * {@link BlockCodec}) holding either a Huffman body or the message stored
+ * unchanged, so {@link DecompressionContext} and the block decoders read it.
+ *
+ * <p>The symbol counts, code lengths, codes and work arrays live in the
+ * context and are overwritten by every call, and the record is written
+ * straight into the caller's array. Compressing into a caller-supplied array
+ * therefore allocates nothing once the context exists, apart from the rare
+ * input whose optimal codes exceed the length limit. A context is not thread
+ * safe: keep one per thread, for example in a {@link ThreadLocal}.
+ *
+ * <p>A context created with a {@link HuffmanDictionary} codes every message
+ * with the dictionary's table instead, into a record that names the
+ * dictionary rather than carrying a table. That skips both the table, which
+ * can outweigh the savings on messages under a kilobyte, and building codes
+ * per message.
+ *
+ * <p>Messages are coded without the LZ77 stage, whose window and hash chains
+ * cost more to set up than they save on inputs of a few kilobytes; use
+ * {@link BlockCompressionEngine} or {@link HuffmanOutputStream} at a level
+ * with match finding for larger data.
+ */
+public final class CompressionContext {
+
+    private static final int SYMBOLS = CharacterFrequencyCounter.BYTE_SYMBOLS;
+    private static final int MAX_CODE_LENGTH = LengthLimitedCodeBuilder.DEFAULT_MAX_CODE_LENGTH;
+
+    private final CodeLengthBuilder codeLengthBuilder = new CodeLengthBuilder();
+    private final long[] counts = new long[SYMBOLS];
+    private final int[] lengths = new int[SYMBOLS];
+    private final long[] sortedCounts = new long[SYMBOLS];
+    private final long[] work = new long[SYMBOLS];
+    private final long[] codes = new long[SYMBOLS];
+    private final int[] lengthCounts = new int[MAX_CODE_LENGTH + 1];
+    private final int[] nextIndex = new int[MAX_CODE_LENGTH + 1];
+    private final int[] canonicalOrder = new int[SYMBOLS];
+    private final HuffmanDictionary dictionary;
+    private int codedSymbols;
+
+    /**
+     * Creates a context that builds a code table for every message.
+     */
+    public CompressionContext() {
+        this.dictionary = null;
+    }
+
+    /**
+     * Creates a context that codes every message with a shared table.
+     *
+     * @param dictionary Table the decompressor also knows
+     */
+    public CompressionContext(HuffmanDictionary dictionary) {
+        this.dictionary = Objects.requireNonNull(dictionary, "Dictionary cannot be null");
+    }
+
+    /**
+     * Returns the largest record that compressing {@code length} bytes can
+     * produce: the stored record, since a coded one is only kept when it is
+     * smaller.
+     *
+     * @param length Number of input bytes
+     * @return the size a destination needs to hold any record for the input
+     * @throws IllegalArgumentException if the length is negative or the bound
+     * does not fit in an {@code int}
+     */
+    public static int maxCompressedLength(int length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Length cannot be negative: " + length);
+        }
+        long bound = 1L + 2L * HeaderWriter.varIntSize(length) + length;
+        if (bound > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Input is too large for a single record: " + length);
+        }
+        return (int) bound;
+    }
+
+    /**
+     * Compresses a message into a new array holding exactly the record.
+     *
+     * @param data Message to compress
+     * @return the block record
+     */
+    public byte[] compress(byte[] data) {
+        Objects.requireNonNull(data, "Data cannot be null");
+        byte[] record = new byte[maxCompressedLength(data.length)];
+        int size = compress(data, 0, data.length, record, 0);
+        return Arrays.copyOf(record, size);
+    }
+
+    /**
+     * Compresses a region of bytes into a block record written at
+     * {@code destinationOffset}.
+     *
+     * @param data Source array
+     * @param offset Start of the message in the array
+     * @param length Number of bytes in the message, possibly zero
+     * @param destination Array receiving the record
+     * @param destinationOffset Where the record starts
+     * @return the length of the record
+     * @throws IllegalArgumentException if the destination has no room for the
+     * record; {@link #maxCompressedLength} bytes are always enough
+     */
+    public int compress(byte[] data, int offset, int length, byte[] destination, int destinationOffset) {
+        Objects.checkFromIndexSize(offset, length, data.length);
+        Objects.checkIndex(destinationOffset, destination.length + 1);
+        if (dictionary != null) {
+            return compressWithDictionary(data, offset, length, destination, destinationOffset);
+        }
+
+        Arrays.fill(counts, 0);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            counts[data[i] & 0xFF]++;
+        }
+        if (CharacterFrequencyCounter.isIncompressible(counts, length)) {
+            return stored(data, offset, length, destination, destinationOffset);
+        }
+
+        codeLengthBuilder.buildCodeLengths(counts, MAX_CODE_LENGTH, lengths, sortedCounts, work);
+        long payloadBits = 0;
+        for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+            payloadBits += counts[symbol] * lengths[symbol];
+        }
+        int maxLength = assignCodes();
+        long bodyLength = tableSize(maxLength) + (payloadBits + 7) / Byte.SIZE;
+        if (bodyLength >= length) {
+            return stored(data, offset, length, destination, destinationOffset);
+        }
+
+        int position = header(BlockCodec.TYPE_HUFFMAN, length, (int) bodyLength, destination, destinationOffset);
+        position = writeTable(maxLength, destination, position);
+        return writePayload(data, offset, length, lengths, codes, destination, position) - destinationOffset;
+    }
+
+    private int compressWithDictionary(byte[] data, int offset, int length, byte[] destination,
+            int destinationOffset) {
+        int[] dictionaryLengths = dictionary.lengths();
+        long payloadBits = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int codeLength = dictionaryLengths[data[i] & 0xFF];
+            if (codeLength == 0) {
+                return stored(data, offset, length, destination, destinationOffset);
+            }
+            payloadBits += codeLength;
+        }
+        long bodyLength = Integer.BYTES + (payloadBits + 7) / Byte.SIZE;
+        if (bodyLength >= length) {
+            return stored(data, offset, length, destination, destinationOffset);
+        }
+
+        int position = header(BlockCodec.TYPE_DICTIONARY, length, (int) bodyLength, destination, destinationOffset);
+        int id = dictionary.id();
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            destination[position++] = (byte) (id >>> shift);
+        }
+        return writePayload(data, offset, length, dictionaryLengths, dictionary.codes(), destination, position)
+                - destinationOffset;
+    }
+
+    private int stored(byte[] data, int offset, int length, byte[] destination, int destinationOffset) {
+        int position = header(BlockCodec.TYPE_STORED, length, length, destination, destinationOffset);
+        System.arraycopy(data, offset, destination, position, length);
+        return position + length - destinationOffset;
+    }
+
+    /**
+     * Writes the record framing after checking that the whole record fits.
+     *
+     * @return the position of the body
+     */
+    private static int header(int type, int length, int bodyLength, byte[] destination, int position) {
+        int size = 1 + HeaderWriter.varIntSize(length) + HeaderWriter.varIntSize(bodyLength) + bodyLength;
+        if (destination.length - position < size) {
+            throw new IllegalArgumentException("Destination has room for " + (destination.length - position)
+                    + " bytes but the record needs " + size);
+        }
+        destination[position++] = (byte) type;
+        position = HeaderWriter.writeVarInt(length, destination, position);
+        return HeaderWriter.writeVarInt(bodyLength, destination, position);
+    }
+
+    /**
+     * Orders the coded symbols by code length and then by value, and gives
+     * them consecutive canonical codes, as {@link HuffmanCodeGenerator} does.
+     *
+     * @return the longest code length
+     */
+    private int assignCodes() {
+        Arrays.fill(lengthCounts, 0);
+        int maxLength = 0;
+        for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+            lengthCounts[lengths[symbol]]++;
+            maxLength = Math.max(maxLength, lengths[symbol]);
+        }
+        int index = 0;
+        for (int length = 1; length <= maxLength; length++) {
+            nextIndex[length] = index;
+            index += lengthCounts[length];
+        }
+        for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+            if (lengths[symbol] > 0) {
+                canonicalOrder[nextIndex[lengths[symbol]]++] = symbol;
+            }
+        }
+
+        codedSymbols = index;
+        long code = 0;
+        int previousLength = 0;
+        for (int i = 0; i < index; i++) {
+            int symbol = canonicalOrder[i];
+            code <<= lengths[symbol] - previousLength;
+            codes[symbol] = code++;
+            previousLength = lengths[symbol];
+        }
+        return maxLength;
+    }
+
+    /**
+     * Returns the size of the table {@link #writeTable} writes.
+     */
+    private int tableSize(int maxLength) {
+        int size = 1;
+        for (int length = 1; length <= maxLength; length++) {
+            size += HeaderWriter.varIntSize(lengthCounts[length]);
+        }
+        int previous = -1;
+        int previousLength = 0;
+        for (int i = 0; i < codedSymbols; i++) {
+            int symbol = canonicalOrder[i];
+            if (lengths[symbol] != previousLength) {
+                previous = -1;
+                previousLength = lengths[symbol];
+            }
+            size += HeaderWriter.varIntSize(symbol - previous - 1);
+            previous = symbol;
+        }
+        return size;
+    }
+
+    /**
+     * Writes the code lengths in the layout of
+     * {@link HeaderWriter#writeCodeLengths}.
+     *
+     * @return the position after the table
+     */
+    private int writeTable(int maxLength, byte[] destination, int position) {
+        destination[position++] = (byte) maxLength;
+        for (int length = 1; length <= maxLength; length++) {
+            position = HeaderWriter.writeVarInt(lengthCounts[length], destination, position);
+        }
+        int previous = -1;
+        int previousLength = 0;
+        for (int i = 0; i < codedSymbols; i++) {
+            int symbol = canonicalOrder[i];
+            if (lengths[symbol] != previousLength) {
+                previous = -1;
+                previousLength = lengths[symbol];
+            }
+            position = HeaderWriter.writeVarInt(symbol - previous - 1, destination, position);
+            previous = symbol;
+        }
+        return position;
+    }
+
+    /**
+     * Writes the codes of the message MSB first, zero padding the last byte.
+     *
+     * @return the position after the payload
+     */
+    private static int writePayload(byte[] data, int offset, int length, int[] lengths, long[] codes,
+            byte[] destination, int position) {
+        // Holds fewer than 8 pending bits plus one code, so it never overflows
+        long accumulator = 0;
+        int bitCount = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int symbol = data[i] & 0xFF;
+            accumulator = (accumulator << lengths[symbol]) | codes[symbol];
+            bitCount += lengths[symbol];
+            while (bitCount >= Byte.SIZE) {
+                bitCount -= Byte.SIZE;
+                destination[position++] = (byte) (accumulator >>> bitCount);
+            }
+        }
+        if (bitCount > 0) {
+            destination[position++] = (byte) (accumulator << (Byte.SIZE - bitCount));
+        }
+        return position;
+    }
+}
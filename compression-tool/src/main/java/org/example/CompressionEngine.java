@@ -1,28 +1,67 @@
 package org.example;
 
-import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
 
 /**
- * Handles the compression of text files using Huffman coding.
+ * Handles the compression of text files using Huffman coding. Output uses
+ * the version 2 header, which stores canonical code lengths rather than
+ * frequencies.
+ *
+ * <p>The input is streamed twice: once to count character frequencies and once
+ * to encode it, so peak memory does not depend on the size of the file.
+ * {@link #compressBytes} codes raw bytes instead of characters. Input is read
+ * through memory mappings and output leaves through a direct buffer straight
+ * into a file channel. {@link #compress(InputStream, OutputStream)} writes a
+ * framed stream (see {@link HuffmanOutputStream}) for data that never touches
+ * the file system, and {@link #compressAdaptive} codes in a single pass with
+ * an {@link AdaptiveHuffmanTree} so output starts before the input ends.
+ * Input whose histogram has near maximal entropy is stored unchanged rather
+ * than coded. The methods taking a {@link CompressionLevel} write block
+ * records, so they can trade speed for ratio from stored blocks up to LZ77
+ * with optimal parsing.
  */
 public class CompressionEngine {
 
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 20;
+
     private final CharacterFrequencyCounter frequencyCounter;
-    private final HuffmanTreeBuilder treeBuilder;
-    private final HuffmanCodeGenerator codeGenerator;
+    private final CodeLengthBuilder codeLengthBuilder;
     private final HeaderWriter headerWriter;
+    private final int maxCodeLength;
 
     public CompressionEngine() {
+        this(LengthLimitedCodeBuilder.DEFAULT_MAX_CODE_LENGTH);
+    }
+
+    /**
+     * @param maxCodeLength Longest Huffman code the engine may emit, 1 to 63;
+     * inputs with more distinct symbols than {@code 2^maxCodeLength} are
+     * rejected
+     */
+    public CompressionEngine(int maxCodeLength) {
+        if (maxCodeLength < 1 || maxCodeLength > HuffmanCodeGenerator.MAX_CANONICAL_CODE_LENGTH) {
+            throw new IllegalArgumentException("Maximum code length must be between 1 and "
+                    + HuffmanCodeGenerator.MAX_CANONICAL_CODE_LENGTH + ": " + maxCodeLength);
+        }
+        this.maxCodeLength = maxCodeLength;
         this.frequencyCounter = new CharacterFrequencyCounter();
-        this.treeBuilder = new HuffmanTreeBuilder();
-        this.codeGenerator = new HuffmanCodeGenerator();
+        this.codeLengthBuilder = new CodeLengthBuilder();
         this.headerWriter = new HeaderWriter();
     }
 
@@ -38,6 +77,117 @@ public class CompressionEngine {
         compressWithStats(inputPath, outputPath);
     }
 
+    /**
+     * Compresses a file into a block container (see
+     * {@link BlockCompressionEngine}) at the given level.
+     *
+     * @param inputPath Path to the input file to compress
+     * @param outputPath Path to the output container
+     * @param level Speed and ratio preset
+     * @return the index of the written container
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if the input file is invalid
+     */
+    public BlockIndex compress(Path inputPath, Path outputPath, CompressionLevel level)
+            throws IOException, IllegalArgumentException {
+        return compress(inputPath, outputPath, level, false);
+    }
+
+    /**
+     * Compresses a file into a block container (see
+     * {@link BlockCompressionEngine}) at the given level.
+     *
+     * @param inputPath Path to the input file to compress
+     * @param outputPath Path to the output container
+     * @param level Speed and ratio preset
+     * @param checksums Whether every block carries a CRC32C of its data
+     * @return the index of the written container
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if the input file is invalid
+     */
+    public BlockIndex compress(Path inputPath, Path outputPath, CompressionLevel level, boolean checksums)
+            throws IOException, IllegalArgumentException {
+        return new BlockCompressionEngine(level, ForkJoinPool.commonPool(), checksums).compress(inputPath, outputPath);
+    }
+
+    /**
+     * Compresses everything readable from {@code input} into a framed stream on
+     * {@code output}, one block at a time. Neither stream is closed.
+     *
+     * @param input Source of the data to compress
+     * @param output Destination of the framed stream
+     * @return the number of uncompressed bytes
+     * @throws IOException if an I/O error occurs
+     */
+    public long compress(InputStream input, OutputStream output) throws IOException {
+        return compress(input, output, CompressionLevel.FAST.withBlockSize(HuffmanOutputStream.DEFAULT_BLOCK_SIZE));
+    }
+
+    /**
+     * Compresses everything readable from {@code input} into a framed stream on
+     * {@code output} at the given level. Neither stream is closed.
+     *
+     * @param input Source of the data to compress
+     * @param output Destination of the framed stream
+     * @param level Speed and ratio preset
+     * @return the number of uncompressed bytes
+     * @throws IOException if an I/O error occurs
+     */
+    public long compress(InputStream input, OutputStream output, CompressionLevel level) throws IOException {
+        return compress(input, output, level, false);
+    }
+
+    /**
+     * Compresses everything readable from {@code input} into a framed stream on
+     * {@code output} at the given level. Neither stream is closed.
+     *
+     * @param input Source of the data to compress
+     * @param output Destination of the framed stream
+     * @param level Speed and ratio preset
+     * @param checksums Whether every block carries a CRC32C of its data
+     * @return the number of uncompressed bytes
+     * @throws IOException if an I/O error occurs
+     */
+    public long compress(InputStream input, OutputStream output, CompressionLevel level, boolean checksums)
+            throws IOException {
+        Objects.requireNonNull(input, "Input cannot be null");
+        Objects.requireNonNull(output, "Output cannot be null");
+        HuffmanOutputStream compressed = new HuffmanOutputStream(output, level, checksums);
+        long count = input.transferTo(compressed);
+        compressed.finish();
+        return count;
+    }
+
+    /**
+     * Compresses everything readable from {@code input} in a single pass with
+     * adaptive Huffman codes (see {@link AdaptiveHuffmanOutputStream}). Memory
+     * is constant and each flush of the output carries the input read so far,
+     * so this suits pipes and sockets. Neither stream is closed.
+     *
+     * @param input Source of the data to compress
+     * @param output Destination of the adaptive stream
+     * @return the number of uncompressed bytes
+     * @throws IOException if an I/O error occurs
+     */
+    public long compressAdaptive(InputStream input, OutputStream output) throws IOException {
+        Objects.requireNonNull(input, "Input cannot be null");
+        Objects.requireNonNull(output, "Output cannot be null");
+        AdaptiveHuffmanOutputStream compressed = new AdaptiveHuffmanOutputStream(output);
+        byte[] chunk = new byte[READ_BUFFER_SIZE];
+        long count = 0;
+        int read;
+        while ((read = input.read(chunk)) != -1) {
+            compressed.write(chunk, 0, read);
+            count += read;
+            if (input.available() <= 0) {
+                // Nothing more is waiting, so pass on what has been coded so far
+                compressed.flush();
+            }
+        }
+        compressed.finish();
+        return count;
+    }
+
     /**
      * Compresses a file and returns compression metadata for reuse (e.g.,
      * logging).
@@ -49,108 +199,228 @@ public class CompressionEngine {
      * @throws IllegalArgumentException if the input file is invalid
      */
     public CompressionStats compressWithStats(Path inputPath, Path outputPath) throws IOException, IllegalArgumentException {
-        Objects.requireNonNull(inputPath, "Input path cannot be null");
-        Objects.requireNonNull(outputPath, "Output path cannot be null");
-
-        if (!Files.exists(inputPath) || !Files.isRegularFile(inputPath)) {
-            throw new IllegalArgumentException("Input file does not exist or is not a regular file: " + inputPath);
-        }
-        if (Files.size(inputPath) == 0) {
-            throw new IllegalArgumentException("Input file is empty: " + inputPath);
-        }
+        checkPaths(inputPath, outputPath);
 
         // Count character frequencies
-        Map<Character, Long> frequencies = frequencyCounter.count(inputPath);
-
-        // Build Huffman tree
-        HuffmanNode root = treeBuilder.buildTree(frequencies);
-
-        // Generate codes
-        Map<Character, String> codes = codeGenerator.generateCodes(root);
+        long[] counts = frequencyCounter.countCharacters(inputPath);
+        long size = Files.size(inputPath);
+        if (CharacterFrequencyCounter.isIncompressible(counts, size)) {
+            return store(inputPath, outputPath, 0, counts);
+        }
 
-        // Read input file content
-        String content = Files.readString(inputPath, StandardCharsets.UTF_8);
+        // Code lengths straight from the counts, then canonical codes from the lengths
+        int[] lengths = codeLengthBuilder.buildCodeLengths(counts, maxCodeLength);
+        Map<Character, Integer> codeLengths = CodeLengthBuilder.toMap(lengths);
+        PackedCodes codes = PackedCodes.fromLengths(lengths);
 
-        long totalBits = calculateTotalBits(content, codes);
+        // Payload length follows from the counts, so the input is only re-streamed once more to encode it
+        long totalBits = CodeLengthBuilder.totalBits(counts, lengths);
+        byte[] preamble = preamble(codeLengths, 0, totalBits);
+        if (!shrinks(preamble, totalBits, 0, size)) {
+            return store(inputPath, outputPath, 0, counts);
+        }
+        Map<Character, Long> frequencies = CharacterFrequencyCounter.toMap(counts);
 
         // Write compressed file with header and compressed data
-        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(outputPath)))) {
-            // Write header
-            headerWriter.writeHeader(frequencies, output);
-
-            // Write the length of compressed data (in bits)
-            output.writeLong(totalBits);
+        try (Reader input = new InputStreamReader(new MappedInputStream(inputPath), StandardCharsets.UTF_8.newDecoder());
+                FileChannel output = openOutput(outputPath)) {
+            // Write header, the length of compressed data (in bits) and the padding
+            writeFully(output, ByteBuffer.wrap(preamble));
 
             // Write compressed data (header end marker delimitates header; bit length below governs payload)
-            writeBits(output, content, codes, totalBits);
+            writeBits(output, input, codes, totalBits);
 
         }
 
-        return new CompressionStats(Map.copyOf(frequencies), Map.copyOf(codes), totalBits);
+        return new CompressionStats(Map.copyOf(frequencies), codes.toCodeMap(), totalBits);
     }
 
     /**
-     * Writes a string of bits to the output stream, padding with zeros as
-     * needed.
+     * Compresses a file treating its raw bytes as symbols, so binary files
+     * compress without any charset conversion. The output uses the version 2
+     * header with {@link HeaderWriter#BYTE_SYMBOLS_FLAG} set; frequencies and
+     * codes are keyed by the character with each byte's unsigned value.
      *
-     * @param output The DataOutputStream to write to
-     * @param content Original content being compressed
-     * @param codes Huffman codes map
-     * @param totalBits Length of compressed data in bits
+     * @param inputPath Path to the input file to compress
+     * @param outputPath Path to the output compressed file
+     * @return CompressionStats containing frequencies, codes, and bit length
      * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if the input file is invalid
      */
-    private void writeBits(DataOutputStream output, String content, Map<Character, String> codes, long totalBits)
-            throws IOException {
-        int padding = (int) ((8 - (totalBits % 8)) % 8);
+    public CompressionStats compressBytes(Path inputPath, Path outputPath) throws IOException, IllegalArgumentException {
+        checkPaths(inputPath, outputPath);
 
-        // Write padding info (1 byte)
-        output.writeByte(padding);
+        long[] counts = frequencyCounter.countBytes(inputPath);
+        long size = Files.size(inputPath);
+        if (CharacterFrequencyCounter.isIncompressible(counts, size)) {
+            return store(inputPath, outputPath, HeaderWriter.BYTE_SYMBOLS_FLAG, counts);
+        }
+        int[] lengths = codeLengthBuilder.buildCodeLengths(counts, maxCodeLength);
+        Map<Character, Integer> codeLengths = CodeLengthBuilder.toMap(lengths);
+        PackedCodes codes = PackedCodes.fromLengths(lengths);
+        long totalBits = CodeLengthBuilder.totalBits(counts, lengths);
+        byte[] preamble = preamble(codeLengths, HeaderWriter.BYTE_SYMBOLS_FLAG, totalBits);
+        if (!shrinks(preamble, totalBits, HeaderWriter.BYTE_SYMBOLS_FLAG, size)) {
+            return store(inputPath, outputPath, HeaderWriter.BYTE_SYMBOLS_FLAG, counts);
+        }
+        Map<Character, Long> frequencies = CharacterFrequencyCounter.toMap(counts);
 
-        int buffer = 0;
-        int bitsInBuffer = 0;
+        try (MappedInputStream input = new MappedInputStream(inputPath); FileChannel output = openOutput(outputPath)) {
+            writeFully(output, ByteBuffer.wrap(preamble));
+            encodeBytes(input, output, codes, totalBits);
+        }
+
+        return new CompressionStats(Map.copyOf(frequencies), codes.toCodeMap(), totalBits);
+    }
 
-        for (char c : content.toCharArray()) {
-            String code = codes.get(c);
-            if (code == null) {
-                throw new IllegalStateException(
-                        "Missing Huffman code for character: '" + c + "' (U+" + String.format("%04X", (int) c) + ")");
+    /**
+     * Writes the input unchanged behind a header with
+     * {@link HeaderWriter#STORED_FLAG} set, for input whose histogram shows
+     * that coding would not pay. The file is copied channel to channel, so
+     * this runs at copy speed.
+     */
+    private CompressionStats store(Path inputPath, Path outputPath, int flags, long[] counts) throws IOException {
+        try (FileChannel input = FileChannel.open(inputPath); FileChannel output = openOutput(outputPath)) {
+            long size = input.size();
+            long totalBits = size * Byte.SIZE;
+            writeFully(output, ByteBuffer.wrap(preamble(Map.of(), flags | HeaderWriter.STORED_FLAG, totalBits)));
+            for (long position = 0; position < size; ) {
+                long copied = input.transferTo(position, size - position, output);
+                if (copied <= 0) {
+                    throw new IllegalStateException("Input changed while compressing: file shrank");
+                }
+                position += copied;
             }
+            return new CompressionStats(Map.copyOf(CharacterFrequencyCounter.toMap(counts)), Map.of(), totalBits);
+        }
+    }
 
-            for (int i = 0; i < code.length(); i++) {
-                buffer = (buffer << 1) | (code.charAt(i) - '0');
-                bitsInBuffer++;
+    /**
+     * Encodes the bytes of {@code input} through 256-entry packed code arrays.
+     * Symbols are read straight from the mapped windows of the input and bits
+     * leave through a large direct buffer.
+     */
+    private void encodeBytes(MappedInputStream input, FileChannel output, PackedCodes packed, long totalBits)
+            throws IOException {
+        BitWriter bits = new BitWriter(output, ByteBuffer.allocateDirect(OUTPUT_BUFFER_SIZE));
 
-                if (bitsInBuffer == 8) {
-                    output.writeByte((byte) buffer);
-                    buffer = 0;
-                    bitsInBuffer = 0;
+        ByteBuffer window;
+        while ((window = input.nextWindow()) != null) {
+            while (window.hasRemaining()) {
+                int symbol = window.get() & 0xFF;
+                int length = packed.getLength(symbol);
+                if (length == 0) {
+                    throw new IllegalStateException("Input changed while compressing: byte without a code");
                 }
+                bits.write(packed.getCode(symbol), length);
             }
         }
 
-        if (bitsInBuffer > 0) {
-            buffer = buffer << (8 - bitsInBuffer); // pad remaining bits with zeros
-            output.writeByte((byte) buffer);
+        if (bits.bitsWritten() != totalBits) {
+            throw new IllegalStateException("Input changed while compressing: expected " + totalBits
+                    + " bits but encoded " + bits.bitsWritten());
         }
+        bits.flush();
     }
 
-    private long calculateTotalBits(String content, Map<Character, String> codes) {
-        long totalBits = 0;
-        for (char c : content.toCharArray()) {
-            String code = codes.get(c);
-            if (code == null) {
-                throw new IllegalStateException(
-                        "Missing Huffman code for character: '" + c + "' (U+" + String.format("%04X", (int) c) + ")");
+    /**
+     * Serializes the version 2 header followed by the payload bit length and
+     * the padding byte.
+     */
+    private byte[] preamble(Map<Character, Integer> codeLengths, int flags, long totalBits) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        headerWriter.writeCanonicalHeader(codeLengths, flags, output);
+        output.writeLong(totalBits);
+        // Write padding info (1 byte)
+        output.writeByte((int) ((8 - (totalBits % 8)) % 8));
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Returns whether the coded file, the given preamble followed by
+     * {@code totalBits} of payload, is smaller than storing the {@code size}
+     * input bytes. The entropy check before coding ignores the code table, so
+     * small inputs with many distinct symbols can pass it and still expand.
+     */
+    private boolean shrinks(byte[] preamble, long totalBits, int flags, long size) throws IOException {
+        long codedSize = preamble.length + (totalBits + Byte.SIZE - 1) / Byte.SIZE;
+        long storedSize = preamble(Map.of(), flags | HeaderWriter.STORED_FLAG, size * Byte.SIZE).length + size;
+        return codedSize < storedSize;
+    }
+
+    private static FileChannel openOutput(Path outputPath) throws IOException {
+        return FileChannel.open(outputPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private static void writeFully(FileChannel output, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            output.write(buffer);
+        }
+    }
+
+    private static void checkPaths(Path inputPath, Path outputPath) throws IOException {
+        Objects.requireNonNull(inputPath, "Input path cannot be null");
+        Objects.requireNonNull(outputPath, "Output path cannot be null");
+
+        if (!Files.exists(inputPath) || !Files.isRegularFile(inputPath)) {
+            throw new IllegalArgumentException("Input file does not exist or is not a regular file: " + inputPath);
+        }
+        if (Files.size(inputPath) == 0) {
+            throw new IllegalArgumentException("Input file is empty: " + inputPath);
+        }
+    }
+
+    /**
+     * Streams the input through the packed Huffman codes and writes the bits
+     * to the output channel, padding with zeros as needed. Only fixed-size
+     * character and byte buffers are held in memory.
+     *
+     * @param output The channel to write to
+     * @param input Reader over the original content being compressed
+     * @param packed Huffman codes over the character alphabet
+     * @param totalBits Length of compressed data in bits
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeBits(FileChannel output, Reader input, PackedCodes packed, long totalBits)
+            throws IOException {
+        BitWriter bits = new BitWriter(output, ByteBuffer.allocateDirect(OUTPUT_BUFFER_SIZE));
+
+        char[] chunk = new char[READ_BUFFER_SIZE];
+        int read;
+        while ((read = input.read(chunk)) != -1) {
+            for (int index = 0; index < read; index++) {
+                char c = chunk[index];
+                int length = packed.getLength(c);
+                if (length == 0) {
+                    throw new IllegalStateException(
+                            "Missing Huffman code for character: '" + c + "' (U+" + String.format("%04X", (int) c) + ")");
+                }
+                bits.write(packed.getCode(c), length);
             }
-            totalBits += code.length();
         }
-        return totalBits;
+
+        if (bits.bitsWritten() != totalBits) {
+            throw new IllegalStateException("Input changed while compressing: expected " + totalBits
+                    + " bits but encoded " + bits.bitsWritten());
+        }
+        bits.flush();
     }
 
     /**
      * Immutable compression metadata (frequencies, codes, payload length).
+     * Stored input has no codes.
      */
     public record CompressionStats(Map<Character, Long> frequencies, Map<Character, String> codes, long totalBits) {
 
+        /**
+         * Whether the input was written unchanged because it does not
+         * compress.
+         */
+        public boolean isStored() {
+            return codes.isEmpty() && totalBits > 0;
+        }
     }
 }
@@ -0,0 +1,143 @@
+package org.example;
+
+/**
+ * Preset trading compression speed for ratio, numbered like the levels of
+ * gzip. Level 0 stores blocks as they are and level 1 codes them with
+ * order-0 Huffman codes only. Higher levels put the LZ77 stage in front of
+ * the Huffman coder with ever longer hash chains, defer matches lazily from
+ * level 4 on, and at level 9 choose matches by their cost over the block.
+ * From level 7 on, blocks are also coded with rANS, which spends fractions of
+ * bits where Huffman codes round up to whole ones, and levels 8 and 9 also
+ * try order-1 context modelling, which codes every byte with a table chosen
+ * by the byte before it. Level 9 also tries the Burrows-Wheeler transform
+ * with move-to-front ranking, the bzip2 pipeline, which suits text and other
+ * data with long-range context but sorts the suffixes of every block.
+ * Every level uses the same block size by default: blocks are coded
+ * independently, so smaller ones would cut matches off at every boundary and
+ * add a code table each.
+ *
+ * <p>Levels only affect the compressor: every level produces block records
+ * that the same decoders read, so the level is not stored in the output.
+ *
+ * @param level Level number, {@value #MIN_LEVEL} to {@value #MAX_LEVEL}
+ * @param blockSize Number of input bytes per block
+ * @param maxChainLength Candidates compared per position by the match finder,
+ * or 0 to skip match finding
+ * @param lazyMatching Whether a match is given up for a longer one starting at
+ * the next position
+ * @param optimalParsing Whether matches are chosen by the bit cost of the
+ * whole block instead of position by position
+ * @param contextModelling Whether blocks are also coded with order-1 tables,
+ * one per preceding byte, when that is the cheapest coding
+ * @param ansCoding Whether blocks are also coded with {@link RansCoder} in
+ * place of order-0 Huffman codes, when that is the cheapest coding
+ * @param burrowsWheeler Whether blocks are also coded through the
+ * Burrows-Wheeler transform and move-to-front ranking, when that is the
+ * cheapest coding; sorting the suffixes of every block makes it the slowest
+ * stage
+ */
+public record CompressionLevel(int level, int blockSize, int maxChainLength, boolean lazyMatching,
+        boolean optimalParsing, boolean contextModelling, boolean ansCoding, boolean burrowsWheeler) {
+
+    public static final int MIN_LEVEL = 0;
+    public static final int MAX_LEVEL = 9;
+
+    private static final int BLOCK_SIZE = BlockCompressionEngine.DEFAULT_BLOCK_SIZE;
+
+    private static final CompressionLevel[] LEVELS = {
+        new CompressionLevel(0, BLOCK_SIZE, 0, false, false, false, false, false),
+        new CompressionLevel(1, BLOCK_SIZE, 0, false, false, false, false, false),
+        new CompressionLevel(2, BLOCK_SIZE, 4, false, false, false, false, false),
+        new CompressionLevel(3, BLOCK_SIZE, 8, false, false, false, false, false),
+        new CompressionLevel(4, BLOCK_SIZE, 16, true, false, false, false, false),
+        new CompressionLevel(5, BLOCK_SIZE, 32, true, false, false, false, false),
+        new CompressionLevel(6, BLOCK_SIZE, 64, true, false, false, false, false),
+        new CompressionLevel(7, BLOCK_SIZE, 128, true, false, false, true, false),
+        new CompressionLevel(8, BLOCK_SIZE, 512, true, false, true, true, false),
+        new CompressionLevel(9, BLOCK_SIZE, 1024, true, true, true, true, true)
+    };
+
+    /** Stores blocks without compressing them. */
+    public static final CompressionLevel STORE = LEVELS[0];
+    /** Huffman coding only: fastest while still compressing. */
+    public static final CompressionLevel FAST = LEVELS[1];
+    /** Balance of speed and ratio suited to most data. */
+    public static final CompressionLevel DEFAULT = LEVELS[6];
+    /** Densest output, for data that is written once and kept. */
+    public static final CompressionLevel BEST = LEVELS[MAX_LEVEL];
+
+    public CompressionLevel {
+        if (level < MIN_LEVEL || level > MAX_LEVEL) {
+            throw new IllegalArgumentException(
+                    "Compression level must be between " + MIN_LEVEL + " and " + MAX_LEVEL + ": " + level);
+        }
+        if (blockSize <= 0 || blockSize > BlockCompressionEngine.MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException(
+                    "Block size must be between 1 and " + BlockCompressionEngine.MAX_BLOCK_SIZE + ": " + blockSize);
+        }
+        if (maxChainLength < 0) {
+            throw new IllegalArgumentException("Chain length cannot be negative: " + maxChainLength);
+        }
+    }
+
+    /**
+     * Returns the preset for a level number.
+     *
+     * @param level Level number, {@value #MIN_LEVEL} to {@value #MAX_LEVEL}
+     * @return the preset
+     * @throws IllegalArgumentException if the level is out of range
+     */
+    public static CompressionLevel of(int level) {
+        if (level < MIN_LEVEL || level > MAX_LEVEL) {
+            throw new IllegalArgumentException(
+                    "Compression level must be between " + MIN_LEVEL + " and " + MAX_LEVEL + ": " + level);
+        }
+        return LEVELS[level];
+    }
+
+    /**
+     * Returns this preset with another block size.
+     */
+    public CompressionLevel withBlockSize(int blockSize) {
+        return new CompressionLevel(level, blockSize, maxChainLength, lazyMatching, optimalParsing,
+                contextModelling, ansCoding, burrowsWheeler);
+    }
+
+    /**
+     * Returns this preset with order-1 context modelling switched on or off.
+     */
+    public CompressionLevel withContextModelling(boolean contextModelling) {
+        return new CompressionLevel(level, blockSize, maxChainLength, lazyMatching, optimalParsing,
+                contextModelling, ansCoding, burrowsWheeler);
+    }
+
+    /**
+     * Returns this preset with rANS coding switched on or off.
+     */
+    public CompressionLevel withAnsCoding(boolean ansCoding) {
+        return new CompressionLevel(level, blockSize, maxChainLength, lazyMatching, optimalParsing,
+                contextModelling, ansCoding, burrowsWheeler);
+    }
+
+    /**
+     * Returns this preset with the Burrows-Wheeler stage switched on or off.
+     */
+    public CompressionLevel withBurrowsWheeler(boolean burrowsWheeler) {
+        return new CompressionLevel(level, blockSize, maxChainLength, lazyMatching, optimalParsing,
+                contextModelling, ansCoding, burrowsWheeler);
+    }
+
+    /**
+     * Whether blocks are stored rather than compressed.
+     */
+    public boolean storesBlocks() {
+        return level == MIN_LEVEL;
+    }
+
+    /**
+     * Whether blocks go through the LZ77 stage before Huffman coding.
+     */
+    public boolean findsMatches() {
+        return maxChainLength > 0;
+    }
+}
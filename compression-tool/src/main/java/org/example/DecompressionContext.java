@@ -0,0 +1,152 @@
+package org.example;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Reusable decompressor for the records written by
+ * {@link CompressionContext}. The decoding table and the bit reader live in
+ * the context and are rebuilt in place for every record, so decompressing
+ * into a caller-supplied array allocates nothing once the context exists. A
+ * context is not thread safe: keep one per thread.
+ *
+ * <p>Records are read without a checksum. Huffman, stored and dictionary
+ * records are decoded here, the latter with the prebuilt table of the
+ * {@link HuffmanDictionary} their id names; the other types, which only the
+ * block engines and streams write, are handed to a {@link BlockCodec}
+ * created on first use.
+ */
+public final class DecompressionContext {
+
+    private final CanonicalDecoder decoder = new CanonicalDecoder();
+    private final BitReader reader = new BitReader(new byte[0], 0, 0);
+    private final HuffmanDictionary[] dictionaries;
+    private BlockCodec codec;
+
+    /**
+     * @param dictionaries Dictionaries that records may name; none are needed
+     * for records coded without one
+     * @throws IllegalArgumentException if two dictionaries share an id
+     */
+    public DecompressionContext(HuffmanDictionary... dictionaries) {
+        this.dictionaries = dictionaries.clone();
+        for (int i = 0; i < this.dictionaries.length; i++) {
+            Objects.requireNonNull(this.dictionaries[i], "Dictionary cannot be null");
+            for (int j = 0; j < i; j++) {
+                if (this.dictionaries[j].id() == this.dictionaries[i].id()) {
+                    throw new IllegalArgumentException(
+                            String.format("Dictionaries share the id %08x", this.dictionaries[i].id()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bytes a record decodes to, read from its framing,
+     * so callers can size the destination.
+     *
+     * @param record Array holding the record
+     * @param offset Start of the record in the array
+     * @param length Length of the record
+     * @return the decompressed length
+     * @throws IOException if the framing is malformed
+     */
+    public static int decompressedLength(byte[] record, int offset, int length) throws IOException {
+        Objects.checkFromIndexSize(offset, length, record.length);
+        if (length < 1) {
+            throw new IOException("Record is truncated");
+        }
+        return (int) HeaderReader.readVarInt(record, offset + 1, offset + length);
+    }
+
+    /**
+     * Decompresses a record into a new array.
+     *
+     * @param record The complete record
+     * @return the message
+     * @throws IOException if the record is malformed
+     */
+    public byte[] decompress(byte[] record) throws IOException {
+        Objects.requireNonNull(record, "Record cannot be null");
+        byte[] message = new byte[decompressedLength(record, 0, record.length)];
+        decompress(record, 0, record.length, message, 0);
+        return message;
+    }
+
+    /**
+     * Decompresses a record into {@code destination}.
+     *
+     * @param record Array holding the record
+     * @param offset Start of the record in the array
+     * @param length Length of the record
+     * @param destination Array receiving the message
+     * @param destinationOffset Where the message starts
+     * @return the length of the message
+     * @throws IOException if the record is malformed, names an unknown
+     * dictionary, or the message does not fit in the destination
+     */
+    public int decompress(byte[] record, int offset, int length, byte[] destination, int destinationOffset)
+            throws IOException {
+        Objects.checkFromIndexSize(offset, length, record.length);
+        Objects.checkIndex(destinationOffset, destination.length + 1);
+        int end = offset + length;
+        if (length < 1) {
+            throw new IOException("Record is truncated");
+        }
+        int type = record[offset] & 0xFF;
+        long uncompressed = HeaderReader.readVarInt(record, offset + 1, end);
+        int uncompressedLength = (int) uncompressed;
+        int position = offset + 1 + (int) (uncompressed >>> Integer.SIZE);
+        long body = HeaderReader.readVarInt(record, position, end);
+        int bodyLength = (int) body;
+        position += (int) (body >>> Integer.SIZE);
+        if (bodyLength != end - position) {
+            throw new IOException("Block body length does not match its record");
+        }
+        if (destination.length - destinationOffset < uncompressedLength) {
+            throw new IOException("Message of " + uncompressedLength + " bytes does not fit in the destination");
+        }
+
+        switch (type) {
+            case BlockCodec.TYPE_HUFFMAN -> {
+                int payload = decoder.readTable(record, position, end);
+                reader.reset(record, payload, end - payload);
+                decoder.decode(reader, destination, destinationOffset, uncompressedLength);
+            }
+            case BlockCodec.TYPE_DICTIONARY -> {
+                if (bodyLength < Integer.BYTES) {
+                    throw new IOException("Record is truncated");
+                }
+                int id = 0;
+                for (int i = 0; i < Integer.BYTES; i++) {
+                    id = (id << 8) | (record[position++] & 0xFF);
+                }
+                reader.reset(record, position, end - position);
+                dictionary(id).decoder().decode(reader, destination, destinationOffset, uncompressedLength);
+            }
+            case BlockCodec.TYPE_STORED -> {
+                if (bodyLength != uncompressedLength) {
+                    throw new IOException("Stored block length does not match its body");
+                }
+                System.arraycopy(record, position, destination, destinationOffset, bodyLength);
+            }
+            default -> {
+                if (codec == null) {
+                    codec = new BlockCodec();
+                }
+                codec.decodeBody(type, record, position, bodyLength, destination, destinationOffset,
+                        uncompressedLength);
+            }
+        }
+        return uncompressedLength;
+    }
+
+    private HuffmanDictionary dictionary(int id) throws IOException {
+        for (HuffmanDictionary dictionary : dictionaries) {
+            if (dictionary.id() == id) {
+                return dictionary;
+            }
+        }
+        throw new IOException(String.format("Record was coded with unknown dictionary %08x", id));
+    }
+}
@@ -1,24 +1,49 @@
 package org.example;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.PushbackInputStream;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.Map;
-
+import java.util.Objects;
+
+/**
+ * Decompresses files written by {@link CompressionEngine} and
+ * {@link BlockCompressionEngine}. Single-stream files are read through memory
+ * mappings; byte-symbol payloads are written through a direct buffer into a
+ * file channel, and stored payloads are copied from the mapping unchanged.
+ * Framed streams written by {@link HuffmanOutputStream} are decoded block by
+ * block and adaptive streams written by {@link AdaptiveHuffmanOutputStream}
+ * symbol by symbol.
+ */
 public class DecompressionEngine {
 
+    private static final int OUTPUT_BLOCK_SIZE = 8192;
+    private static final int BYTE_OUTPUT_BUFFER_SIZE = 1 << 20;
+    // Magic number and version byte of a stream header
+    private static final int STREAM_HEADER_PEEK = 5;
+
     private final HeaderReader headerReader;
     private final HuffmanTreeBuilder treeBuilder;
+    private final HuffmanCodeGenerator codeGenerator;
+    private final BlockDecompressionEngine blockDecompressionEngine;
 
     public DecompressionEngine() {
         this.headerReader = new HeaderReader();
         this.treeBuilder = new HuffmanTreeBuilder();
+        this.codeGenerator = new HuffmanCodeGenerator();
+        this.blockDecompressionEngine = new BlockDecompressionEngine();
     }
 
     public void decompress(Path inputPath, Path outputPath) throws IOException, IllegalArgumentException {
@@ -31,51 +56,200 @@ public class DecompressionEngine {
             throw new IllegalArgumentException("Input file does not exist or is not a regular file: " + inputPath);
         }
 
-        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(inputPath))); Writer output = new OutputStreamWriter(new BufferedOutputStream(Files.newOutputStream(outputPath)), StandardCharsets.UTF_8)) {
+        if (BlockIndex.isBlockContainer(inputPath)) {
+            blockDecompressionEngine.decompress(inputPath, outputPath);
+            return;
+        }
+        if (HuffmanInputStream.isFramedStream(inputPath) || AdaptiveHuffmanInputStream.isAdaptiveStream(inputPath)) {
+            try (InputStream input = Files.newInputStream(inputPath);
+                    OutputStream output = Files.newOutputStream(outputPath)) {
+                decompress(input, output);
+            }
+            return;
+        }
 
-            Map<Character, Long> frequencies = headerReader.readHeader(input);
+        try (MappedInputStream mapped = new MappedInputStream(inputPath);
+                DataInputStream input = new DataInputStream(mapped)) {
 
-            HuffmanNode root = treeBuilder.buildTree(frequencies);
+            HeaderReader.Header header = headerReader.readHeader(input);
+            if (header.isStored()) {
+                long totalBits = input.readLong();
+                input.readByte();
+                if (totalBits % Byte.SIZE != 0) {
+                    throw new IOException("Stored payload is not a whole number of bytes");
+                }
+                try (FileChannel output = FileChannel.open(outputPath, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    copyStored(mapped, totalBits / Byte.SIZE, output);
+                }
+                return;
+            }
+
+            Map<Character, String> codes;
+            if (header.isCanonical()) {
+                codes = codeGenerator.generateCanonicalCodes(header.codeLengths());
+            } else {
+                codes = codeGenerator.generateCodes(treeBuilder.buildTree(header.frequencies()));
+            }
 
             long totalBits = input.readLong();
             int padding = input.readByte();
-            if (root.isLeaf()) {
-                for (long i = 0; i < totalBits; i++) {
-                    output.write(root.character);
+            if (header.isByteSymbols()) {
+                try (FileChannel output = FileChannel.open(outputPath, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    decodeBytes(new BitReader(input), codes, totalBits, output);
                 }
-            } else {
-                HuffmanNode currentNode = root;
-                long bitsRead = 0;
-
-                while (bitsRead < totalBits) {
-
-                    int currentByte = input.read();
-                    if (currentByte == -1) {
-                        throw new IOException("Unexpected end of file while reading compressed data");
-                    }
-                    for (int bitIndex = 7; bitIndex >= 0; bitIndex--) {
-                        if (bitsRead >= totalBits) {
-                            break;
-                        }
-
-                        int bit = (currentByte >> bitIndex) & 1;
-                        if (bit == 0) {
-                            currentNode = currentNode.left;
-                        } else {
-                            currentNode = currentNode.right;
-                        }
-
-                        if (currentNode.isLeaf()) {
-                            output.write(currentNode.character);
-                            currentNode = root;
-                        }
-
-                        bitsRead++;
-                    }
+                return;
+            }
+
+            try (Writer output = new OutputStreamWriter(new BufferedOutputStream(Files.newOutputStream(outputPath)), StandardCharsets.UTF_8)) {
+                if (codes.size() == 1) {
+                    Map.Entry<Character, String> only = codes.entrySet().iterator().next();
+                    writeRepeated(output, only.getKey(), totalBits / only.getValue().length());
+                } else {
+                    decodeSymbols(new BitReader(input), HuffmanDecodingTable.fromCodes(codes), totalBits, output);
                 }
             }
         } catch (Exception e) {
             throw new IOException("Error during decompression: " + e.getMessage(), e);
         }
     }
+
+    /**
+     * Decompresses a framed or adaptive stream from {@code input} into
+     * {@code output}, picking the decoder from the stream header. Neither
+     * stream is closed.
+     *
+     * @param input Source of the compressed stream
+     * @param output Destination of the decompressed data
+     * @return the number of decompressed bytes
+     * @throws IOException if an I/O error occurs or the stream is malformed
+     */
+    public long decompress(InputStream input, OutputStream output) throws IOException {
+        Objects.requireNonNull(input, "Input cannot be null");
+        Objects.requireNonNull(output, "Output cannot be null");
+        PushbackInputStream source = new PushbackInputStream(input, STREAM_HEADER_PEEK);
+        byte[] header = source.readNBytes(STREAM_HEADER_PEEK);
+        source.unread(header);
+        if (header.length == STREAM_HEADER_PEEK && header[STREAM_HEADER_PEEK - 1] == AdaptiveHuffmanOutputStream.VERSION) {
+            return copyAndFlush(new AdaptiveHuffmanInputStream(source), output);
+        }
+        return new HuffmanInputStream(source).transferTo(output);
+    }
+
+    /**
+     * Copies decoded data, flushing whenever the decoder has caught up with
+     * its input so piped output follows the compressed stream closely.
+     */
+    private static long copyAndFlush(InputStream input, OutputStream output) throws IOException {
+        byte[] chunk = new byte[OUTPUT_BLOCK_SIZE];
+        long count = 0;
+        int read;
+        while ((read = input.read(chunk)) != -1) {
+            output.write(chunk, 0, read);
+            count += read;
+            if (read < chunk.length) {
+                output.flush();
+            }
+        }
+        output.flush();
+        return count;
+    }
+
+    /**
+     * Decodes a byte-symbol payload into a reusable direct buffer that is
+     * flushed to the output channel whenever it fills up.
+     */
+    private void decodeBytes(BitReader reader, Map<Character, String> codes, long totalBits, FileChannel output)
+            throws IOException {
+        for (char symbol : codes.keySet()) {
+            if (symbol > 0xFF) {
+                throw new IOException("Invalid symbol in byte payload: " + (int) symbol);
+            }
+        }
+
+        ByteBuffer block = ByteBuffer.allocateDirect(BYTE_OUTPUT_BUFFER_SIZE);
+        if (codes.size() == 1) {
+            Map.Entry<Character, String> only = codes.entrySet().iterator().next();
+            while (block.hasRemaining()) {
+                block.put((byte) only.getKey().charValue());
+            }
+            for (long remaining = totalBits / only.getValue().length(); remaining > 0; remaining -= block.limit()) {
+                block.position(0).limit((int) Math.min(block.capacity(), remaining));
+                while (block.hasRemaining()) {
+                    output.write(block);
+                }
+            }
+            return;
+        }
+
+        HuffmanDecodingTable table = HuffmanDecodingTable.fromCodes(codes);
+        while (reader.bitsConsumed() < totalBits) {
+            if (!block.hasRemaining()) {
+                flush(block, output);
+            }
+            block.put((byte) table.decode(reader));
+        }
+        if (reader.bitsConsumed() != totalBits) {
+            throw new IOException("Last code runs past the declared payload length");
+        }
+        flush(block, output);
+    }
+
+    /**
+     * Copies a stored payload straight from the mapped windows of the input
+     * to the output channel.
+     */
+    private static void copyStored(MappedInputStream input, long length, FileChannel output) throws IOException {
+        long remaining = length;
+        ByteBuffer window;
+        while (remaining > 0 && (window = input.nextWindow()) != null) {
+            ByteBuffer slice = window.slice(window.position(), (int) Math.min(window.remaining(), remaining));
+            window.position(window.position() + slice.remaining());
+            remaining -= slice.remaining();
+            while (slice.hasRemaining()) {
+                output.write(slice);
+            }
+        }
+        if (remaining > 0) {
+            throw new IOException("Stored payload is truncated");
+        }
+    }
+
+    private static void flush(ByteBuffer block, FileChannel output) throws IOException {
+        block.flip();
+        while (block.hasRemaining()) {
+            output.write(block);
+        }
+        block.clear();
+    }
+
+    /**
+     * Decodes {@code totalBits} bits of payload through the lookup table and
+     * writes the characters in blocks.
+     */
+    private void decodeSymbols(BitReader reader, HuffmanDecodingTable table, long totalBits, Writer output)
+            throws IOException {
+        char[] block = new char[OUTPUT_BLOCK_SIZE];
+        int count = 0;
+        while (reader.bitsConsumed() < totalBits) {
+            block[count++] = table.decode(reader);
+            if (count == block.length) {
+                output.write(block, 0, count);
+                count = 0;
+            }
+        }
+        if (reader.bitsConsumed() != totalBits) {
+            throw new IOException("Last code runs past the declared payload length");
+        }
+        output.write(block, 0, count);
+    }
+
+    private void writeRepeated(Writer output, char character, long count) throws IOException {
+        char[] block = new char[(int) Math.min(OUTPUT_BLOCK_SIZE, count)];
+        Arrays.fill(block, character);
+        for (long remaining = count; remaining > 0; remaining -= block.length) {
+            output.write(block, 0, (int) Math.min(block.length, remaining));
+        }
+    }
 }
@@ -1,5 +1,6 @@
 package org.example;
 
+import java.io.DataInput;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.util.HashMap;
@@ -10,8 +11,18 @@ public class HeaderReader {
     private static final int MAGIC_NUMBER = 0xC0DE;
     private static final int END_HEADER_MARKER = 0x454E44;
     private static final byte VERSION = 1;
+    private static final byte CANONICAL_VERSION = 2;
+    private static final int KNOWN_FLAGS = HeaderWriter.BYTE_SYMBOLS_FLAG | HeaderWriter.STORED_FLAG;
 
-    public Map<Character, Long> readHeader(DataInputStream input) throws IOException {
+    /**
+     * Reads a header, dispatching on its version byte. Version 1 headers yield
+     * a frequency table, version 2 headers yield canonical code lengths.
+     *
+     * @param input The stream positioned at the magic number
+     * @return the decoded header
+     * @throws IOException if the header is malformed or unsupported
+     */
+    public Header readHeader(DataInputStream input) throws IOException {
 
         int magicNumber = input.readInt();
         if (magicNumber != MAGIC_NUMBER) {
@@ -19,10 +30,65 @@ public class HeaderReader {
         }
 
         byte version = input.readByte();
-        if (version != VERSION) {
-            throw new IOException("Unsupported version: " + version);
+        Header header = switch (version) {
+            case VERSION ->
+                new Header(version, 0, readFrequencies(input), Map.of());
+            case CANONICAL_VERSION -> {
+                int flags = input.readUnsignedByte();
+                if ((flags & ~KNOWN_FLAGS) != 0) {
+                    throw new IOException("Unsupported header flags: " + flags);
+                }
+                yield new Header(version, flags, Map.of(), readCodeLengths(input));
+            }
+            default ->
+                throw new IOException("Unsupported version: " + version);
+        };
+
+        int endMarker = input.readInt();
+        if (endMarker != END_HEADER_MARKER) {
+            throw new IOException("Invalid header end marker");
+        }
+        return header;
+    }
+
+    /**
+     * Reads a canonical code length table written by
+     * {@link HeaderWriter#writeCodeLengths}.
+     *
+     * @param input The input positioned at the table
+     * @return Map of characters to code lengths
+     * @throws IOException if the table is malformed
+     */
+    public Map<Character, Integer> readCodeLengths(DataInput input) throws IOException {
+        int maxLength = input.readUnsignedByte();
+        if (maxLength > HuffmanCodeGenerator.MAX_CANONICAL_CODE_LENGTH) {
+            throw new IOException("Invalid maximum code length: " + maxLength);
         }
 
+        int[] counts = new int[maxLength + 1];
+        int total = 0;
+        for (int length = 1; length <= maxLength; length++) {
+            counts[length] = readVarInt(input);
+            total += counts[length];
+            if (total > Character.MAX_VALUE + 1) {
+                throw new IOException("Invalid character count");
+            }
+        }
+
+        Map<Character, Integer> codeLengths = new HashMap<>();
+        for (int length = 1; length <= maxLength; length++) {
+            int symbol = -1;
+            for (int i = 0; i < counts[length]; i++) {
+                symbol += readVarInt(input) + 1;
+                if (symbol > Character.MAX_VALUE || codeLengths.put((char) symbol, length) != null) {
+                    throw new IOException("Invalid symbol in code length table");
+                }
+            }
+        }
+        return codeLengths;
+    }
+
+    private Map<Character, Long> readFrequencies(DataInputStream input) throws IOException {
         int uniqueCharsCount = input.readInt();
         if (uniqueCharsCount < 0) {
             throw new IOException("Invalid character count");
@@ -34,11 +100,74 @@ public class HeaderReader {
             long frequency = input.readLong();
             frequencies.put(character, frequency);
         }
+        return frequencies;
+    }
 
-        int endMarker = input.readInt();
-        if (endMarker != END_HEADER_MARKER) {
-            throw new IOException("Invalid header end marker");
+    /**
+     * Reads an unsigned LEB128 varint written by
+     * {@link HeaderWriter#writeVarInt}.
+     */
+    static int readVarInt(DataInput input) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = input.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0) {
+                    throw new IOException("Varint out of range");
+                }
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Reads a varint like {@link #readVarInt(DataInput)} from a region of an
+     * array, without wrapping it in a stream.
+     *
+     * @param data Array holding the varint
+     * @param position Start of the varint
+     * @param end End of the readable region
+     * @return the value in the low 32 bits and the number of bytes read in
+     * the high 32 bits
+     * @throws IOException if the varint is malformed or runs past {@code end}
+     */
+    static long readVarInt(byte[] data, int position, int end) throws IOException {
+        int value = 0;
+        for (int shift = 0, size = 1; shift < 32; shift += 7, size++) {
+            if (position == end) {
+                throw new IOException("Record is truncated");
+            }
+            int b = data[position++] & 0xFF;
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0) {
+                    throw new IOException("Varint out of range");
+                }
+                return ((long) size << Integer.SIZE) | value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Decoded header. Version 1 headers carry frequencies, version 2 headers
+     * carry canonical code lengths; the other map is empty.
+     */
+    public record Header(byte version, int flags, Map<Character, Long> frequencies,
+            Map<Character, Integer> codeLengths) {
+
+        public boolean isCanonical() {
+            return version == CANONICAL_VERSION;
+        }
+
+        public boolean isByteSymbols() {
+            return (flags & HeaderWriter.BYTE_SYMBOLS_FLAG) != 0;
+        }
+
+        public boolean isStored() {
+            return (flags & HeaderWriter.STORED_FLAG) != 0;
         }
-        return frequencies;
     }
 }
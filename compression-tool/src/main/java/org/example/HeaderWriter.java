@@ -1,20 +1,36 @@
 package org.example;
 
+import java.io.DataOutput;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
- * Writes a header to a compressed file containing the character frequency
- * table. The header format is: - Magic number (4 bytes): 0xC0M1 - Version (1
- * byte): 1 - Number of unique characters (4 bytes, int) - For each character: -
- * Character (2 bytes, char) - Frequency (8 bytes, long)
+ * Writes a header to a compressed file describing the Huffman code.
+ *
+ * <p>Version 1 stores the character frequency table: - Magic number (4 bytes):
+ * 0xC0DE - Version (1 byte): 1 - Number of unique characters (4 bytes, int) -
+ * For each character: - Character (2 bytes, char) - Frequency (8 bytes, long)
+ * - End marker (4 bytes)
+ *
+ * <p>Version 2 stores canonical code lengths instead: - Magic number (4 bytes)
+ * - Version (1 byte): 2 - Flags (1 byte) - Code length table (see
+ * {@link #writeCodeLengths}) - End marker (4 bytes). Flag
+ * {@link #BYTE_SYMBOLS_FLAG} marks a payload coded over raw bytes (symbols
+ * 0-255) instead of UTF-8 decoded characters. Flag {@link #STORED_FLAG} marks
+ * a payload holding the input bytes unchanged, behind an empty code table.
  */
 public class HeaderWriter {
 
     private static final int MAGIC_NUMBER = 0xC0DE; // Magic number
     private static final int END_HEADER_MARKER = 0x454E44; // "END" marker in hex
     private static final byte VERSION = 1;
+    private static final byte CANONICAL_VERSION = 2;
+
+    public static final int BYTE_SYMBOLS_FLAG = 0x01;
+    public static final int STORED_FLAG = 0x02;
 
     /**
      * Writes the header with frequency table to the output stream.
@@ -42,4 +58,104 @@ public class HeaderWriter {
         // Write header end marker
         output.writeInt(END_HEADER_MARKER);
     }
+
+    /**
+     * Writes a version 2 header carrying canonical code lengths.
+     *
+     * @param codeLengths Map of characters to canonical code lengths
+     * @param flags Format flags, 0 for character symbols or a combination of
+     * {@link #BYTE_SYMBOLS_FLAG} and {@link #STORED_FLAG}
+     * @param output The DataOutputStream to write to
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeCanonicalHeader(Map<Character, Integer> codeLengths, int flags, DataOutputStream output)
+            throws IOException {
+        output.writeInt(MAGIC_NUMBER);
+        output.writeByte(CANONICAL_VERSION);
+        output.writeByte(flags);
+        writeCodeLengths(codeLengths, output);
+        output.writeInt(END_HEADER_MARKER);
+    }
+
+    /**
+     * Writes a canonical code length table. The layout is the longest code
+     * length (1 byte), then for every length from 1 to the longest the number
+     * of symbols with that length (varint), then the symbols themselves grouped
+     * by length in ascending order. Within a group the first symbol is written
+     * as a varint and each following one as the varint gap to its predecessor
+     * minus one. Lengths are implied by the grouping, so most symbols cost a
+     * single byte.
+     *
+     * @param codeLengths Map of characters to canonical code lengths
+     * @param output The output to write to
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeCodeLengths(Map<Character, Integer> codeLengths, DataOutput output) throws IOException {
+        int maxLength = 0;
+        for (int length : codeLengths.values()) {
+            if (length < 1 || length > HuffmanCodeGenerator.MAX_CANONICAL_CODE_LENGTH) {
+                throw new IllegalArgumentException("Invalid code length: " + length);
+            }
+            maxLength = Math.max(maxLength, length);
+        }
+
+        List<List<Character>> groups = new ArrayList<>(maxLength + 1);
+        for (int length = 0; length <= maxLength; length++) {
+            groups.add(new ArrayList<>());
+        }
+        for (Map.Entry<Character, Integer> entry : codeLengths.entrySet()) {
+            groups.get(entry.getValue()).add(entry.getKey());
+        }
+
+        output.writeByte(maxLength);
+        for (int length = 1; length <= maxLength; length++) {
+            writeVarInt(groups.get(length).size(), output);
+        }
+        for (int length = 1; length <= maxLength; length++) {
+            List<Character> symbols = groups.get(length);
+            symbols.sort(null);
+            int previous = -1;
+            for (char symbol : symbols) {
+                writeVarInt(symbol - previous - 1, output);
+                previous = symbol;
+            }
+        }
+    }
+
+    /**
+     * Writes a non-negative int as an unsigned LEB128 varint.
+     */
+    static void writeVarInt(int value, DataOutput output) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+    }
+
+    /**
+     * Writes a non-negative int as an unsigned LEB128 varint into an array.
+     *
+     * @return the position after the varint
+     */
+    static int writeVarInt(int value, byte[] destination, int position) {
+        while ((value & ~0x7F) != 0) {
+            destination[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        destination[position++] = (byte) value;
+        return position;
+    }
+
+    /**
+     * Returns the number of bytes {@link #writeVarInt} takes for a value.
+     */
+    static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
 }
@@ -1,11 +1,18 @@
 package org.example;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 public class HuffmanCodeGenerator {
 
+    static final int MAX_CANONICAL_CODE_LENGTH = 63;
+
+    private final LengthLimitedCodeBuilder lengthLimitedBuilder = new LengthLimitedCodeBuilder();
+
     public Map<Character, String> generateCodes(HuffmanNode root) {
         if (root == null) {
             return Collections.emptyMap();
@@ -23,6 +30,97 @@ public class HuffmanCodeGenerator {
         return Map.copyOf(codeMap);
     }
 
+    /**
+     * Returns the depth of every leaf in the tree, which is the length of its
+     * Huffman code. A single-leaf tree gets a one-bit code.
+     *
+     * @param root Root of the Huffman tree
+     * @return Map of characters to code lengths
+     */
+    public Map<Character, Integer> generateCodeLengths(HuffmanNode root) {
+        if (root == null) {
+            return Collections.emptyMap();
+        }
+
+        Map<Character, Integer> lengths = new HashMap<>();
+        if (root.isLeaf()) {
+            lengths.put(root.getCharacter(), 1);
+            return Map.copyOf(lengths);
+        }
+
+        collectLengths(root, 0, lengths);
+        return Map.copyOf(lengths);
+    }
+
+    /**
+     * Returns the code lengths of the tree's leaves, limited to
+     * {@code maxLength} bits. When the tree is deeper than the limit, the
+     * lengths are rebuilt from the leaf frequencies with
+     * {@link LengthLimitedCodeBuilder}, which keeps them optimal under the
+     * limit.
+     *
+     * @param root Root of the Huffman tree
+     * @param maxLength Longest allowed code
+     * @return Map of characters to code lengths
+     * @throws IllegalArgumentException if the tree has more leaves than codes
+     * of {@code maxLength} bits can tell apart
+     */
+    public Map<Character, Integer> generateCodeLengths(HuffmanNode root, int maxLength) {
+        Map<Character, Integer> lengths = generateCodeLengths(root);
+        if (lengths.values().stream().allMatch(length -> length <= maxLength)) {
+            return lengths;
+        }
+
+        List<HuffmanNode> leaves = new ArrayList<>();
+        collectLeaves(root, leaves);
+        long[] weights = new long[leaves.size()];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = Math.max(1, leaves.get(i).getFrequency());
+        }
+        int[] limited = lengthLimitedBuilder.buildCodeLengths(weights, maxLength);
+
+        Map<Character, Integer> result = new HashMap<>();
+        for (int i = 0; i < limited.length; i++) {
+            result.put(leaves.get(i).getCharacter(), limited[i]);
+        }
+        return Map.copyOf(result);
+    }
+
+    /**
+     * Assigns canonical Huffman codes from code lengths. Symbols are ordered
+     * by (length, character) and receive consecutive code values, so the
+     * lengths alone are enough to reproduce the codes.
+     *
+     * @param codeLengths Map of characters to code lengths
+     * @return Map of characters to canonical codes
+     * @throws IllegalArgumentException if a length is out of range or the
+     * lengths do not describe a prefix code
+     */
+    public Map<Character, String> generateCanonicalCodes(Map<Character, Integer> codeLengths) {
+        Objects.requireNonNull(codeLengths, "Code length map cannot be null");
+
+        List<Map.Entry<Character, Integer>> ordered = new ArrayList<>(codeLengths.entrySet());
+        ordered.sort(Map.Entry.<Character, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+
+        Map<Character, String> codeMap = new HashMap<>();
+        long code = 0;
+        int previousLength = 0;
+        for (Map.Entry<Character, Integer> entry : ordered) {
+            int length = entry.getValue();
+            if (length < 1 || length > MAX_CANONICAL_CODE_LENGTH) {
+                throw new IllegalArgumentException("Invalid code length " + length + " for character: " + entry.getKey());
+            }
+            code <<= (length - previousLength);
+            if (Long.compareUnsigned(code, 1L << length) >= 0) {
+                throw new IllegalArgumentException("Code lengths do not describe a prefix code");
+            }
+            codeMap.put(entry.getKey(), toBinary(code, length));
+            code++;
+            previousLength = length;
+        }
+        return Map.copyOf(codeMap);
+    }
+
     private void generate(HuffmanNode node, String code, Map<Character, String> codeMap) {
         if (node == null) {
             return;
@@ -36,4 +134,33 @@ public class HuffmanCodeGenerator {
         generate(node.getLeft(), code + "0", codeMap);
         generate(node.getRight(), code + "1", codeMap);
     }
+
+    private void collectLengths(HuffmanNode node, int depth, Map<Character, Integer> lengths) {
+        if (node.isLeaf()) {
+            lengths.put(node.getCharacter(), depth);
+            return;
+        }
+
+        collectLengths(node.getLeft(), depth + 1, lengths);
+        collectLengths(node.getRight(), depth + 1, lengths);
+    }
+
+    private void collectLeaves(HuffmanNode node, List<HuffmanNode> leaves) {
+        if (node.isLeaf()) {
+            leaves.add(node);
+            return;
+        }
+
+        collectLeaves(node.getLeft(), leaves);
+        collectLeaves(node.getRight(), leaves);
+    }
+
+    private static String toBinary(long code, int length) {
+        char[] bits = new char[length];
+        for (int i = length - 1; i >= 0; i--) {
+            bits[i] = (char) ('0' + (code & 1));
+            code >>>= 1;
+        }
+        return new String(bits);
+    }
 }
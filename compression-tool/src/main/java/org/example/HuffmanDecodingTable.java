@@ -0,0 +1,156 @@
+package org.example;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Multi-level lookup table for decoding Huffman codes several bits at a time.
+ *
+ * <p>The primary table is indexed by the next {@value #PRIMARY_BITS} bits of
+ * the stream, so every code of that length or shorter decodes in a single
+ * probe. Longer codes resolve through secondary tables that are indexed by the
+ * bits following the primary prefix.
+ */
+public class HuffmanDecodingTable {
+
+    static final int PRIMARY_BITS = 10;
+    static final int SECONDARY_BITS = 8;
+
+    private static final int SYMBOL_SHIFT = 8;
+    private static final int LENGTH_MASK = 0xFF;
+
+    private final int bits;
+    private final int[] entries;
+    private final HuffmanDecodingTable[] subTables;
+
+    private HuffmanDecodingTable(int bits, int[] entries, HuffmanDecodingTable[] subTables) {
+        this.bits = bits;
+        this.entries = entries;
+        this.subTables = subTables;
+    }
+
+    /**
+     * Builds a decoding table from a prefix-free code map.
+     *
+     * @param codes Map of characters to their Huffman codes
+     * @return the decoding table
+     * @throws IllegalArgumentException if the map is empty or contains an
+     * empty code
+     */
+    public static HuffmanDecodingTable fromCodes(Map<Character, String> codes) {
+        Objects.requireNonNull(codes, "Code map cannot be null");
+        if (codes.isEmpty()) {
+            throw new IllegalArgumentException("Code map cannot be empty");
+        }
+        int alphabetSize = 0;
+        for (Map.Entry<Character, String> entry : codes.entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                throw new IllegalArgumentException("Empty code for character: " + entry.getKey());
+            }
+            alphabetSize = Math.max(alphabetSize, entry.getKey() + 1);
+        }
+        return build(PackedCodes.fromCodes(codes, alphabetSize));
+    }
+
+    /**
+     * Builds a decoding table for the canonical codes of the given lengths
+     * (see {@link PackedCodes#fromLengths}).
+     *
+     * @param lengths Code length of every symbol, 0 for symbols without a
+     * code
+     * @return the decoding table
+     * @throws IllegalArgumentException if no symbol has a code or the lengths
+     * do not describe a prefix code
+     */
+    public static HuffmanDecodingTable fromLengths(int[] lengths) {
+        PackedCodes codes = PackedCodes.fromLengths(lengths);
+        for (int length : lengths) {
+            if (length > 0) {
+                return build(codes);
+            }
+        }
+        throw new IllegalArgumentException("Code lengths cannot be empty");
+    }
+
+    private static HuffmanDecodingTable build(PackedCodes codes) {
+        List<Integer> symbols = new ArrayList<>();
+        for (int symbol = 0; symbol < codes.getAlphabetSize(); symbol++) {
+            if (codes.getLength(symbol) > 0) {
+                symbols.add(symbol);
+            }
+        }
+        return build(codes, symbols, 0, PRIMARY_BITS);
+    }
+
+    /**
+     * Builds the table for the bits after the first {@code consumed} of the
+     * given symbols' codes, which share those bits.
+     */
+    private static HuffmanDecodingTable build(PackedCodes codes, List<Integer> symbols, int consumed, int maxBits) {
+        int longest = 0;
+        for (int symbol : symbols) {
+            longest = Math.max(longest, codes.getLength(symbol) - consumed);
+        }
+        int bits = Math.min(maxBits, longest);
+        int[] entries = new int[1 << bits];
+
+        Map<Integer, List<Integer>> overflow = new TreeMap<>();
+        for (int symbol : symbols) {
+            int remaining = codes.getLength(symbol) - consumed;
+            long rest = codes.getCode(symbol) & (-1L >>> (Long.SIZE - remaining));
+            if (remaining <= bits) {
+                int prefix = (int) rest;
+                int first = prefix << (bits - remaining);
+                int last = (prefix + 1) << (bits - remaining);
+                int leaf = (symbol << SYMBOL_SHIFT) | remaining;
+                for (int index = first; index < last; index++) {
+                    entries[index] = leaf;
+                }
+            } else {
+                int prefix = (int) (rest >>> (remaining - bits));
+                overflow.computeIfAbsent(prefix, ignored -> new ArrayList<>()).add(symbol);
+            }
+        }
+
+        List<HuffmanDecodingTable> subTables = new ArrayList<>(overflow.size());
+        for (Map.Entry<Integer, List<Integer>> group : overflow.entrySet()) {
+            entries[group.getKey()] = ~subTables.size();
+            subTables.add(build(codes, group.getValue(), consumed + bits, SECONDARY_BITS));
+        }
+        return new HuffmanDecodingTable(bits, entries, subTables.toArray(new HuffmanDecodingTable[0]));
+    }
+
+    /**
+     * Decodes the next symbol from the bit stream.
+     *
+     * @param reader The bit stream positioned at the start of a code
+     * @return the decoded character
+     * @throws IOException if the stream ends mid-code or holds an unknown code
+     */
+    char decode(BitReader reader) throws IOException {
+        HuffmanDecodingTable table = this;
+        while (true) {
+            int entry = table.entries[reader.peek(table.bits)];
+            if (entry > 0) {
+                reader.skip(entry & LENGTH_MASK);
+                return (char) (entry >>> SYMBOL_SHIFT);
+            }
+            if (entry == 0) {
+                throw new IOException("Invalid Huffman code in compressed data");
+            }
+            reader.skip(table.bits);
+            table = table.subTables[~entry];
+        }
+    }
+
+    /**
+     * Returns the number of bits indexing the primary table.
+     */
+    public int getPrimaryBits() {
+        return bits;
+    }
+}
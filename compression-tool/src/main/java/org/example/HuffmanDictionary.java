@@ -0,0 +1,150 @@
+package org.example;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Static code table trained on sample messages and shared by the compressor
+ * and decompressor ahead of time, so that small messages neither carry a
+ * code table nor pay for building one. {@link CompressionContext} codes a
+ * message with the dictionary into a record that names it by {@link #id()},
+ * and {@link DecompressionContext} looks the dictionary up by that id.
+ *
+ * <p>Training gives every byte value a code, rare or unseen ones included,
+ * so any message can be coded; messages the table suits badly are stored
+ * instead. A persisted dictionary is laid out as: - Magic number (4 bytes):
+ * 0xC0DE - Version (1 byte): 6 - Code length table (see
+ * {@link HeaderWriter#writeCodeLengths}). The id is the CRC32C of the table,
+ * so a message cannot be decoded with a different table by mistake.
+ *
+ * <p>A dictionary is immutable and can be shared between threads.
+ */
+public final class HuffmanDictionary {
+
+    static final byte VERSION = 6;
+
+    private static final int SYMBOLS = CharacterFrequencyCounter.BYTE_SYMBOLS;
+
+    private final int[] lengths;
+    private final long[] codes;
+    private final byte[] table;
+    private final int id;
+    private final CanonicalDecoder decoder;
+
+    private HuffmanDictionary(Map<Character, Integer> codeLengths) throws IOException {
+        this.lengths = new int[SYMBOLS];
+        for (Map.Entry<Character, Integer> entry : codeLengths.entrySet()) {
+            char symbol = entry.getKey();
+            if (symbol >= SYMBOLS) {
+                throw new IOException("Invalid symbol in dictionary: " + (int) symbol);
+            }
+            lengths[symbol] = entry.getValue();
+        }
+        PackedCodes canonical;
+        try {
+            canonical = PackedCodes.fromLengths(lengths);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid code length table: " + e.getMessage(), e);
+        }
+        this.codes = new long[SYMBOLS];
+        for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+            codes[symbol] = canonical.getCode(symbol);
+        }
+
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        new HeaderWriter().writeCodeLengths(codeLengths, new DataOutputStream(serialized));
+        this.table = serialized.toByteArray();
+        this.id = BlockCodec.checksum(table, 0, table.length);
+        this.decoder = new CanonicalDecoder();
+        decoder.setLengths(lengths);
+    }
+
+    /**
+     * Trains a dictionary on messages like the ones it will code.
+     *
+     * @param samples Sample messages; they are only read
+     * @return the dictionary
+     */
+    public static HuffmanDictionary train(Iterable<byte[]> samples) {
+        Objects.requireNonNull(samples, "Samples cannot be null");
+        long[] counts = new long[SYMBOLS];
+        // Every byte value starts at one so that none is left without a code
+        Arrays.fill(counts, 1);
+        for (byte[] sample : samples) {
+            for (byte b : sample) {
+                counts[b & 0xFF]++;
+            }
+        }
+        int[] trained = new CodeLengthBuilder().buildCodeLengths(counts,
+                LengthLimitedCodeBuilder.DEFAULT_MAX_CODE_LENGTH);
+        try {
+            return new HuffmanDictionary(CodeLengthBuilder.toMap(trained));
+        } catch (IOException e) {
+            throw new IllegalStateException("Trained code lengths are invalid", e);
+        }
+    }
+
+    /**
+     * Reads a dictionary written by {@link #write}.
+     *
+     * @param input Stream positioned at the dictionary; it is not closed
+     * @return the dictionary
+     * @throws IOException if the dictionary is malformed
+     */
+    public static HuffmanDictionary read(InputStream input) throws IOException {
+        DataInputStream data = new DataInputStream(input);
+        if (data.readInt() != BlockIndex.MAGIC_NUMBER) {
+            throw new IOException("Invalid magic number");
+        }
+        byte version = data.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported dictionary version: " + version);
+        }
+        Map<Character, Integer> codeLengths = new HeaderReader().readCodeLengths(data);
+        if (codeLengths.isEmpty()) {
+            throw new IOException("Dictionary has no code table");
+        }
+        return new HuffmanDictionary(codeLengths);
+    }
+
+    /**
+     * Persists the dictionary.
+     *
+     * @param output Destination; it is flushed but not closed
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(OutputStream output) throws IOException {
+        DataOutputStream data = new DataOutputStream(output);
+        data.writeInt(BlockIndex.MAGIC_NUMBER);
+        data.writeByte(VERSION);
+        data.write(table);
+        data.flush();
+    }
+
+    /**
+     * Returns the identifier stored in the records coded with this
+     * dictionary.
+     */
+    public int id() {
+        return id;
+    }
+
+    int[] lengths() {
+        return lengths;
+    }
+
+    long[] codes() {
+        return codes;
+    }
+
+    CanonicalDecoder decoder() {
+        return decoder;
+    }
+}
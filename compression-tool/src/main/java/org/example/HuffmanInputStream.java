@@ -0,0 +1,198 @@
+package org.example;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Input stream that decompresses a framed stream written by
+ * {@link HuffmanOutputStream}. Blocks are decoded one at a time as the reader
+ * consumes them, so memory stays bounded by the block size. Block checksums,
+ * when the stream has them, are verified before a block is handed out. Nothing
+ * past the end of blocks marker is read from the underlying stream.
+ */
+public class HuffmanInputStream extends FilterInputStream {
+
+    // Bounds a body before allocating it: at most one 64-bit code per byte plus the code length table
+    private static final int MAX_BODY_EXPANSION = 8;
+    private static final int MAX_TABLE_SIZE = 1024;
+
+    private final DataInputStream input;
+    private final BlockCodec codec;
+    private final byte[] block;
+    private final boolean checksums;
+    private byte[] body = new byte[0];
+    private int position;
+    private int limit;
+    private boolean endOfStream;
+    private boolean closed;
+
+    /**
+     * Reads and validates the stream header right away.
+     *
+     * @param input Source of the compressed stream
+     * @throws IOException if the header is missing or malformed
+     */
+    public HuffmanInputStream(InputStream input) throws IOException {
+        super(Objects.requireNonNull(input, "Input cannot be null"));
+        this.input = new DataInputStream(input);
+        this.codec = new BlockCodec();
+
+        try {
+            if (this.input.readInt() != BlockIndex.MAGIC_NUMBER) {
+                throw new IOException("Invalid magic number");
+            }
+            byte version = this.input.readByte();
+            if (version != HuffmanOutputStream.VERSION) {
+                throw new IOException("Unsupported version: " + version);
+            }
+            int flags = this.input.readUnsignedByte();
+            if ((flags & ~BlockIndex.CHECKSUM_FLAG) != 0) {
+                throw new IOException("Unsupported stream flags: " + flags);
+            }
+            this.checksums = (flags & BlockIndex.CHECKSUM_FLAG) != 0;
+            int blockSize = this.input.readInt();
+            if (blockSize <= 0 || blockSize > BlockCompressionEngine.MAX_BLOCK_SIZE) {
+                throw new IOException("Invalid block size: " + blockSize);
+            }
+            this.block = new byte[blockSize];
+        } catch (EOFException e) {
+            throw new IOException("Unexpected end of file while reading stream header", e);
+        }
+    }
+
+    /**
+     * Returns a channel that reads the decompressed content of
+     * {@code channel}. Closing the returned channel closes {@code channel}.
+     *
+     * @param channel Source of the compressed stream
+     * @return the decompressing channel
+     * @throws IOException if the header is missing or malformed
+     */
+    public static ReadableByteChannel newChannel(ReadableByteChannel channel) throws IOException {
+        return Channels.newChannel(new HuffmanInputStream(Channels.newInputStream(channel)));
+    }
+
+    /**
+     * Checks whether a file starts with a framed stream header.
+     *
+     * @param path File to inspect
+     * @return true if the file is a framed stream
+     * @throws IOException if an I/O error occurs
+     */
+    public static boolean isFramedStream(Path path) throws IOException {
+        try (DataInputStream input = new DataInputStream(Files.newInputStream(path))) {
+            return input.readInt() == BlockIndex.MAGIC_NUMBER && input.readByte() == HuffmanOutputStream.VERSION;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        ensureOpen();
+        if (position == limit && !readBlock()) {
+            return -1;
+        }
+        return block[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] data, int offset, int length) throws IOException {
+        Objects.checkFromIndexSize(offset, length, data.length);
+        ensureOpen();
+        if (length == 0) {
+            return 0;
+        }
+        if (position == limit && !readBlock()) {
+            return -1;
+        }
+        int chunk = Math.min(length, limit - position);
+        System.arraycopy(block, position, data, offset, chunk);
+        position += chunk;
+        return chunk;
+    }
+
+    @Override
+    public long skip(long count) throws IOException {
+        ensureOpen();
+        long skipped = 0;
+        while (skipped < count && (position < limit || readBlock())) {
+            int chunk = (int) Math.min(count - skipped, limit - position);
+            position += chunk;
+            skipped += chunk;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        ensureOpen();
+        return limit - position;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            in.close();
+        }
+    }
+
+    /**
+     * Decodes the next block record into the block buffer.
+     *
+     * @return false once the end of blocks marker has been read
+     */
+    private boolean readBlock() throws IOException {
+        if (endOfStream) {
+            return false;
+        }
+        try {
+            int type = input.readUnsignedByte();
+            if (type == BlockCodec.END_OF_BLOCKS) {
+                endOfStream = true;
+                return false;
+            }
+            int uncompressedLength = HeaderReader.readVarInt(input);
+            int bodyLength = HeaderReader.readVarInt(input);
+            if (uncompressedLength <= 0 || uncompressedLength > block.length) {
+                throw new IOException("Invalid block length: " + uncompressedLength);
+            }
+            if (bodyLength < 0 || bodyLength > MAX_BODY_EXPANSION * uncompressedLength + MAX_TABLE_SIZE) {
+                throw new IOException("Invalid block body length: " + bodyLength);
+            }
+            if (body.length < bodyLength) {
+                body = new byte[bodyLength];
+            }
+            input.readFully(body, 0, bodyLength);
+            codec.decodeBody(type, body, 0, bodyLength, block, 0, uncompressedLength);
+            if (checksums) {
+                BlockCodec.verifyChecksum(input.readInt(), block, 0, uncompressedLength);
+            }
+            position = 0;
+            limit = uncompressedLength;
+            return true;
+        } catch (EOFException e) {
+            throw new IOException("Unexpected end of file while reading compressed data", e);
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
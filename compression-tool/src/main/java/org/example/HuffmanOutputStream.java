@@ -0,0 +1,180 @@
+package org.example;
+
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Objects;
+
+/**
+ * Output stream that compresses the data written to it into a framed stream.
+ * Input is collected into blocks that are coded with {@link BlockCodec} and
+ * written as soon as they fill up, so memory stays bounded by the block size
+ * and compressed data leaves while the input is still being produced.
+ *
+ * <p>A framed stream is laid out as: - Magic number (4 bytes): 0xC0DE -
+ * Version (1 byte): 4 - Flags (1 byte) - Block size (4 bytes, int) - Block
+ * records (see {@link BlockCodec}) - End of blocks marker (1 byte): 0xFF. The
+ * flags are those of a block container: {@link BlockIndex#CHECKSUM_FLAG}
+ * adds a CRC32C to every record.
+ *
+ * <p>Unlike a block container there is no index, so the stream can be written
+ * in one pass to a socket or pipe. Read it back with {@link HuffmanInputStream}.
+ */
+public class HuffmanOutputStream extends FilterOutputStream {
+
+    static final byte VERSION = 4;
+    public static final int DEFAULT_BLOCK_SIZE = 256 << 10;
+
+    private final DataOutputStream output;
+    private final BlockCodec codec;
+    private final byte[] block;
+    private int count;
+    private boolean finished;
+    private boolean closed;
+
+    public HuffmanOutputStream(OutputStream output) throws IOException {
+        this(output, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Writes the stream header right away.
+     *
+     * @param output Destination of the compressed stream
+     * @param blockSize Number of input bytes per block
+     * @throws IOException if writing the header fails
+     */
+    public HuffmanOutputStream(OutputStream output, int blockSize) throws IOException {
+        this(output, CompressionLevel.FAST.withBlockSize(blockSize));
+    }
+
+    /**
+     * Writes the stream header right away.
+     *
+     * @param output Destination of the compressed stream
+     * @param level Level whose block size and encoding are used
+     * @throws IOException if writing the header fails
+     */
+    public HuffmanOutputStream(OutputStream output, CompressionLevel level) throws IOException {
+        this(output, level, false);
+    }
+
+    /**
+     * Writes the stream header right away.
+     *
+     * @param output Destination of the compressed stream
+     * @param level Level whose block size and encoding are used
+     * @param checksums Whether every block carries a CRC32C of its data
+     * @throws IOException if writing the header fails
+     */
+    public HuffmanOutputStream(OutputStream output, CompressionLevel level, boolean checksums) throws IOException {
+        super(Objects.requireNonNull(output, "Output cannot be null"));
+        Objects.requireNonNull(level, "Compression level cannot be null");
+        int blockSize = level.blockSize();
+        this.output = new DataOutputStream(output);
+        this.codec = new BlockCodec(level, checksums);
+        this.block = new byte[blockSize];
+
+        this.output.writeInt(BlockIndex.MAGIC_NUMBER);
+        this.output.writeByte(VERSION);
+        this.output.writeByte(checksums ? BlockIndex.CHECKSUM_FLAG : 0);
+        this.output.writeInt(blockSize);
+    }
+
+    /**
+     * Returns a channel that compresses what is written to it into
+     * {@code channel}. Closing the returned channel finishes the stream and
+     * closes {@code channel}.
+     *
+     * @param channel Destination of the compressed stream
+     * @return the compressing channel
+     * @throws IOException if writing the header fails
+     */
+    public static WritableByteChannel newChannel(WritableByteChannel channel) throws IOException {
+        return Channels.newChannel(new HuffmanOutputStream(Channels.newOutputStream(channel)));
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (count == block.length) {
+            writeBlock();
+        }
+        block[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) throws IOException {
+        Objects.checkFromIndexSize(offset, length, data.length);
+        ensureOpen();
+        while (length > 0) {
+            if (count == block.length) {
+                writeBlock();
+            }
+            int chunk = Math.min(length, block.length - count);
+            System.arraycopy(data, offset, block, count, chunk);
+            count += chunk;
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    /**
+     * Compresses the buffered input as a short block and flushes the
+     * underlying stream, so everything written so far can be decoded by the
+     * reader. Frequent flushes produce small blocks and cost compression.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        writeBlock();
+        output.flush();
+    }
+
+    /**
+     * Writes the remaining input and the end of blocks marker without closing
+     * the underlying stream. Further writes are rejected.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        writeBlock();
+        output.writeByte(BlockCodec.END_OF_BLOCKS);
+        output.flush();
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (count == 0) {
+            return;
+        }
+        output.write(codec.encode(block, 0, count));
+        count = 0;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (finished) {
+            throw new IOException("Stream is finished");
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.example;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Positional reads and task waits shared by the engines that read files in
+ * parts or process them on an executor.
+ */
+final class IoSupport {
+
+    private IoSupport() {
+    }
+
+    /**
+     * Reads {@code length} bytes at a position of a channel.
+     *
+     * @return a buffer holding the bytes, positioned at its start
+     * @throws EOFException if the channel ends first
+     * @throws IOException if an I/O error occurs
+     */
+    static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new EOFException("Unexpected end of file at offset " + (position + buffer.position()));
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Waits for a task, rethrowing its I/O or runtime failure as is.
+     */
+    static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a task");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            // ForkJoinPool hands back checked exceptions of callables wrapped in plain RuntimeExceptions
+            while (cause.getClass() == RuntimeException.class && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException("Error in task: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Waits until every task has finished, even after one has failed, and
+     * then rethrows the failure of the first task in list order that failed.
+     * Tasks are not cancelled, since interrupting a task that reads a shared
+     * {@link FileChannel} closes the channel under the others; tasks should
+     * instead check {@code failed} before starting their work.
+     *
+     * @param tasks Tasks to wait for
+     * @param failed Set when the caller is interrupted, so that tasks not yet
+     * started can skip their work
+     * @throws InterruptedIOException if the caller was interrupted and no task
+     * failed; the interrupt status is restored
+     * @throws IOException if a task failed
+     */
+    static void awaitAll(List<? extends Future<?>> tasks, AtomicBoolean failed) throws IOException {
+        boolean interrupted = false;
+        for (Future<?> task : tasks) {
+            while (!task.isDone()) {
+                try {
+                    task.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    failed.set(true);
+                } catch (ExecutionException | CancellationException e) {
+                    // Reported below, once every task has finished
+                }
+            }
+        }
+        try {
+            for (Future<?> task : tasks) {
+                await(task);
+            }
+            if (interrupted) {
+                throw new InterruptedIOException("Interrupted while waiting for tasks");
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
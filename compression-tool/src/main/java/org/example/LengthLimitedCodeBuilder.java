@@ -0,0 +1,121 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * Builds optimal prefix code lengths under a maximum code length with the
+ * package-merge algorithm. Bounding the length keeps every code inside a
+ * fixed-width bit accumulator and bounds the depth of the decoding tables.
+ *
+ * <p>Package-merge works on one list per allowed length. The deepest list
+ * holds the symbols sorted by weight; every shallower list merges the symbols
+ * with "packages" formed by pairing adjacent items of the list below. The
+ * cheapest {@code 2n - 2} items of the shallowest list select the solution, and
+ * a symbol's code length is the number of lists in which it is selected.
+ */
+public class LengthLimitedCodeBuilder {
+
+    /**
+     * Default limit: every code fits the primary table plus one secondary
+     * table of {@link HuffmanDecodingTable}.
+     */
+    public static final int DEFAULT_MAX_CODE_LENGTH =
+            HuffmanDecodingTable.PRIMARY_BITS + HuffmanDecodingTable.SECONDARY_BITS;
+
+    /**
+     * Computes code lengths that minimize the total coded size while keeping
+     * every length at or below {@code maxLength}.
+     *
+     * @param weights Symbol weights, all positive
+     * @param maxLength Longest allowed code, 1 to 63
+     * @return the code length of every symbol, in the order of {@code weights}
+     * @throws IllegalArgumentException if a weight is not positive, the limit
+     * is out of range, or there are more than {@code 2^maxLength} symbols
+     */
+    public int[] buildCodeLengths(long[] weights, int maxLength) {
+        Objects.requireNonNull(weights, "Weights cannot be null");
+        if (maxLength < 1 || maxLength > HuffmanCodeGenerator.MAX_CANONICAL_CODE_LENGTH) {
+            throw new IllegalArgumentException("Maximum code length must be between 1 and "
+                    + HuffmanCodeGenerator.MAX_CANONICAL_CODE_LENGTH + ": " + maxLength);
+        }
+        int symbols = weights.length;
+        for (long weight : weights) {
+            if (weight <= 0) {
+                throw new IllegalArgumentException("Weights must be positive: " + weight);
+            }
+        }
+        if (maxLength < Long.SIZE - 1 && symbols > (1L << maxLength)) {
+            throw new IllegalArgumentException(
+                    symbols + " symbols cannot be coded with codes of at most " + maxLength + " bits");
+        }
+        if (symbols <= 1) {
+            int[] lengths = new int[symbols];
+            Arrays.fill(lengths, 1);
+            return lengths;
+        }
+
+        Integer[] order = new Integer[symbols];
+        for (int i = 0; i < symbols; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> weights[i]));
+        long[] sorted = new long[symbols];
+        for (int i = 0; i < symbols; i++) {
+            sorted[i] = weights[order[i]];
+        }
+
+        // No optimal code is deeper than symbols - 1, so further lists would change nothing
+        int levels = Math.min(maxLength, symbols - 1);
+
+        // packaged[level][k] tells whether item k of that list is a package; level 0 is the deepest list
+        boolean[][] packaged = new boolean[levels][];
+        packaged[0] = new boolean[symbols];
+        long[] previous = sorted;
+        for (int level = 1; level < levels; level++) {
+            int packages = previous.length / 2;
+            long[] current = new long[symbols + packages];
+            boolean[] kinds = new boolean[symbols + packages];
+            int leaf = 0;
+            int pair = 0;
+            for (int k = 0; k < current.length; k++) {
+                long packageWeight = pair < packages ? previous[2 * pair] + previous[2 * pair + 1] : Long.MAX_VALUE;
+                if (leaf < symbols && sorted[leaf] <= packageWeight) {
+                    current[k] = sorted[leaf++];
+                } else {
+                    current[k] = packageWeight;
+                    kinds[k] = true;
+                    pair++;
+                }
+            }
+            packaged[level] = kinds;
+            previous = current;
+        }
+
+        // Selected items form a prefix of each list, and its packages expand to a prefix of the list below
+        int[] sortedLengths = new int[symbols];
+        int selected = 2 * symbols - 2;
+        for (int level = levels - 1; level >= 0 && selected > 0; level--) {
+            int leaves = 0;
+            int packages = 0;
+            for (int k = 0; k < selected; k++) {
+                if (packaged[level][k]) {
+                    packages++;
+                } else {
+                    leaves++;
+                }
+            }
+            for (int i = 0; i < leaves; i++) {
+                sortedLengths[i]++;
+            }
+            selected = 2 * packages;
+        }
+
+        int[] lengths = new int[symbols];
+        for (int i = 0; i < symbols; i++) {
+            lengths[order[i]] = sortedLengths[i];
+        }
+        return lengths;
+    }
+}
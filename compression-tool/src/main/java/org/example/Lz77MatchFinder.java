@@ -0,0 +1,396 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Finds repeated strings in a block with hash chains over a sliding window
+ * and turns the block into literal and match tokens.
+ *
+ * <p>Every position is hashed on its first {@value #MIN_MATCH} bytes; the
+ * {@code head} table holds the latest position per hash and {@code prev}
+ * links each position to the previous one with the same hash, so candidate
+ * matches are visited newest first. At most {@code maxChainLength}
+ * candidates are compared per position.
+ *
+ * <p>Among the matches found, {@link Parsing} picks the tokens: the longest
+ * match at every position, the same but deferred when the next position starts
+ * a longer match (lazy matching, as in gzip), or the cheapest sequence under a
+ * bit price model of the block (optimal parsing).
+ *
+ * <p>Match lengths and distances are coded as in DEFLATE: a length code
+ * ({@value #LENGTH_CODES} of them) or distance code ({@value #DISTANCE_CODES})
+ * selects a base value, and extra bits give the offset from that base.
+ */
+class Lz77MatchFinder {
+
+    static final int MIN_MATCH = 3;
+    static final int MAX_MATCH = 258;
+    static final int WINDOW_SIZE = 1 << 15;
+    static final int LENGTH_CODES = 29;
+    static final int DISTANCE_CODES = 30;
+    /** Literal/length alphabet: 256 literals followed by the length codes. */
+    static final int LITERAL_LENGTH_SYMBOLS = 256 + LENGTH_CODES;
+
+    static final int[] LENGTH_BASE = {
+        3, 4, 5, 6, 7, 8, 9, 10, 11, 13, 15, 17, 19, 23, 27, 31, 35, 43, 51, 59, 67, 83, 99, 115, 131, 163, 195, 227, 258
+    };
+    static final int[] LENGTH_EXTRA_BITS = {
+        0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 4, 4, 4, 4, 5, 5, 5, 5, 0
+    };
+    static final int[] DISTANCE_BASE = {
+        1, 2, 3, 4, 5, 7, 9, 13, 17, 25, 33, 49, 65, 97, 129, 193, 257, 385, 513, 769, 1025, 1537, 2049, 3073, 4097,
+        6145, 8193, 12289, 16385, 24577
+    };
+    static final int[] DISTANCE_EXTRA_BITS = {
+        0, 0, 0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 6, 6, 7, 7, 8, 8, 9, 9, 10, 10, 11, 11, 12, 12, 13, 13
+    };
+
+    private static final int[] LENGTH_CODE = new int[MAX_MATCH + 1];
+
+    static {
+        for (int code = 0; code < LENGTH_CODES; code++) {
+            int last = code == LENGTH_CODES - 1 ? MAX_MATCH : LENGTH_BASE[code] + (1 << LENGTH_EXTRA_BITS[code]) - 1;
+            for (int length = LENGTH_BASE[code]; length <= last; length++) {
+                LENGTH_CODE[length] = code;
+            }
+        }
+    }
+
+    private static final int HASH_BITS = 15;
+    private static final int WINDOW_MASK = WINDOW_SIZE - 1;
+    // Match tokens carry the length above the distance, so they never collide with literals 0-255
+    private static final int LENGTH_SHIFT = 15;
+    private static final int NONE = -1;
+    // Matches this long are kept without looking for a longer one at the next position
+    private static final int LAZY_LIMIT = 32;
+
+    private final int maxChainLength;
+    private final Parsing parsing;
+
+    /**
+     * Creates a greedy match finder.
+     *
+     * @param maxChainLength Most candidates compared per position; more finds
+     * longer matches at the cost of speed
+     */
+    Lz77MatchFinder(int maxChainLength) {
+        this(maxChainLength, Parsing.GREEDY);
+    }
+
+    /**
+     * @param maxChainLength Most candidates compared per position; more finds
+     * longer matches at the cost of speed
+     * @param parsing How matches are chosen among the ones found
+     */
+    Lz77MatchFinder(int maxChainLength, Parsing parsing) {
+        if (maxChainLength < 1) {
+            throw new IllegalArgumentException("Chain length must be positive: " + maxChainLength);
+        }
+        this.maxChainLength = maxChainLength;
+        this.parsing = Objects.requireNonNull(parsing, "Parsing cannot be null");
+    }
+
+    /**
+     * Tokenizes a region of bytes. Literal tokens are the byte value; match
+     * tokens pack the length and distance, read back with
+     * {@link #isMatch}, {@link #matchLength} and {@link #matchDistance}.
+     *
+     * @param data Source array
+     * @param offset Start of the block
+     * @param length Length of the block
+     * @return the tokens, in a possibly larger array, and their count
+     */
+    Tokens tokenize(byte[] data, int offset, int length) {
+        return switch (parsing) {
+            case GREEDY -> parseGreedy(data, offset, length, false);
+            case LAZY -> parseGreedy(data, offset, length, true);
+            case OPTIMAL -> parseOptimal(data, offset, length);
+        };
+    }
+
+    /**
+     * Takes the longest match at each position. With {@code lazy} set, a match
+     * is first compared with the one at the next position and dropped for a
+     * literal when that one is longer.
+     */
+    private Tokens parseGreedy(byte[] data, int offset, int length, boolean lazy) {
+        Chains chains = new Chains(data, offset, length, maxChainLength);
+        int[] tokens = new int[Math.max(1, length)];
+        int count = 0;
+        int position = 0;
+        int match = chains.longestMatch(position);
+        while (position < length) {
+            if (match == 0) {
+                tokens[count++] = data[offset + position] & 0xFF;
+                position++;
+                match = chains.longestMatch(position);
+                continue;
+            }
+            if (lazy && matchLength(match) < LAZY_LIMIT) {
+                int next = chains.longestMatch(position + 1);
+                if (matchLength(next) > matchLength(match)) {
+                    tokens[count++] = data[offset + position] & 0xFF;
+                    position++;
+                    match = next;
+                    continue;
+                }
+            }
+            tokens[count++] = match;
+            position += matchLength(match);
+            chains.insertBefore(position);
+            match = chains.longestMatch(position);
+        }
+        return new Tokens(tokens, count);
+    }
+
+    /**
+     * Chooses the tokens with the lowest total bit cost by a shortest path
+     * over the positions of the block. Symbols are priced with the code
+     * lengths of a lazy parse, since the real codes depend on the outcome.
+     */
+    private Tokens parseOptimal(byte[] data, int offset, int length) {
+        Prices prices = Prices.of(parseGreedy(data, offset, length, true));
+        Chains chains = new Chains(data, offset, length, maxChainLength);
+
+        // cost[i] is the cheapest coding of the first i bytes, reached by the token step[i]
+        int[] cost = new int[length + 1];
+        int[] step = new int[length + 1];
+        Arrays.fill(cost, 1, length + 1, Integer.MAX_VALUE);
+        int position = 0;
+        while (position < length) {
+            int literal = data[offset + position] & 0xFF;
+            relax(cost, step, position, 1, prices.literal(literal), literal);
+
+            int matches = chains.search(position);
+            int shortest = MIN_MATCH;
+            for (int k = 0; k < matches; k++) {
+                int distance = chains.distances[k];
+                int distancePrice = prices.distance(distance);
+                for (int matchLength = shortest; matchLength <= chains.lengths[k]; matchLength++) {
+                    relax(cost, step, position, matchLength, prices.length(matchLength) + distancePrice,
+                            matchToken(matchLength, distance));
+                }
+                shortest = chains.lengths[k] + 1;
+            }
+
+            // A maximal match means a long repetition; stepping over it keeps runs linear
+            if (matches > 0 && chains.lengths[matches - 1] == MAX_MATCH) {
+                position += MAX_MATCH;
+                chains.insertBefore(position);
+            } else {
+                position++;
+            }
+        }
+
+        int count = 0;
+        for (int i = length; i > 0; i -= isMatch(step[i]) ? matchLength(step[i]) : 1) {
+            count++;
+        }
+        int[] tokens = new int[Math.max(1, count)];
+        int k = count;
+        for (int i = length; i > 0; i -= isMatch(step[i]) ? matchLength(step[i]) : 1) {
+            tokens[--k] = step[i];
+        }
+        return new Tokens(tokens, count);
+    }
+
+    private static void relax(int[] cost, int[] step, int position, int length, int price, int token) {
+        int candidate = cost[position] + price;
+        if (candidate < cost[position + length]) {
+            cost[position + length] = candidate;
+            step[position + length] = token;
+        }
+    }
+
+    static int matchToken(int length, int distance) {
+        return (length << LENGTH_SHIFT) | (distance - 1);
+    }
+
+    static boolean isMatch(int token) {
+        return token > 0xFF;
+    }
+
+    static int matchLength(int token) {
+        return token >>> LENGTH_SHIFT;
+    }
+
+    static int matchDistance(int token) {
+        return (token & WINDOW_MASK) + 1;
+    }
+
+    static int lengthCode(int length) {
+        return LENGTH_CODE[length];
+    }
+
+    static int distanceCode(int distance) {
+        int value = distance - 1;
+        if (value < 4) {
+            return value;
+        }
+        int log = 31 - Integer.numberOfLeadingZeros(value);
+        return 2 * log + ((value >>> (log - 1)) & 1);
+    }
+
+    private static int matchLength(byte[] data, int candidate, int position, int limit) {
+        int mismatch = Arrays.mismatch(data, candidate, candidate + limit, data, position, position + limit);
+        return mismatch < 0 ? limit : mismatch;
+    }
+
+    private static int hash(byte[] data, int index) {
+        int value = (data[index] & 0xFF) << 16 | (data[index + 1] & 0xFF) << 8 | (data[index + 2] & 0xFF);
+        return (value * 0x9E3779B1) >>> (Integer.SIZE - HASH_BITS);
+    }
+
+    /**
+     * How matches are chosen among the ones found.
+     */
+    enum Parsing {
+        /** Longest match at every position. */
+        GREEDY,
+        /** Longest match, unless the next position starts a longer one. */
+        LAZY,
+        /** Lowest estimated bit cost over the whole block. */
+        OPTIMAL
+    }
+
+    /**
+     * Hash chains over one block. Every position is inserted once, in order,
+     * either by a search or by {@link #insertBefore}.
+     */
+    private static final class Chains {
+
+        private final byte[] data;
+        private final int offset;
+        private final int length;
+        private final int maxChainLength;
+        private final int[] head = new int[1 << HASH_BITS];
+        private final int[] prev = new int[WINDOW_SIZE];
+        /** Matches found by the last search, nearest first, each longer than the one before. */
+        private final int[] lengths = new int[MAX_MATCH + 1];
+        private final int[] distances = new int[MAX_MATCH + 1];
+        private int next;
+
+        Chains(byte[] data, int offset, int length, int maxChainLength) {
+            this.data = data;
+            this.offset = offset;
+            this.length = length;
+            this.maxChainLength = maxChainLength;
+            Arrays.fill(head, NONE);
+        }
+
+        /**
+         * Collects the matches at {@code position} that are longer than every
+         * nearer one, then inserts the position.
+         *
+         * @return the number of matches in {@code lengths} and {@code distances}
+         */
+        int search(int position) {
+            insertBefore(position);
+            if (position + MIN_MATCH > length) {
+                next = Math.max(next, position + 1);
+                return 0;
+            }
+            int count = 0;
+            int hash = hash(data, offset + position);
+            int limit = Math.min(MAX_MATCH, length - position);
+            int bestLength = MIN_MATCH - 1;
+            int candidate = head[hash];
+            for (int chain = maxChainLength; candidate != NONE && chain > 0; chain--) {
+                int distance = position - candidate;
+                if (distance > WINDOW_SIZE) {
+                    break;
+                }
+                if (data[offset + candidate + bestLength] == data[offset + position + bestLength]) {
+                    int matched = matchLength(data, offset + candidate, offset + position, limit);
+                    if (matched > bestLength) {
+                        lengths[count] = matched;
+                        distances[count++] = distance;
+                        bestLength = matched;
+                        if (matched == limit) {
+                            break;
+                        }
+                    }
+                }
+                candidate = prev[candidate & WINDOW_MASK];
+            }
+            prev[position & WINDOW_MASK] = head[hash];
+            head[hash] = position;
+            next = position + 1;
+            return count;
+        }
+
+        /**
+         * Searches {@code position} and returns its longest match token, or 0
+         * when there is none.
+         */
+        int longestMatch(int position) {
+            if (position >= length) {
+                return 0;
+            }
+            int count = search(position);
+            return count == 0 ? 0 : matchToken(lengths[count - 1], distances[count - 1]);
+        }
+
+        /**
+         * Inserts the positions not yet inserted that come before {@code end}.
+         */
+        void insertBefore(int end) {
+            for (; next < end; next++) {
+                if (next + MIN_MATCH <= length) {
+                    int hash = hash(data, offset + next);
+                    prev[next & WINDOW_MASK] = head[hash];
+                    head[hash] = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Bit prices of literals, match lengths and distances, taken from the
+     * code lengths a sample parse would get.
+     */
+    private record Prices(int[] literalLengths, int[] distanceLengths) {
+
+        static Prices of(Tokens sample) {
+            long[] literalCounts = new long[LITERAL_LENGTH_SYMBOLS];
+            long[] distanceCounts = new long[DISTANCE_CODES];
+            // Every symbol gets a count, so ones the sample never used still have a finite price
+            Arrays.fill(literalCounts, 1);
+            Arrays.fill(distanceCounts, 1);
+            for (int i = 0; i < sample.count(); i++) {
+                int token = sample.tokens()[i];
+                if (isMatch(token)) {
+                    literalCounts[256 + lengthCode(matchLength(token))]++;
+                    distanceCounts[distanceCode(matchDistance(token))]++;
+                } else {
+                    literalCounts[token]++;
+                }
+            }
+            CodeLengthBuilder builder = new CodeLengthBuilder();
+            return new Prices(builder.buildCodeLengths(literalCounts, LengthLimitedCodeBuilder.DEFAULT_MAX_CODE_LENGTH),
+                    builder.buildCodeLengths(distanceCounts, LengthLimitedCodeBuilder.DEFAULT_MAX_CODE_LENGTH));
+        }
+
+        int literal(int value) {
+            return literalLengths[value];
+        }
+
+        int length(int matchLength) {
+            int code = lengthCode(matchLength);
+            return literalLengths[256 + code] + LENGTH_EXTRA_BITS[code];
+        }
+
+        int distance(int distance) {
+            int code = distanceCode(distance);
+            return distanceLengths[code] + DISTANCE_EXTRA_BITS[code];
+        }
+    }
+
+    /**
+     * Tokens of a block; only the first {@code count} entries are used.
+     */
+    record Tokens(int[] tokens, int count) {
+
+    }
+}
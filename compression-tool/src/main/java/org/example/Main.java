@@ -1,6 +1,10 @@
 package org.example;
 
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Comparator;
@@ -11,26 +15,41 @@ import org.example.CompressionEngine.CompressionStats;
 
 public class Main {
 
+    private static final String STANDARD_STREAMS = "-";
+    private static final String ARCHIVE_SUFFIX = ".archive";
+
     public static void main(String[] args) {
+        if (args.length > 0 && ("-a".equals(args[0]) || "-x".equals(args[0]))) {
+            runArchive(args);
+            return;
+        }
         if (args.length < 1 || args.length > 3) {
-            System.err.println("Usage: java -jar compression-tool.jar [-d] <inputPath> [outputPath]");
+            System.err.println("Usage: java -jar compression-tool.jar [-d | -0..-9] <inputPath|-> [outputPath]");
+            System.err.println("       java -jar compression-tool.jar -a [-0..-9] <directory|file> [archivePath]");
+            System.err.println("       java -jar compression-tool.jar -x <archivePath> [directory [member]]");
             System.exit(1);
         }
 
         boolean decompress = "-d".equals(args[0]);
-        int inputIndex = decompress ? 1 : 0;
-        int maxArgs = decompress ? 3 : 2;
+        CompressionLevel level = parseLevel(args[0]);
+        int inputIndex = decompress || level != null ? 1 : 0;
+        int maxArgs = inputIndex + 2;
 
         if (args.length < inputIndex + 1 || args.length > maxArgs) {
             if (decompress) {
                 System.err.println("Usage for decompression: java -jar compression-tool.jar -d <inputPath> [outputPath]");
             } else {
-                System.err.println("Usage for compression: java -jar compression-tool.jar <inputPath> [outputPath]");
+                System.err.println("Usage for compression: java -jar compression-tool.jar [-0..-9] <inputPath> [outputPath]");
             }
             System.exit(1);
         }
 
         String inputPathStr = args[inputIndex];
+        if (STANDARD_STREAMS.equals(inputPathStr)) {
+            runStreaming(decompress, level, args.length > inputIndex + 1 ? Paths.get(args[inputIndex + 1]) : null);
+            return;
+        }
+
         String outputPathStr;
         if (args.length > inputIndex + 1) {
             outputPathStr = args[inputIndex + 1];
@@ -52,11 +71,19 @@ public class Main {
                 DecompressionEngine decompressor = new DecompressionEngine();
                 decompressor.decompress(inputPath, outputPath);
                 System.out.println("Decompression successful: " + outputPath);
+            } else if (level != null) {
+                BlockIndex index = new CompressionEngine().compress(inputPath, outputPath, level, true);
+                System.out.printf("Compression successful: %s (level %d, %d blocks)%n", outputPath, level.level(),
+                        index.getBlockCount());
             } else {
                 CompressionEngine compressor = new CompressionEngine();
                 CompressionStats stats = compressor.compressWithStats(inputPath, outputPath);
                 System.out.println("Compression successful: " + outputPath);
-                logCodes(stats.frequencies(), stats.codes());
+                if (stats.isStored()) {
+                    System.out.println("Input does not compress; stored unchanged");
+                } else {
+                    logCodes(stats.frequencies(), stats.codes());
+                }
             }
         } catch (IllegalArgumentException | IOException e) {
             System.err.println("Error: " + e.getMessage());
@@ -64,6 +91,99 @@ public class Main {
         }
     }
 
+    /**
+     * Returns the level of a {@code -0} to {@code -9} option, or null if the
+     * argument is not one.
+     */
+    private static CompressionLevel parseLevel(String arg) {
+        if (arg.length() == 2 && arg.charAt(0) == '-' && arg.charAt(1) >= '0' && arg.charAt(1) <= '9') {
+            return CompressionLevel.of(arg.charAt(1) - '0');
+        }
+        return null;
+    }
+
+    /**
+     * Creates an archive from a directory tree or file with {@code -a}, or
+     * extracts all members of an archive, or a single one, with {@code -x}.
+     * Members are compressed and extracted in parallel on the common pool.
+     */
+    private static void runArchive(String[] args) {
+        boolean create = "-a".equals(args[0]);
+        CompressionLevel level = create && args.length > 1 ? parseLevel(args[1]) : null;
+        int inputIndex = level != null ? 2 : 1;
+        int maxArgs = create ? inputIndex + 2 : inputIndex + 3;
+        if (args.length < inputIndex + 1 || args.length > maxArgs) {
+            if (create) {
+                System.err.println("Usage for archiving: java -jar compression-tool.jar -a [-0..-9] <directory|file> [archivePath]");
+            } else {
+                System.err.println("Usage for extraction: java -jar compression-tool.jar -x <archivePath> [directory [member]]");
+            }
+            System.exit(1);
+        }
+
+        String inputPathStr = args[inputIndex];
+        try {
+            if (create) {
+                Path source = Paths.get(inputPathStr);
+                Path archivePath = args.length > inputIndex + 1
+                        ? Paths.get(args[inputIndex + 1])
+                        : Paths.get(source.toAbsolutePath().normalize() + ARCHIVE_SUFFIX);
+                ArchiveCompressionEngine engine = level != null
+                        ? new ArchiveCompressionEngine(level)
+                        : new ArchiveCompressionEngine();
+                ArchiveDirectory directory = engine.compress(source, archivePath);
+                System.out.printf("Archive created: %s (%d members, %d bytes)%n", archivePath,
+                        directory.getEntryCount(), directory.getTotalSize());
+                return;
+            }
+
+            Path archivePath = Paths.get(inputPathStr);
+            Path directory = args.length > inputIndex + 1
+                    ? Paths.get(args[inputIndex + 1])
+                    : Paths.get(inputPathStr.endsWith(ARCHIVE_SUFFIX)
+                            ? inputPathStr.substring(0, inputPathStr.length() - ARCHIVE_SUFFIX.length())
+                            : inputPathStr + ".extracted");
+            if (args.length > inputIndex + 2) {
+                String member = args[inputIndex + 2];
+                ArchiveDirectory.checkName(member);
+                Path target = directory.resolve(member);
+                Files.createDirectories(target.toAbsolutePath().getParent());
+                new ArchiveExtractionEngine().extract(archivePath, member, target);
+                System.out.println("Extraction successful: " + target);
+            } else {
+                ArchiveDirectory extracted = new ArchiveExtractionEngine().extractAll(archivePath, directory);
+                System.out.printf("Extraction successful: %s (%d members)%n", directory, extracted.getEntryCount());
+            }
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Compresses or decompresses standard input in one pass, writing to
+     * standard output unless an output path is given. Without a level,
+     * compression uses adaptive Huffman coding, so output starts before the
+     * input ends; with one it writes a framed stream block by block, with
+     * block checksums.
+     */
+    private static void runStreaming(boolean decompress, CompressionLevel level, Path outputPath) {
+        try (OutputStream output = outputPath == null
+                ? new FileOutputStream(FileDescriptor.out)
+                : Files.newOutputStream(outputPath)) {
+            if (decompress) {
+                new DecompressionEngine().decompress(System.in, output);
+            } else if (level != null) {
+                new CompressionEngine().compress(System.in, output, level, true);
+            } else {
+                new CompressionEngine().compressAdaptive(System.in, output);
+            }
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
     private static void logCodes(Map<Character, Long> frequencies, Map<Character, String> codes) {
         frequencies.entrySet().stream()
                 .sorted(Map.Entry.<Character, Long>comparingByValue(Comparator.reverseOrder())
@@ -0,0 +1,87 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a file through read-only memory mappings instead of read system
+ * calls. The file is mapped in windows of at most {@value #WINDOW_SIZE} bytes,
+ * so files larger than 2 GB can be streamed. Callers that can work on buffers
+ * directly take whole windows with {@link #nextWindow()} and avoid copying the
+ * data onto the heap at all.
+ */
+class MappedInputStream extends InputStream {
+
+    static final long WINDOW_SIZE = 256L << 20;
+
+    private final FileChannel channel;
+    private final long size;
+    private final long windowSize;
+    private long nextPosition;
+    private ByteBuffer window;
+
+    MappedInputStream(Path path) throws IOException {
+        this(path, WINDOW_SIZE);
+    }
+
+    MappedInputStream(Path path, long windowSize) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.windowSize = windowSize;
+        this.window = ByteBuffer.allocate(0);
+    }
+
+    /**
+     * Returns the unread part of the current window, or maps the next one.
+     * The returned buffer is consumed by advancing its position.
+     *
+     * @return a buffer with remaining bytes, or null at the end of the file
+     * @throws IOException if mapping fails
+     */
+    ByteBuffer nextWindow() throws IOException {
+        if (window.hasRemaining()) {
+            return window;
+        }
+        if (nextPosition >= size) {
+            return null;
+        }
+        long length = Math.min(windowSize, size - nextPosition);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, nextPosition, length);
+        nextPosition += length;
+        return window;
+    }
+
+    @Override
+    public int read() throws IOException {
+        ByteBuffer current = nextWindow();
+        return current == null ? -1 : current.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        ByteBuffer current = nextWindow();
+        if (current == null) {
+            return -1;
+        }
+        int count = Math.min(length, current.remaining());
+        current.get(buffer, offset, count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return window.remaining();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,136 @@
+package org.example;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Move-to-front ranking with zero-run coding, the stage between
+ * {@link BurrowsWheelerTransform} and the entropy coder. Every byte is
+ * replaced by its position in a list of recently seen values and moved to the
+ * front, so the runs a transform produces become runs of zero ranks.
+ *
+ * <p>Runs of zero ranks are written in bijective base 2 with the digits
+ * {@link #RUN_A} (1) and {@link #RUN_B} (2), least significant first, as in
+ * bzip2; a run of {@code n} zeros costs about {@code log2(n)} symbols. A
+ * rank {@code r} from 1 to 255 is written as the symbol {@code r + 1}, so
+ * symbols range over [0, {@value #SYMBOLS}).
+ */
+final class MoveToFrontCoder {
+
+    static final int RUN_A = 0;
+    static final int RUN_B = 1;
+    static final int SYMBOLS = CharacterFrequencyCounter.BYTE_SYMBOLS + 1;
+
+    private MoveToFrontCoder() {
+    }
+
+    /**
+     * Ranks and run codes a region of bytes.
+     *
+     * @param data Source array
+     * @param offset Start of the region
+     * @param length Number of bytes
+     * @param symbols Array receiving the symbols; {@code length} entries are
+     * always enough
+     * @return the number of symbols written
+     */
+    static int encode(byte[] data, int offset, int length, int[] symbols) {
+        byte[] order = initialOrder();
+        int count = 0;
+        int run = 0;
+        for (int i = offset; i < offset + length; i++) {
+            byte value = data[i];
+            if (order[0] == value) {
+                run++;
+                continue;
+            }
+            if (run > 0) {
+                count = writeRun(run, symbols, count);
+                run = 0;
+            }
+            int rank = 1;
+            while (order[rank] != value) {
+                rank++;
+            }
+            System.arraycopy(order, 0, order, 1, rank);
+            order[0] = value;
+            symbols[count++] = rank + 1;
+        }
+        if (run > 0) {
+            count = writeRun(run, symbols, count);
+        }
+        return count;
+    }
+
+    /**
+     * Restores the bytes from symbols written by {@link #encode}.
+     *
+     * @param symbols The symbols
+     * @param count Number of symbols
+     * @param destination Array receiving the bytes
+     * @param offset Where the bytes start
+     * @param length Number of bytes the symbols must produce
+     * @throws IOException if the symbols are out of range or do not produce
+     * exactly {@code length} bytes
+     */
+    static void decode(int[] symbols, int count, byte[] destination, int offset, int length) throws IOException {
+        byte[] order = initialOrder();
+        int position = offset;
+        int end = offset + length;
+        long run = 0;
+        int digit = 0;
+        for (int i = 0; i < count; i++) {
+            int symbol = symbols[i];
+            if (symbol <= RUN_B) {
+                if (digit >= Integer.SIZE) {
+                    throw new IOException("Zero run is too long");
+                }
+                run += (long) (symbol + 1) << digit++;
+                continue;
+            }
+            position = fillRun(order[0], run, destination, position, end);
+            run = 0;
+            digit = 0;
+            int rank = symbol - 1;
+            if (rank >= CharacterFrequencyCounter.BYTE_SYMBOLS || position == end) {
+                throw new IOException("Move-to-front symbols do not match the block length");
+            }
+            byte value = order[rank];
+            System.arraycopy(order, 0, order, 1, rank);
+            order[0] = value;
+            destination[position++] = value;
+        }
+        position = fillRun(order[0], run, destination, position, end);
+        if (position != end) {
+            throw new IOException("Move-to-front symbols do not match the block length");
+        }
+    }
+
+    private static int writeRun(int run, int[] symbols, int count) {
+        int remaining = run - 1;
+        while (true) {
+            symbols[count++] = (remaining & 1) == 0 ? RUN_A : RUN_B;
+            if (remaining < 2) {
+                return count;
+            }
+            remaining = (remaining - 2) >>> 1;
+        }
+    }
+
+    private static int fillRun(byte value, long run, byte[] destination, int position, int end)
+            throws IOException {
+        if (run > end - position) {
+            throw new IOException("Move-to-front symbols do not match the block length");
+        }
+        Arrays.fill(destination, position, position + (int) run, value);
+        return position + (int) run;
+    }
+
+    private static byte[] initialOrder() {
+        byte[] order = new byte[CharacterFrequencyCounter.BYTE_SYMBOLS];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = (byte) i;
+        }
+        return order;
+    }
+}
@@ -0,0 +1,131 @@
+package org.example;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Huffman codes packed into primitive arrays indexed by symbol: each code's
+ * bits right-aligned in a {@code long} plus its length in bits. Encoders look
+ * a symbol up with two array reads instead of a map lookup and a string walk.
+ */
+public class PackedCodes {
+
+    static final int MAX_CODE_LENGTH = 64;
+
+    private final long[] codes;
+    private final byte[] lengths;
+
+    private PackedCodes(long[] codes, byte[] lengths) {
+        this.codes = codes;
+        this.lengths = lengths;
+    }
+
+    /**
+     * Packs a code map.
+     *
+     * @param codes Map of characters to binary code strings
+     * @param alphabetSize Number of symbols the arrays cover (256 for bytes,
+     * 65536 for characters)
+     * @return the packed codes
+     * @throws IllegalArgumentException if a symbol lies outside the alphabet or
+     * a code is longer than 64 bits
+     */
+    public static PackedCodes fromCodes(Map<Character, String> codes, int alphabetSize) {
+        Objects.requireNonNull(codes, "Code map cannot be null");
+        long[] packed = new long[alphabetSize];
+        byte[] lengths = new byte[alphabetSize];
+        for (Map.Entry<Character, String> entry : codes.entrySet()) {
+            char symbol = entry.getKey();
+            String code = entry.getValue();
+            if (symbol >= alphabetSize) {
+                throw new IllegalArgumentException("Symbol outside the alphabet: " + (int) symbol);
+            }
+            if (code.isEmpty() || code.length() > MAX_CODE_LENGTH) {
+                throw new IllegalArgumentException("Cannot pack code of length " + code.length());
+            }
+            packed[symbol] = Long.parseUnsignedLong(code, 2);
+            lengths[symbol] = (byte) code.length();
+        }
+        return new PackedCodes(packed, lengths);
+    }
+
+    /**
+     * Assigns canonical codes from code lengths: symbols are ordered by
+     * length and then by value and receive consecutive code values, as in
+     * {@link HuffmanCodeGenerator#generateCanonicalCodes}.
+     *
+     * @param lengths Code length of every symbol of the alphabet, 0 for
+     * symbols without a code
+     * @return the packed codes, covering {@code lengths.length} symbols
+     * @throws IllegalArgumentException if a length is out of range or the
+     * lengths do not describe a prefix code
+     */
+    public static PackedCodes fromLengths(int[] lengths) {
+        Objects.requireNonNull(lengths, "Code lengths cannot be null");
+        int[] lengthCounts = new int[HuffmanCodeGenerator.MAX_CANONICAL_CODE_LENGTH + 1];
+        int maxLength = 0;
+        for (int symbol = 0; symbol < lengths.length; symbol++) {
+            int length = lengths[symbol];
+            if (length < 0 || length > HuffmanCodeGenerator.MAX_CANONICAL_CODE_LENGTH) {
+                throw new IllegalArgumentException("Invalid code length " + length + " for symbol: " + symbol);
+            }
+            lengthCounts[length]++;
+            maxLength = Math.max(maxLength, length);
+        }
+
+        // First code of every length; each length's codes follow the shorter ones, shifted up a bit per length
+        long[] nextCode = new long[maxLength + 1];
+        long code = 0;
+        for (int length = 1; length <= maxLength; length++) {
+            code <<= 1;
+            nextCode[length] = code;
+            code += lengthCounts[length];
+            if (Long.compareUnsigned(code, 1L << length) > 0) {
+                throw new IllegalArgumentException("Code lengths do not describe a prefix code");
+            }
+        }
+
+        long[] packed = new long[lengths.length];
+        byte[] packedLengths = new byte[lengths.length];
+        for (int symbol = 0; symbol < lengths.length; symbol++) {
+            int length = lengths[symbol];
+            if (length > 0) {
+                packed[symbol] = nextCode[length]++;
+                packedLengths[symbol] = (byte) length;
+            }
+        }
+        return new PackedCodes(packed, packedLengths);
+    }
+
+    /**
+     * Returns the codes as a map of characters to binary code strings, the
+     * form of {@link HuffmanCodeGenerator}; for reporting, not for coding.
+     */
+    public Map<Character, String> toCodeMap() {
+        Map<Character, String> result = new HashMap<>();
+        for (int symbol = 0; symbol < codes.length; symbol++) {
+            int length = lengths[symbol];
+            if (length > 0) {
+                String bits = Long.toBinaryString(codes[symbol]);
+                result.put((char) symbol, "0".repeat(length - bits.length()) + bits);
+            }
+        }
+        return Map.copyOf(result);
+    }
+
+    public long getCode(int symbol) {
+        return codes[symbol];
+    }
+
+    /**
+     * Returns the code length of a symbol, or 0 if the symbol has no code.
+     */
+    public int getLength(int symbol) {
+        return lengths[symbol];
+    }
+
+    public int getAlphabetSize() {
+        return codes.length;
+    }
+}
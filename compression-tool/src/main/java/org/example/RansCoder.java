@@ -0,0 +1,298 @@
+package org.example;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Order-0 entropy coder over bytes based on range asymmetric numeral systems
+ * (rANS). Symbol probabilities are quantized to {@value #PROBABILITY_BITS}
+ * bits, so a symbol costs a fraction of a bit close to its information
+ * content instead of the whole bits of a Huffman code, which matters most on
+ * skewed distributions.
+ *
+ * <p>Four coder states are interleaved: symbol {@code i} is coded by state
+ * {@code i % 4}. Decoding a symbol is a table lookup, a multiply and an add,
+ * and the four states form independent dependency chains, so the processor
+ * overlaps their work. States are 31-bit values kept in
+ * [{@value #LOWER_BOUND}, 2^31) and renormalized a byte at a time.
+ *
+ * <p>The encoder runs backwards over the input and fills its output from the
+ * end, so the decoder reads the bytes forwards: first the four final states
+ * (4 bytes each, little endian), then the renormalization bytes.
+ */
+final class RansCoder {
+
+    static final int PROBABILITY_BITS = 12;
+    static final int PROBABILITY_SCALE = 1 << PROBABILITY_BITS;
+    static final int STATES = 4;
+    static final int LOWER_BOUND = 1 << 23;
+
+    private static final int SYMBOLS = CharacterFrequencyCounter.BYTE_SYMBOLS;
+    private static final int SLOT_MASK = PROBABILITY_SCALE - 1;
+    // A decoded state is at least LOWER_BOUND >> PROBABILITY_BITS, so two bytes restore it
+    private static final int MAX_RENORMALIZATION_BYTES = 2;
+
+    private RansCoder() {
+    }
+
+    /**
+     * Scales symbol counts to frequencies summing to
+     * {@value #PROBABILITY_SCALE}, keeping every present symbol at one or
+     * more.
+     *
+     * @param counts Count of every byte value
+     * @return the frequency of every byte value
+     */
+    static int[] normalize(long[] counts) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        int[] frequencies = new int[SYMBOLS];
+        if (total == 0) {
+            return frequencies;
+        }
+        int sum = 0;
+        int largest = 0;
+        for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+            if (counts[symbol] > 0) {
+                frequencies[symbol] = (int) Math.max(1, counts[symbol] * PROBABILITY_SCALE / total);
+                sum += frequencies[symbol];
+                if (frequencies[symbol] > frequencies[largest]) {
+                    largest = symbol;
+                }
+            }
+        }
+        // Rounding down leaves a deficit and the floor of one an excess; the most frequent symbol absorbs both
+        // unless that would push it below one, in which case the excess is taken from the largest in turn
+        if (frequencies[largest] + PROBABILITY_SCALE - sum >= 1) {
+            frequencies[largest] += PROBABILITY_SCALE - sum;
+            return frequencies;
+        }
+        while (sum > PROBABILITY_SCALE) {
+            int victim = 0;
+            for (int symbol = 1; symbol < SYMBOLS; symbol++) {
+                if (frequencies[symbol] > frequencies[victim]) {
+                    victim = symbol;
+                }
+            }
+            frequencies[victim]--;
+            sum--;
+        }
+        return frequencies;
+    }
+
+    /**
+     * Returns the number of payload bits the symbols cost with these
+     * frequencies, not counting the flushed states.
+     */
+    static long costBits(long[] counts, int[] frequencies) {
+        double bits = 0;
+        for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+            if (counts[symbol] > 0) {
+                bits += counts[symbol] * (PROBABILITY_BITS - Math.log(frequencies[symbol]) / Math.log(2));
+            }
+        }
+        return (long) Math.ceil(bits);
+    }
+
+    /**
+     * Writes the frequencies: the number of present symbols (varint), then
+     * for every present symbol in ascending order the gap to its predecessor
+     * minus one and its frequency (varints).
+     */
+    static void writeFrequencies(int[] frequencies, DataOutput output) throws IOException {
+        int present = 0;
+        for (int frequency : frequencies) {
+            if (frequency > 0) {
+                present++;
+            }
+        }
+        HeaderWriter.writeVarInt(present, output);
+        int previous = -1;
+        for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+            if (frequencies[symbol] > 0) {
+                HeaderWriter.writeVarInt(symbol - previous - 1, output);
+                HeaderWriter.writeVarInt(frequencies[symbol], output);
+                previous = symbol;
+            }
+        }
+    }
+
+    /**
+     * Reads frequencies written by {@link #writeFrequencies}.
+     *
+     * @throws IOException if the symbols are out of range or the frequencies
+     * do not sum to {@value #PROBABILITY_SCALE}
+     */
+    static int[] readFrequencies(DataInput input) throws IOException {
+        int present = HeaderReader.readVarInt(input);
+        if (present == 0 || present > SYMBOLS) {
+            throw new IOException("Invalid rANS symbol count: " + present);
+        }
+        int[] frequencies = new int[SYMBOLS];
+        int symbol = -1;
+        int sum = 0;
+        for (int i = 0; i < present; i++) {
+            symbol += HeaderReader.readVarInt(input) + 1;
+            int frequency = HeaderReader.readVarInt(input);
+            if (symbol >= SYMBOLS || frequency == 0 || frequency > PROBABILITY_SCALE - sum) {
+                throw new IOException("Invalid rANS frequency table");
+            }
+            frequencies[symbol] = frequency;
+            sum += frequency;
+        }
+        if (sum != PROBABILITY_SCALE) {
+            throw new IOException("rANS frequencies sum to " + sum + " instead of " + PROBABILITY_SCALE);
+        }
+        return frequencies;
+    }
+
+    /**
+     * Encodes a region of bytes whose symbols all have a frequency.
+     *
+     * @return the coded bytes
+     */
+    static byte[] encode(byte[] data, int offset, int length, int[] frequencies) {
+        int[] starts = starts(frequencies);
+        // A symbol costs at most PROBABILITY_BITS bits
+        byte[] buffer = new byte[length + length / 2 + STATES * Integer.BYTES + 16];
+        int position = buffer.length;
+        int[] states = {LOWER_BOUND, LOWER_BOUND, LOWER_BOUND, LOWER_BOUND};
+        for (int i = length - 1; i >= 0; i--) {
+            int symbol = data[offset + i] & 0xFF;
+            int frequency = frequencies[symbol];
+            int state = states[i & (STATES - 1)];
+            long limit = (long) ((LOWER_BOUND >>> PROBABILITY_BITS) << 8) * frequency;
+            while (state >= limit) {
+                buffer[--position] = (byte) state;
+                state >>>= 8;
+            }
+            states[i & (STATES - 1)] = ((state / frequency) << PROBABILITY_BITS) + (state % frequency)
+                    + starts[symbol];
+        }
+        for (int j = STATES - 1; j >= 0; j--) {
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                buffer[--position] = (byte) (states[j] >>> shift);
+            }
+        }
+        return Arrays.copyOfRange(buffer, position, buffer.length);
+    }
+
+    /**
+     * Decodes {@code count} bytes from a region written by {@link #encode}.
+     *
+     * @throws IOException if the coded bytes are truncated or corrupt
+     */
+    static void decode(byte[] body, int offset, int length, int[] frequencies, byte[] destination,
+            int destinationOffset, int count) throws IOException {
+        int end = offset + length;
+        for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+            if (frequencies[symbol] == PROBABILITY_SCALE) {
+                // A certain symbol leaves the states untouched
+                Arrays.fill(destination, destinationOffset, destinationOffset + count, (byte) symbol);
+                return;
+            }
+        }
+
+        // Entry: symbol (8 bits), frequency (12 bits), offset of the slot within the symbol's range (12 bits)
+        int[] table = new int[PROBABILITY_SCALE];
+        int start = 0;
+        for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+            for (int slot = 0; slot < frequencies[symbol]; slot++) {
+                table[start + slot] = (symbol << 24) | (frequencies[symbol] << PROBABILITY_BITS) | slot;
+            }
+            start += frequencies[symbol];
+        }
+
+        if (length < STATES * Integer.BYTES) {
+            throw new IOException("rANS payload is truncated");
+        }
+        int position = offset;
+        int[] states = new int[STATES];
+        for (int j = 0; j < STATES; j++) {
+            states[j] = (body[position] & 0xFF) | (body[position + 1] & 0xFF) << 8
+                    | (body[position + 2] & 0xFF) << 16 | (body[position + 3] & 0xFF) << 24;
+            position += Integer.BYTES;
+            if (states[j] < LOWER_BOUND) {
+                throw new IOException("rANS payload is corrupt");
+            }
+        }
+
+        int x0 = states[0];
+        int x1 = states[1];
+        int x2 = states[2];
+        int x3 = states[3];
+        int i = 0;
+        // Four symbols renormalize with at most eight bytes, so the bounds are checked once per round
+        while (count - i >= STATES && end - position >= STATES * MAX_RENORMALIZATION_BYTES) {
+            int e0 = table[x0 & SLOT_MASK];
+            int e1 = table[x1 & SLOT_MASK];
+            int e2 = table[x2 & SLOT_MASK];
+            int e3 = table[x3 & SLOT_MASK];
+            int at = destinationOffset + i;
+            destination[at] = (byte) (e0 >>> 24);
+            destination[at + 1] = (byte) (e1 >>> 24);
+            destination[at + 2] = (byte) (e2 >>> 24);
+            destination[at + 3] = (byte) (e3 >>> 24);
+            x0 = ((e0 >>> PROBABILITY_BITS) & SLOT_MASK) * (x0 >>> PROBABILITY_BITS) + (e0 & SLOT_MASK);
+            x1 = ((e1 >>> PROBABILITY_BITS) & SLOT_MASK) * (x1 >>> PROBABILITY_BITS) + (e1 & SLOT_MASK);
+            x2 = ((e2 >>> PROBABILITY_BITS) & SLOT_MASK) * (x2 >>> PROBABILITY_BITS) + (e2 & SLOT_MASK);
+            x3 = ((e3 >>> PROBABILITY_BITS) & SLOT_MASK) * (x3 >>> PROBABILITY_BITS) + (e3 & SLOT_MASK);
+            while (x0 < LOWER_BOUND) {
+                x0 = (x0 << 8) | (body[position++] & 0xFF);
+            }
+            while (x1 < LOWER_BOUND) {
+                x1 = (x1 << 8) | (body[position++] & 0xFF);
+            }
+            while (x2 < LOWER_BOUND) {
+                x2 = (x2 << 8) | (body[position++] & 0xFF);
+            }
+            while (x3 < LOWER_BOUND) {
+                x3 = (x3 << 8) | (body[position++] & 0xFF);
+            }
+            i += STATES;
+        }
+        states[0] = x0;
+        states[1] = x1;
+        states[2] = x2;
+        states[3] = x3;
+
+        for (; i < count; i++) {
+            int j = i & (STATES - 1);
+            int state = states[j];
+            int entry = table[state & SLOT_MASK];
+            destination[destinationOffset + i] = (byte) (entry >>> 24);
+            state = ((entry >>> PROBABILITY_BITS) & SLOT_MASK) * (state >>> PROBABILITY_BITS) + (entry & SLOT_MASK);
+            while (state < LOWER_BOUND) {
+                if (position == end) {
+                    throw new IOException("rANS payload is truncated");
+                }
+                state = (state << 8) | (body[position++] & 0xFF);
+            }
+            states[j] = state;
+        }
+
+        // The encoder started every state at the lower bound and used every byte
+        for (int state : states) {
+            if (state != LOWER_BOUND) {
+                throw new IOException("rANS payload is corrupt");
+            }
+        }
+        if (position != end) {
+            throw new IOException("rANS payload is corrupt");
+        }
+    }
+
+    private static int[] starts(int[] frequencies) {
+        int[] starts = new int[SYMBOLS];
+        int start = 0;
+        for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+            starts[symbol] = start;
+            start += frequencies[symbol];
+        }
+        return starts;
+    }
+}
@@ -0,0 +1,87 @@
+package org.example;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveHuffmanOutputStreamTest {
+
+    private static byte[] compress(byte[] content) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (AdaptiveHuffmanOutputStream output = new AdaptiveHuffmanOutputStream(compressed)) {
+            output.write(content);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static byte[] decompress(byte[] compressed) throws IOException {
+        try (AdaptiveHuffmanInputStream input = new AdaptiveHuffmanInputStream(new ByteArrayInputStream(compressed))) {
+            return input.readAllBytes();
+        }
+    }
+
+    @Test
+    void roundTripsText() throws IOException {
+        byte[] content = BlockCompressionEngineTest.mixedContent(100_000);
+
+        byte[] compressed = compress(content);
+
+        assertTrue(compressed.length < content.length);
+        assertArrayEquals(content, decompress(compressed));
+    }
+
+    @Test
+    void roundTripsEveryByteValue() throws IOException {
+        byte[] content = new byte[20_000];
+        new Random(7).nextBytes(content);
+
+        assertArrayEquals(content, decompress(compress(content)));
+    }
+
+    @Test
+    void roundTripsEmptyInput() throws IOException {
+        assertEquals(0, decompress(compress(new byte[0])).length);
+    }
+
+    @Test
+    void flushEmitsOutputBeforeTheEnd() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        AdaptiveHuffmanOutputStream output = new AdaptiveHuffmanOutputStream(compressed);
+        byte[] content = "first line of a long log\n".getBytes();
+
+        output.write(content);
+        output.flush();
+
+        AdaptiveHuffmanInputStream input = new AdaptiveHuffmanInputStream(
+                new ByteArrayInputStream(compressed.toByteArray()));
+        byte[] decoded = new byte[content.length - 1];
+        int read = 0;
+        while (read < decoded.length) {
+            read += input.read(decoded, read, decoded.length - read);
+        }
+        assertArrayEquals(Arrays.copyOf(content, decoded.length), decoded);
+    }
+
+    @Test
+    void rejectsTruncatedStream() throws IOException {
+        byte[] compressed = compress(BlockCompressionEngineTest.mixedContent(5_000));
+
+        assertThrows(IOException.class, () -> decompress(Arrays.copyOf(compressed, compressed.length / 2)));
+    }
+
+    @Test
+    void rejectsWritesAfterFinish() throws IOException {
+        AdaptiveHuffmanOutputStream output = new AdaptiveHuffmanOutputStream(new ByteArrayOutputStream());
+        output.finish();
+
+        assertThrows(IOException.class, () -> output.write(1));
+    }
+}
@@ -0,0 +1,77 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveHuffmanTreeTest {
+
+    private final byte[] path = new byte[AdaptiveHuffmanTree.ALPHABET_SIZE + 1];
+
+    @Test
+    void firstSymbolIsSentWithoutBranches() {
+        AdaptiveHuffmanTree tree = new AdaptiveHuffmanTree();
+
+        assertFalse(tree.contains('a'));
+        assertEquals(0, tree.path('a', path));
+        assertTrue(tree.isNotYetTransmitted(tree.root()));
+    }
+
+    @Test
+    void frequentSymbolsGetShorterPaths() {
+        AdaptiveHuffmanTree tree = new AdaptiveHuffmanTree();
+        for (int i = 0; i < 100; i++) {
+            tree.update('e');
+        }
+        for (int symbol = 'a'; symbol <= 'd'; symbol++) {
+            tree.update(symbol);
+        }
+
+        int frequent = tree.path('e', path);
+        assertEquals(1, frequent);
+        assertTrue(tree.path('a', path) > frequent);
+    }
+
+    @Test
+    void pathsLeadToTheSymbolLeaf() {
+        AdaptiveHuffmanTree tree = new AdaptiveHuffmanTree();
+        String text = "abracadabra, said the adaptive huffman tree";
+        for (char c : text.toCharArray()) {
+            tree.update(c);
+        }
+
+        for (char c : text.toCharArray()) {
+            int length = tree.path(c, path);
+            int node = tree.root();
+            for (int i = 0; i < length; i++) {
+                node = tree.child(node, path[i]);
+            }
+            assertTrue(tree.isLeaf(node));
+            assertEquals(c, tree.symbol(node));
+        }
+    }
+
+    @Test
+    void startsOverOnceWeightsReachTheLimit() {
+        AdaptiveHuffmanTree tree = new AdaptiveHuffmanTree();
+        tree.update('a');
+        for (int i = 1; i < AdaptiveHuffmanTree.MAX_WEIGHT; i++) {
+            tree.update('b');
+        }
+        assertTrue(tree.contains('a'));
+
+        tree.update('b');
+
+        assertFalse(tree.contains('a'));
+        assertTrue(tree.contains('b'));
+    }
+
+    @Test
+    void rejectsSymbolsOutsideTheAlphabet() {
+        AdaptiveHuffmanTree tree = new AdaptiveHuffmanTree();
+
+        assertThrows(IllegalArgumentException.class, () -> tree.update(AdaptiveHuffmanTree.ALPHABET_SIZE));
+    }
+}
@@ -0,0 +1,109 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ArchiveCompressionEngineTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void archivesDirectoryTreeOnVirtualThreads() throws IOException {
+        Path source = createTree(tempDir.resolve("tree"));
+        Path archive = tempDir.resolve("tree.archive");
+        Path extracted = tempDir.resolve("extracted");
+
+        ArchiveDirectory directory;
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            // Small blocks split the large member into several records
+            directory = new ArchiveCompressionEngine(CompressionLevel.DEFAULT.withBlockSize(4096), executor)
+                    .compress(source, archive);
+        } finally {
+            executor.shutdown();
+        }
+        new ArchiveExtractionEngine().extractAll(archive, extracted);
+
+        assertTrue(ArchiveDirectory.isArchive(archive));
+        assertEquals(List.of("a.txt", "empty.bin", "nested/deeper/large.bin", "nested/small.txt"),
+                directory.getEntries().stream().map(ArchiveDirectory.Entry::name).toList());
+        for (ArchiveDirectory.Entry entry : directory.getEntries()) {
+            assertArrayEquals(Files.readAllBytes(source.resolve(entry.name())),
+                    Files.readAllBytes(extracted.resolve(entry.name())), entry.name());
+        }
+        assertEquals(0, directory.getEntry("empty.bin").compressedLength());
+        assertTrue(directory.getEntry("nested/deeper/large.bin").compressedLength() < 50_000);
+    }
+
+    @Test
+    void archivesSingleFileUnderItsName() throws IOException {
+        Path file = tempDir.resolve("notes.txt");
+        Files.writeString(file, "notes ".repeat(1000));
+        Path archive = tempDir.resolve("notes.archive");
+
+        ArchiveDirectory directory = new ArchiveCompressionEngine().compress(file, archive);
+
+        assertEquals(1, directory.getEntryCount());
+        assertEquals(6000, directory.getEntry("notes.txt").size());
+    }
+
+    @Test
+    void leavesArchiveInsideSourceOut() throws IOException {
+        Path source = createTree(tempDir.resolve("tree"));
+        Path archive = source.resolve("self.archive");
+        Files.writeString(archive, "stale archive from an earlier run");
+
+        ArchiveDirectory directory = new ArchiveCompressionEngine(CompressionLevel.FAST, ForkJoinPool.commonPool())
+                .compress(source, archive);
+
+        assertNull(directory.getEntry("self.archive"));
+        assertEquals(4, directory.getEntryCount());
+    }
+
+    @Test
+    void rejectsMissingSource() {
+        ArchiveCompressionEngine engine = new ArchiveCompressionEngine();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.compress(tempDir.resolve("missing"), tempDir.resolve("out.archive")));
+        assertFalse(Files.exists(tempDir.resolve("out.archive")));
+    }
+
+    @Test
+    void rejectsNamesOutsideTheDirectory() {
+        assertThrows(IllegalArgumentException.class, () -> ArchiveDirectory.checkName("../escape"));
+        assertThrows(IllegalArgumentException.class, () -> ArchiveDirectory.checkName("/absolute"));
+        assertThrows(IllegalArgumentException.class, () -> ArchiveDirectory.checkName("a//b"));
+        assertThrows(IllegalArgumentException.class, () -> ArchiveDirectory.checkName(""));
+        ArchiveDirectory.checkName("nested/file.txt");
+    }
+
+    /**
+     * Creates a small tree with nested directories, an empty file and a file
+     * larger than a few blocks.
+     */
+    static Path createTree(Path root) throws IOException {
+        Files.createDirectories(root.resolve("nested/deeper"));
+        Files.writeString(root.resolve("a.txt"), "alpha beta gamma\n".repeat(50), StandardCharsets.US_ASCII);
+        Files.write(root.resolve("empty.bin"), new byte[0]);
+        Files.writeString(root.resolve("nested/small.txt"), "x", StandardCharsets.US_ASCII);
+        Files.write(root.resolve("nested/deeper/large.bin"), BlockCompressionEngineTest.markovContent(30_000));
+        return root;
+    }
+}
@@ -0,0 +1,144 @@
+package org.example;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ArchiveExtractionEngineTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path source;
+    private Path archive;
+    private ArchiveDirectory directory;
+
+    @BeforeEach
+    void createArchive() throws IOException {
+        source = ArchiveCompressionEngineTest.createTree(tempDir.resolve("tree"));
+        archive = tempDir.resolve("tree.archive");
+        directory = new ArchiveCompressionEngine(CompressionLevel.DEFAULT.withBlockSize(4096)).compress(source, archive);
+    }
+
+    @Test
+    void extractsSingleMember() throws IOException {
+        Path output = tempDir.resolve("large.out");
+
+        new ArchiveExtractionEngine().extract(archive, "nested/deeper/large.bin", output);
+
+        assertArrayEquals(Files.readAllBytes(source.resolve("nested/deeper/large.bin")), Files.readAllBytes(output));
+    }
+
+    @Test
+    void extractsEmptyMember() throws IOException {
+        Path output = tempDir.resolve("empty.out");
+
+        new ArchiveExtractionEngine().extract(archive, "empty.bin", output);
+
+        assertArrayEquals(new byte[0], Files.readAllBytes(output));
+    }
+
+    @Test
+    void rejectsUnknownMember() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ArchiveExtractionEngine().extract(archive, "missing.txt", tempDir.resolve("out")));
+    }
+
+    @Test
+    void detectsCorruptMember() throws IOException {
+        ArchiveDirectory.Entry entry = directory.getEntry("a.txt");
+        byte[] bytes = Files.readAllBytes(archive);
+        // Flip a payload bit near the end of the member's only record
+        bytes[(int) (entry.offset() + entry.compressedLength() - 2)] ^= 0x10;
+        Files.write(archive, bytes);
+
+        assertThrows(IOException.class,
+                () -> new ArchiveExtractionEngine().extract(archive, "a.txt", tempDir.resolve("a.out")));
+    }
+
+    @Test
+    void reportsFirstCorruptMemberOnceEveryMemberHasFinished() throws IOException {
+        Path many = tempDir.resolve("many");
+        Files.createDirectories(many);
+        for (int i = 0; i < 200; i++) {
+            Files.write(many.resolve(String.format("member%03d.bin", i)),
+                    BlockCompressionEngineTest.markovContent(20_000 + i));
+        }
+        Path manyArchive = tempDir.resolve("many.archive");
+        ArchiveDirectory manyDirectory = new ArchiveCompressionEngine().compress(many, manyArchive);
+        byte[] bytes = Files.readAllBytes(manyArchive);
+        for (String corrupt : new String[] {"member010.bin", "member150.bin"}) {
+            ArchiveDirectory.Entry entry = manyDirectory.getEntry(corrupt);
+            bytes[(int) (entry.offset() + entry.compressedLength() - 2)] ^= 0x10;
+        }
+        Files.write(manyArchive, bytes);
+        Path extracted = tempDir.resolve("many.out");
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            IOException exception = assertThrows(IOException.class,
+                    () -> new ArchiveExtractionEngine(executor).extractAll(manyArchive, extracted));
+            assertTrue(exception.getMessage().contains("member010.bin"), exception.getMessage());
+        } finally {
+            executor.shutdown();
+        }
+
+        // Every other member was written completely or skipped, never left half written
+        for (ArchiveDirectory.Entry entry : manyDirectory.getEntries()) {
+            Path output = extracted.resolve(entry.name());
+            if (!entry.name().equals("member010.bin") && !entry.name().equals("member150.bin")
+                    && Files.exists(output)) {
+                assertArrayEquals(Files.readAllBytes(many.resolve(entry.name())), Files.readAllBytes(output));
+            }
+        }
+    }
+
+    @Test
+    void rejectsRecordWithOversizedBodyLength() throws IOException {
+        // A stored record of ten bytes whose body length claims about Integer.MAX_VALUE
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        ArchiveDirectory.writeHeader(output);
+        output.writeByte(BlockCodec.TYPE_STORED);
+        HeaderWriter.writeVarInt(10, output);
+        HeaderWriter.writeVarInt(Integer.MAX_VALUE - 4, output);
+        output.write(new byte[10]);
+        long recordLength = bytes.size() - ArchiveDirectory.HEADER_SIZE;
+        new ArchiveDirectory(List.of(new ArchiveDirectory.Entry("forged.bin", ArchiveDirectory.HEADER_SIZE,
+                recordLength, 10, 0))).write(output, bytes.size());
+        output.flush();
+        Path forged = tempDir.resolve("forged.archive");
+        Files.write(forged, bytes.toByteArray());
+
+        assertThrows(IOException.class,
+                () -> new ArchiveExtractionEngine().extract(forged, "forged.bin", tempDir.resolve("forged.out")));
+    }
+
+    @Test
+    void rejectsNameThatEscapesTheDirectory() throws IOException {
+        byte[] bytes = Files.readAllBytes(archive);
+        String archived = new String(bytes, StandardCharsets.ISO_8859_1);
+        int name = archived.lastIndexOf("nested/small.txt");
+        byte[] escape = "../../small.txt.".getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(escape, 0, bytes, name, escape.length);
+        Files.write(archive, bytes);
+        Path extracted = tempDir.resolve("extracted");
+
+        assertThrows(IOException.class, () -> new ArchiveExtractionEngine().extractAll(archive, extracted));
+        assertFalse(Files.exists(tempDir.resolve("small.txt.")));
+    }
+}
@@ -0,0 +1,59 @@
+package org.example;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+
+class BitWriterTest {
+
+    @Test
+    void writesBitsMostSignificantFirstWithZeroPadding() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BitWriter writer = new BitWriter(Channels.newChannel(bytes));
+
+        writer.write(0b1, 1);
+        writer.write(0b01, 2);
+        writer.write(0b11111, 5);
+        writer.write(0b101, 3);
+        writer.flush();
+
+        assertArrayEquals(new byte[]{(byte) 0b10111111, (byte) 0b10100000}, bytes.toByteArray());
+        assertEquals(11, writer.bitsWritten());
+    }
+
+    @Test
+    void roundTripsCodesAcrossWordAndBufferBoundaries() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        // A tiny buffer forces a drain after every word
+        BitWriter writer = new BitWriter(Channels.newChannel(bytes), ByteBuffer.allocate(8));
+        Random random = new Random(11);
+        int[] lengths = new int[2_000];
+        long[] codes = new long[lengths.length];
+        for (int i = 0; i < lengths.length; i++) {
+            lengths[i] = 1 + random.nextInt(i % 50 == 0 ? 64 : 20);
+            codes[i] = lengths[i] == 64 ? random.nextLong() : random.nextLong() & ((1L << lengths[i]) - 1);
+            writer.write(codes[i], lengths[i]);
+        }
+        writer.flush();
+
+        BitReader reader = new BitReader(new ByteArrayInputStream(bytes.toByteArray()));
+        for (int i = 0; i < lengths.length; i++) {
+            long high = lengths[i] > 32 ? Integer.toUnsignedLong(reader.peek(lengths[i] - 32)) : 0;
+            if (lengths[i] > 32) {
+                reader.skip(lengths[i] - 32);
+            }
+            int low = Math.min(lengths[i], 32);
+            long value = (high << low) | Integer.toUnsignedLong(reader.peek(low));
+            reader.skip(low);
+            assertEquals(codes[i], value, "code " + i);
+        }
+        assertEquals((writer.bitsWritten() + 7) / 8, bytes.size());
+    }
+}
@@ -0,0 +1,396 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BlockCompressionEngineTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void roundTripsAcrossManyBlocks() throws IOException {
+        Path inputFile = tempDir.resolve("input.bin");
+        Path compressedFile = tempDir.resolve("input.bin.compressed");
+        Path outputFile = tempDir.resolve("output.bin");
+        byte[] content = mixedContent(100_000);
+        Files.write(inputFile, content);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            BlockIndex index = new BlockCompressionEngine(4096, executor).compress(inputFile, compressedFile);
+            assertEquals(25, index.getBlockCount());
+            assertEquals(content.length, index.getTotalUncompressedLength());
+        } finally {
+            executor.shutdown();
+        }
+
+        new DecompressionEngine().decompress(compressedFile, outputFile);
+
+        assertArrayEquals(content, Files.readAllBytes(outputFile));
+    }
+
+    @Test
+    void writesReadableIndex() throws IOException {
+        Path inputFile = tempDir.resolve("input.txt");
+        Path compressedFile = tempDir.resolve("input.txt.compressed");
+        Files.writeString(inputFile, "abracadabra".repeat(1000));
+
+        BlockIndex written = new BlockCompressionEngine(3000, ForkJoinPool.commonPool())
+                .compress(inputFile, compressedFile);
+
+        try (FileChannel channel = FileChannel.open(compressedFile)) {
+            BlockIndex read = BlockIndex.read(channel);
+            assertEquals(4, read.getBlockCount());
+            assertEquals(3000, read.getBlockSize());
+            for (int i = 0; i < read.getBlockCount(); i++) {
+                assertEquals(written.getRecordOffset(i), read.getRecordOffset(i));
+                assertEquals(written.getRecordLength(i), read.getRecordLength(i));
+                assertEquals(i * 3000L, read.getUncompressedOffset(i));
+            }
+            assertEquals(2000, read.getUncompressedLength(3));
+        }
+        assertTrue(Files.size(compressedFile) < Files.size(inputFile));
+    }
+
+    @Test
+    void compressesBinaryAndSingleSymbolBlocks() throws IOException {
+        Path inputFile = tempDir.resolve("input.bin");
+        Path compressedFile = tempDir.resolve("input.bin.compressed");
+        Path outputFile = tempDir.resolve("output.bin");
+        byte[] content = new byte[10_000];
+        new Random(7).nextBytes(content);
+        Arrays.fill(content, 0, 5_000, (byte) 0xFF);
+        Files.write(inputFile, content);
+
+        new BlockCompressionEngine(2_500, ForkJoinPool.commonPool()).compress(inputFile, compressedFile);
+        new BlockDecompressionEngine().decompress(compressedFile, outputFile);
+
+        assertArrayEquals(content, Files.readAllBytes(outputFile));
+    }
+
+    @Test
+    void codesSingleSymbolBlocksWithoutPayload() throws IOException {
+        byte[] content = new byte[100_000];
+        Arrays.fill(content, (byte) 'x');
+        for (int level : new int[] {CompressionLevel.MIN_LEVEL + 1, CompressionLevel.MAX_LEVEL}) {
+            BlockCodec codec = new BlockCodec(CompressionLevel.of(level));
+            byte[] record = codec.encode(content, 0, content.length);
+            byte[] decoded = new byte[content.length];
+
+            assertEquals(content.length, codec.decodeRecord(record, 0, record.length, decoded, 0));
+            assertArrayEquals(content, decoded);
+            assertEquals(BlockCodec.TYPE_HUFFMAN, record[0], "level " + level);
+            // Type, two varints and a one-entry table
+            assertTrue(record.length < 16, "level " + level + ": " + record.length);
+        }
+    }
+
+    @Test
+    void storesIncompressibleBlocksAtEveryLevel() throws IOException {
+        Path inputFile = tempDir.resolve("random.bin");
+        byte[] content = new byte[40_000];
+        new Random(13).nextBytes(content);
+        Files.write(inputFile, content);
+
+        for (int level = CompressionLevel.MIN_LEVEL; level <= CompressionLevel.MAX_LEVEL; level++) {
+            Path compressedFile = tempDir.resolve("random" + level + ".compressed");
+            Path outputFile = tempDir.resolve("random" + level + ".out");
+            BlockIndex index = new BlockCompressionEngine(CompressionLevel.of(level).withBlockSize(8192),
+                    ForkJoinPool.commonPool()).compress(inputFile, compressedFile);
+            new DecompressionEngine().decompress(compressedFile, outputFile);
+
+            assertArrayEquals(content, Files.readAllBytes(outputFile));
+            try (FileChannel channel = FileChannel.open(compressedFile)) {
+                int type = IoSupport.readFully(channel, index.getRecordOffset(0), 1).get();
+                assertEquals(BlockCodec.TYPE_STORED, type, "level " + level);
+            }
+            // Every record adds its type and two varints to the block
+            assertTrue(index.getRecordLength(0) <= 8192 + 6);
+        }
+    }
+
+    @Test
+    void handlesEmptyInput() throws IOException {
+        Path inputFile = tempDir.resolve("empty.txt");
+        Path compressedFile = tempDir.resolve("empty.txt.compressed");
+        Path outputFile = tempDir.resolve("empty.out");
+        Files.write(inputFile, new byte[0]);
+
+        BlockIndex index = new BlockCompressionEngine().compress(inputFile, compressedFile);
+        new DecompressionEngine().decompress(compressedFile, outputFile);
+
+        assertEquals(0, index.getBlockCount());
+        assertEquals(0, Files.size(outputFile));
+    }
+
+    @Test
+    void findsMatchesInRepetitiveBlocks() throws IOException {
+        Path inputFile = tempDir.resolve("input.log");
+        Path plainFile = tempDir.resolve("plain.huf");
+        Path matchedFile = tempDir.resolve("matched.huf");
+        Path outputFile = tempDir.resolve("output.log");
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            log.append("2024-01-01T00:00:").append(i % 60).append(" INFO request ").append(i % 7).append(" served\n");
+        }
+        byte[] content = log.toString().getBytes(StandardCharsets.US_ASCII);
+        Files.write(inputFile, content);
+
+        new BlockCompressionEngine(16 << 10, ForkJoinPool.commonPool()).compress(inputFile, plainFile);
+        new BlockCompressionEngine(CompressionLevel.DEFAULT.withBlockSize(16 << 10), ForkJoinPool.commonPool()).compress(inputFile, matchedFile);
+        new DecompressionEngine().decompress(matchedFile, outputFile);
+
+        assertArrayEquals(content, Files.readAllBytes(outputFile));
+        assertTrue(Files.size(matchedFile) * 3 < Files.size(plainFile));
+    }
+
+    @Test
+    void keepsHuffmanBlocksWhenMatchingDoesNotPay() throws IOException {
+        Path inputFile = tempDir.resolve("input.bin");
+        Path compressedFile = tempDir.resolve("compressed.huf");
+        Path outputFile = tempDir.resolve("output.bin");
+        byte[] content = mixedContent(50_000);
+        Files.write(inputFile, content);
+
+        new BlockCompressionEngine(CompressionLevel.DEFAULT.withBlockSize(4096), ForkJoinPool.commonPool()).compress(inputFile, compressedFile);
+        new DecompressionEngine().decompress(compressedFile, outputFile);
+
+        assertArrayEquals(content, Files.readAllBytes(outputFile));
+    }
+
+    @Test
+    void weighsCodeTablesWhenChoosingMatches() throws IOException {
+        // Short blocks where the LZ77 payload undercuts the Huffman payload but its two tables cost more
+        BlockCodec huffman = new BlockCodec(CompressionLevel.FAST);
+        BlockCodec matching = new BlockCodec(CompressionLevel.DEFAULT);
+        String[] words = {"alpha", "beta", "gamma", "delta", "epsilon", "zeta", "eta", "theta", "iota", "kappa",
+            "lambda", "mu"};
+        for (int seed = 0; seed < 100; seed++) {
+            Random random = new Random(seed);
+            int length = 200 + random.nextInt(3000);
+            StringBuilder text = new StringBuilder();
+            while (text.length() < length) {
+                text.append(words[random.nextInt(words.length)]).append((char) ('!' + random.nextInt(60)));
+            }
+            byte[] content = text.toString().getBytes(StandardCharsets.US_ASCII);
+
+            assertTrue(matching.encode(content, 0, content.length).length
+                    <= huffman.encode(content, 0, content.length).length, "seed " + seed);
+        }
+    }
+
+    @Test
+    void codesBytesByTheirPredecessor() throws IOException {
+        Path inputFile = tempDir.resolve("markov.txt");
+        Path plainFile = tempDir.resolve("plain.huf");
+        Path contextFile = tempDir.resolve("context.huf");
+        Path outputFile = tempDir.resolve("markov.out");
+        byte[] content = markovContent(60_000);
+        Files.write(inputFile, content);
+
+        new BlockCompressionEngine(CompressionLevel.FAST, ForkJoinPool.commonPool()).compress(inputFile, plainFile);
+        BlockIndex index = new BlockCompressionEngine(CompressionLevel.FAST.withContextModelling(true),
+                ForkJoinPool.commonPool()).compress(inputFile, contextFile);
+        new DecompressionEngine().decompress(contextFile, outputFile);
+
+        assertArrayEquals(content, Files.readAllBytes(outputFile));
+        try (FileChannel channel = FileChannel.open(contextFile)) {
+            assertEquals(BlockCodec.TYPE_CONTEXT, IoSupport.readFully(channel, index.getRecordOffset(0), 1).get());
+        }
+        assertTrue(Files.size(contextFile) * 10 < Files.size(plainFile) * 8);
+    }
+
+    @Test
+    void sortsBlocksWithBurrowsWheeler() throws IOException {
+        Path inputFile = tempDir.resolve("words.txt");
+        Path plainFile = tempDir.resolve("plain.huf");
+        Path sortedFile = tempDir.resolve("sorted.huf");
+        Path outputFile = tempDir.resolve("words.out");
+        String[] words = {"the", "block", "codec", "sorts", "every", "suffix", "of", "a", "stream", "and",
+            "ranks", "bytes", "by", "their", "context", "so", "runs", "grow", "long"};
+        Random random = new Random(29);
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 300_000) {
+            text.append(words[random.nextInt(words.length)]).append(random.nextInt(8) == 0 ? ". " : " ");
+        }
+        byte[] content = text.toString().getBytes(StandardCharsets.US_ASCII);
+        Files.write(inputFile, content);
+
+        new BlockCompressionEngine(CompressionLevel.DEFAULT.withBlockSize(100_000), ForkJoinPool.commonPool())
+                .compress(inputFile, plainFile);
+        BlockIndex index = new BlockCompressionEngine(
+                CompressionLevel.DEFAULT.withBlockSize(100_000).withBurrowsWheeler(true), ForkJoinPool.commonPool())
+                .compress(inputFile, sortedFile);
+        new DecompressionEngine().decompress(sortedFile, outputFile);
+
+        assertArrayEquals(content, Files.readAllBytes(outputFile));
+        try (FileChannel channel = FileChannel.open(sortedFile)) {
+            assertEquals(BlockCodec.TYPE_BURROWS_WHEELER,
+                    IoSupport.readFully(channel, index.getRecordOffset(0), 1).get());
+        }
+        assertTrue(Files.size(sortedFile) < Files.size(plainFile));
+    }
+
+    @Test
+    void codesSkewedBlocksWithAns() throws IOException {
+        Path inputFile = tempDir.resolve("sparse.bin");
+        Path plainFile = tempDir.resolve("plain.huf");
+        Path ansFile = tempDir.resolve("ans.huf");
+        Path outputFile = tempDir.resolve("sparse.out");
+        byte[] content = new byte[80_000];
+        Random random = new Random(19);
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (random.nextInt(10) == 0 ? random.nextInt(16) : 0);
+        }
+        Files.write(inputFile, content);
+
+        new BlockCompressionEngine(CompressionLevel.FAST, ForkJoinPool.commonPool()).compress(inputFile, plainFile);
+        BlockIndex index = new BlockCompressionEngine(CompressionLevel.FAST.withAnsCoding(true),
+                ForkJoinPool.commonPool()).compress(inputFile, ansFile);
+        new DecompressionEngine().decompress(ansFile, outputFile);
+
+        assertArrayEquals(content, Files.readAllBytes(outputFile));
+        try (FileChannel channel = FileChannel.open(ansFile)) {
+            assertEquals(BlockCodec.TYPE_ANS, IoSupport.readFully(channel, index.getRecordOffset(0), 1).get());
+        }
+        assertTrue(Files.size(ansFile) * 10 < Files.size(plainFile) * 8);
+    }
+
+    @Test
+    void splitsLargeHuffmanBlocksIntoStreams() throws IOException {
+        BlockCodec codec = new BlockCodec(CompressionLevel.FAST);
+        int[] lengths = {BlockCodec.MIN_STREAMS_LENGTH - 1, BlockCodec.MIN_STREAMS_LENGTH,
+            BlockCodec.MIN_STREAMS_LENGTH + 1, BlockCodec.MIN_STREAMS_LENGTH + 3, 50_001};
+        for (int length : lengths) {
+            byte[] content = markovContent(length);
+            byte[] record = codec.encode(content, 0, length);
+            byte[] decoded = new byte[length];
+
+            assertEquals(length, codec.decodeRecord(record, 0, record.length, decoded, 0));
+            assertArrayEquals(content, decoded);
+            assertEquals(length < BlockCodec.MIN_STREAMS_LENGTH ? BlockCodec.TYPE_HUFFMAN
+                    : BlockCodec.TYPE_HUFFMAN_STREAMS, record[0]);
+        }
+
+        // Geometric byte values get codes longer than the decoder's flat table
+        byte[] skewed = new byte[60_000];
+        Random random = new Random(23);
+        for (int i = 0; i < skewed.length; i++) {
+            skewed[i] = (byte) Math.min(255, (int) (-Math.log(1 - random.nextDouble()) * 12));
+        }
+        byte[] skewedRecord = codec.encode(skewed, 0, skewed.length);
+        byte[] skewedDecoded = new byte[skewed.length];
+        codec.decodeRecord(skewedRecord, 0, skewedRecord.length, skewedDecoded, 0);
+        assertEquals(BlockCodec.TYPE_HUFFMAN_STREAMS, skewedRecord[0]);
+        assertArrayEquals(skewed, skewedDecoded);
+
+        byte[] uniform = new byte[40_000];
+        Arrays.fill(uniform, (byte) 'a');
+        byte[] record = codec.encode(uniform, 0, uniform.length);
+        byte[] decoded = new byte[uniform.length];
+        codec.decodeRecord(record, 0, record.length, decoded, 0);
+        assertArrayEquals(uniform, decoded);
+    }
+
+    @Test
+    void rejectsStreamJumpTableOutsideBlock() throws IOException {
+        byte[] content = markovContent(30_000);
+        byte[] record = new BlockCodec(CompressionLevel.FAST).encode(content, 0, content.length);
+        int position = 1 + (int) (HeaderReader.readVarInt(record, 1, record.length) >>> Integer.SIZE);
+        position += (int) (HeaderReader.readVarInt(record, position, record.length) >>> Integer.SIZE);
+        // The first stream claims about two megabytes
+        int jumpTable = new CanonicalDecoder().readTable(record, position, record.length);
+        record[jumpTable] = (byte) 0xFF;
+        record[jumpTable + 1] = (byte) 0xFF;
+        record[jumpTable + 2] = (byte) 0x7F;
+
+        assertThrows(IOException.class,
+                () -> new BlockCodec().decodeRecord(record, 0, record.length, new byte[content.length], 0));
+    }
+
+    @Test
+    void rejectsStreamsRecordsClaimingShortBlocks() throws IOException {
+        byte[] content = markovContent(30_000);
+        byte[] record = new BlockCodec(CompressionLevel.FAST).encode(content, 0, content.length);
+        int lengthEnd = 1 + (int) (HeaderReader.readVarInt(record, 1, record.length) >>> Integer.SIZE);
+        assertEquals(BlockCodec.TYPE_HUFFMAN_STREAMS, record[0]);
+
+        for (int claimed : new int[] {1, 2, 5, BlockCodec.MIN_STREAMS_LENGTH - 1}) {
+            // Same record with the uncompressed length varint replaced
+            byte[] varint = new byte[5];
+            int varintLength = HeaderWriter.writeVarInt(claimed, varint, 0);
+            byte[] forged = new byte[record.length - lengthEnd + 1 + varintLength];
+            forged[0] = record[0];
+            System.arraycopy(varint, 0, forged, 1, varintLength);
+            System.arraycopy(record, lengthEnd, forged, 1 + varintLength, record.length - lengthEnd);
+            byte[] destination = new byte[content.length];
+
+            assertThrows(IOException.class,
+                    () -> new BlockCodec().decodeRecord(forged, 0, forged.length, destination, 0),
+                    "claimed length " + claimed);
+        }
+    }
+
+    @Test
+    void rejectsInvalidBlockSize() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new BlockCompressionEngine(0, ForkJoinPool.commonPool()));
+    }
+
+    @Test
+    void throwsExceptionForMissingInputFile() {
+        BlockCompressionEngine engine = new BlockCompressionEngine();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.compress(tempDir.resolve("missing.txt"), tempDir.resolve("out")));
+    }
+
+    /**
+     * Returns letters drawn from a chain where every letter has a few likely
+     * successors, so order-1 statistics are much sharper than order-0 ones
+     * while repeated strings stay short.
+     */
+    static byte[] markovContent(int length) {
+        String alphabet = "abcdefghijklmnopqrstuvwxyz ";
+        Random random = new Random(17);
+        byte[] content = new byte[length];
+        int previous = 0;
+        for (int i = 0; i < length; i++) {
+            int next = random.nextInt(4) == 0
+                    ? random.nextInt(alphabet.length())
+                    : (previous * 7 + random.nextInt(3)) % alphabet.length();
+            content[i] = (byte) alphabet.charAt(next);
+            previous = next;
+        }
+        return content;
+    }
+
+    static byte[] mixedContent(int length) {
+        byte[] content = new byte[length];
+        Random random = new Random(42);
+        String text = "The quick brown fox jumps over the lazy dog. ";
+        for (int i = 0; i < length; i++) {
+            // Alternate text-like and noisy regions so blocks get different tables
+            content[i] = (i / 10_000) % 2 == 0
+                    ? (byte) text.charAt(i % text.length())
+                    : (byte) random.nextInt(256);
+        }
+        return content;
+    }
+}
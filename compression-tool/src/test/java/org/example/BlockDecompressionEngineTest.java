@@ -0,0 +1,184 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BlockDecompressionEngineTest {
+
+    private static final int BLOCK_SIZE = 4096;
+
+    @TempDir
+    Path tempDir;
+
+    private byte[] content;
+    private Path compressedFile;
+
+    @BeforeEach
+    void compressContent() throws IOException {
+        content = BlockCompressionEngineTest.mixedContent(50_000);
+        Path inputFile = tempDir.resolve("input.bin");
+        compressedFile = tempDir.resolve("input.bin.compressed");
+        Files.write(inputFile, content);
+        new BlockCompressionEngine(BLOCK_SIZE, ForkJoinPool.commonPool()).compress(inputFile, compressedFile);
+    }
+
+    @Test
+    void decompressesBlocksInParallel() throws IOException {
+        Path outputFile = tempDir.resolve("output.bin");
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            new BlockDecompressionEngine(executor).decompress(compressedFile, outputFile);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertArrayEquals(content, Files.readAllBytes(outputFile));
+    }
+
+    @Test
+    void decompressesRangeSpanningSeveralBlocks() throws IOException {
+        Path outputFile = tempDir.resolve("range.bin");
+        int offset = BLOCK_SIZE * 3 - 100;
+        int length = BLOCK_SIZE * 2 + 250;
+
+        new BlockDecompressionEngine().decompressRange(compressedFile, outputFile, offset, length);
+
+        assertArrayEquals(Arrays.copyOfRange(content, offset, offset + length), Files.readAllBytes(outputFile));
+    }
+
+    @Test
+    void decompressesRangeInsideOneBlock() throws IOException {
+        Path outputFile = tempDir.resolve("range.bin");
+
+        new BlockDecompressionEngine().decompressRange(compressedFile, outputFile, 49_990, 10);
+
+        assertArrayEquals(Arrays.copyOfRange(content, 49_990, 50_000), Files.readAllBytes(outputFile));
+    }
+
+    @Test
+    void decompressesEmptyRange() throws IOException {
+        Path outputFile = tempDir.resolve("range.bin");
+
+        new BlockDecompressionEngine().decompressRange(compressedFile, outputFile, 1234, 0);
+
+        assertEquals(0, Files.size(outputFile));
+    }
+
+    @Test
+    void rejectsRangePastTheEnd() {
+        BlockDecompressionEngine engine = new BlockDecompressionEngine();
+        Path outputFile = tempDir.resolve("range.bin");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.decompressRange(compressedFile, outputFile, 49_999, 2));
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.decompressRange(compressedFile, outputFile, -1, 2));
+    }
+
+    @Test
+    void rejectsCorruptTrailer() throws IOException {
+        byte[] bytes = Files.readAllBytes(compressedFile);
+        bytes[bytes.length - 1] ^= 0x01;
+        Path corrupt = tempDir.resolve("corrupt.compressed");
+        Files.write(corrupt, bytes);
+
+        IOException exception = assertThrows(IOException.class,
+                () -> new BlockDecompressionEngine().decompress(corrupt, tempDir.resolve("out")));
+        assertEquals("Invalid container end marker", exception.getMessage());
+    }
+
+    @Test
+    void verifiesBlockChecksums() throws IOException {
+        Path inputFile = tempDir.resolve("input.bin");
+        Path checkedFile = tempDir.resolve("checked.compressed");
+        Path outputFile = tempDir.resolve("checked.out");
+        new BlockCompressionEngine(CompressionLevel.DEFAULT.withBlockSize(BLOCK_SIZE), ForkJoinPool.commonPool(), true)
+                .compress(inputFile, checkedFile);
+
+        new BlockDecompressionEngine().decompress(checkedFile, outputFile);
+
+        assertArrayEquals(content, Files.readAllBytes(outputFile));
+        try (FileChannel channel = FileChannel.open(checkedFile)) {
+            assertTrue(BlockIndex.read(channel).hasChecksums());
+        }
+    }
+
+    @Test
+    void detectsCorruptionThatStillDecodes() throws IOException {
+        Path inputFile = tempDir.resolve("input.bin");
+        Path plainFile = tempDir.resolve("plain.compressed");
+        Path checkedFile = tempDir.resolve("checked.compressed");
+        CompressionLevel stored = CompressionLevel.STORE.withBlockSize(BLOCK_SIZE);
+        new BlockCompressionEngine(stored, ForkJoinPool.commonPool(), false).compress(inputFile, plainFile);
+        new BlockCompressionEngine(stored, ForkJoinPool.commonPool(), true).compress(inputFile, checkedFile);
+        // Stored blocks decode whatever their bytes are, so only a checksum notices a flipped bit
+        flipByte(plainFile, 2 * BLOCK_SIZE);
+        flipByte(checkedFile, 2 * BLOCK_SIZE);
+
+        new BlockDecompressionEngine().decompress(plainFile, tempDir.resolve("plain.out"));
+        IOException exception = assertThrows(IOException.class,
+                () -> new BlockDecompressionEngine().decompress(checkedFile, tempDir.resolve("checked.out")));
+
+        assertFalse(Arrays.equals(content, Files.readAllBytes(tempDir.resolve("plain.out"))));
+        assertTrue(exception.getMessage().startsWith("Block checksum mismatch"));
+    }
+
+    @Test
+    void rejectsUnknownContainerFlags() throws IOException {
+        byte[] bytes = Files.readAllBytes(compressedFile);
+        bytes[5] = (byte) 0x80;
+        Path corrupt = tempDir.resolve("flags.compressed");
+        Files.write(corrupt, bytes);
+
+        IOException exception = assertThrows(IOException.class,
+                () -> new BlockDecompressionEngine().decompress(corrupt, tempDir.resolve("out")));
+        assertEquals("Unsupported container flags: 128", exception.getMessage());
+    }
+
+    @Test
+    void rejectsOversizedBlockSize() throws IOException {
+        byte[] bytes = Files.readAllBytes(compressedFile);
+        ByteBuffer.wrap(bytes).putInt(6, Integer.MAX_VALUE);
+        Path corrupt = tempDir.resolve("block-size.compressed");
+        Files.write(corrupt, bytes);
+
+        IOException exception = assertThrows(IOException.class,
+                () -> new BlockDecompressionEngine().decompress(corrupt, tempDir.resolve("out")));
+        assertEquals("Invalid block size: " + Integer.MAX_VALUE, exception.getMessage());
+    }
+
+    @Test
+    void rejectsOversizedBlockCount() throws IOException {
+        byte[] bytes = Files.readAllBytes(compressedFile);
+        ByteBuffer.wrap(bytes).putInt(bytes.length - 8, Integer.MAX_VALUE);
+        Path corrupt = tempDir.resolve("block-count.compressed");
+        Files.write(corrupt, bytes);
+
+        IOException exception = assertThrows(IOException.class,
+                () -> new BlockDecompressionEngine().decompress(corrupt, tempDir.resolve("out")));
+        assertEquals("Invalid block index location", exception.getMessage());
+    }
+
+    private static void flipByte(Path file, int position) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[position] ^= 0x10;
+        Files.write(file, bytes);
+    }
+}
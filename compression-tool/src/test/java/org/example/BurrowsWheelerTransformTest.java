@@ -0,0 +1,83 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+class BurrowsWheelerTransformTest {
+
+    @Test
+    void transformsBanana() throws IOException {
+        byte[] data = "banana".getBytes(StandardCharsets.US_ASCII);
+        byte[] transformed = new byte[data.length];
+
+        int primary = BurrowsWheelerTransform.forward(data, 0, data.length, transformed);
+
+        // Sorted suffixes: $, a$, ana$, anana$, banana$, na$, nana$
+        assertEquals(4, primary);
+        assertArrayEquals("annbaa".getBytes(StandardCharsets.US_ASCII), transformed);
+        byte[] restored = new byte[data.length];
+        BurrowsWheelerTransform.inverse(transformed, primary, restored, 0);
+        assertArrayEquals(data, restored);
+    }
+
+    @Test
+    void sortsSuffixesLikeComparison() {
+        Random random = new Random(5);
+        for (int trial = 0; trial < 200; trial++) {
+            int length = 1 + random.nextInt(300);
+            int alphabet = 1 + random.nextInt(trial % 2 == 0 ? 3 : 256);
+            int[] text = new int[length + 1];
+            for (int i = 0; i < length; i++) {
+                text[i] = 1 + random.nextInt(alphabet);
+            }
+            int[] suffixes = new int[length + 1];
+
+            BurrowsWheelerTransform.suffixArray(text, suffixes, length + 1, 257);
+
+            assertArrayEquals(naiveSuffixArray(text), suffixes, "trial " + trial);
+        }
+    }
+
+    @Test
+    void restoresRepetitiveAndRandomBlocks() throws IOException {
+        Random random = new Random(11);
+        byte[] noise = new byte[50_000];
+        random.nextBytes(noise);
+        byte[] runs = new byte[50_000];
+        Arrays.fill(runs, (byte) 'x');
+        byte[] periodic = new byte[50_001];
+        for (int i = 0; i < periodic.length; i++) {
+            periodic[i] = (byte) "abcab".charAt(i % 5);
+        }
+
+        for (byte[] data : new byte[][] {noise, runs, periodic, {42}}) {
+            byte[] transformed = new byte[data.length];
+            int primary = BurrowsWheelerTransform.forward(data, 0, data.length, transformed);
+            byte[] restored = new byte[data.length];
+            BurrowsWheelerTransform.inverse(transformed, primary, restored, 0);
+            assertArrayEquals(data, restored);
+        }
+    }
+
+    @Test
+    void rejectsInvalidPrimaryIndex() {
+        byte[] transformed = "annbaa".getBytes(StandardCharsets.US_ASCII);
+
+        assertThrows(IOException.class, () -> BurrowsWheelerTransform.inverse(transformed, 0, new byte[6], 0));
+        assertThrows(IOException.class, () -> BurrowsWheelerTransform.inverse(transformed, 7, new byte[6], 0));
+    }
+
+    private static int[] naiveSuffixArray(int[] text) {
+        Comparator<Integer> bySuffix = (a, b) -> Arrays.compare(text, a, text.length, text, b, text.length);
+        return IntStream.range(0, text.length).boxed().sorted(bySuffix).mapToInt(Integer::intValue).toArray();
+    }
+}
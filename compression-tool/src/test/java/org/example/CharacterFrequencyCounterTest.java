@@ -5,7 +5,9 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -53,4 +55,83 @@ class CharacterFrequencyCounterTest {
 
         assertTrue(exception.getMessage().contains("File is not a readable, regular file"));
     }
+
+    @Test
+    void countsBytesAsUnsignedValues() {
+        CharacterFrequencyCounter counter = new CharacterFrequencyCounter();
+        byte[] data = {0x00, 'a', 'a', (byte) 0xFF, 'z'};
+
+        Map<Character, Long> frequencies = counter.count(data, 0, 4);
+
+        assertEquals(Map.of((char) 0, 1L, 'a', 2L, (char) 0xFF, 1L), frequencies);
+    }
+
+    @Test
+    void estimatesEntropyOfHistograms() {
+        long[] uniform = new long[256];
+        Arrays.fill(uniform, 10);
+        long[] skewed = {900, 50, 50};
+
+        assertEquals(8 * 2560, CharacterFrequencyCounter.entropyBits(uniform), 1e-6);
+        assertEquals(0, CharacterFrequencyCounter.entropyBits(new long[] {42}), 1e-9);
+        assertTrue(CharacterFrequencyCounter.entropyBits(skewed) < 1000);
+        assertEquals(0, CharacterFrequencyCounter.entropyBits(new long[256]), 1e-9);
+    }
+
+    @Test
+    void detectsIncompressibleHistograms() {
+        CharacterFrequencyCounter counter = new CharacterFrequencyCounter();
+        byte[] random = new byte[1 << 16];
+        new Random(5).nextBytes(random);
+        byte[] text = "compressible text with a small alphabet ".repeat(2000).getBytes();
+
+        assertTrue(CharacterFrequencyCounter.isIncompressible(counter.countBytes(random, 0, random.length),
+                random.length));
+        assertFalse(CharacterFrequencyCounter.isIncompressible(counter.countBytes(text, 0, text.length), text.length));
+    }
+
+    @Test
+    void countsLargeFileInParallelSegments() throws IOException {
+        Path temp = Files.createTempFile("char-frequency-large", ".txt");
+        // Multi-byte characters make segment cuts land inside UTF-8 sequences
+        String unit = "a\u00e9\u4e2d\ud83d\ude00\n";
+        int repetitions = 700_000;
+        Files.writeString(temp, unit.repeat(repetitions));
+        try {
+            CharacterFrequencyCounter counter = new CharacterFrequencyCounter();
+
+            long[] counts = counter.countCharacters(temp);
+            Map<Character, Long> frequencies = counter.count(temp);
+
+            assertEquals(repetitions, counts['a']);
+            assertEquals(repetitions, counts['\u00e9']);
+            assertEquals(repetitions, counts['\u4e2d']);
+            assertEquals(repetitions, counts['\ud83d']);
+            assertEquals(repetitions, counts['\ude00']);
+            assertEquals(repetitions, counts['\n']);
+            assertEquals(6, frequencies.size());
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Test
+    void countsFileBytesInParallelSegments() throws IOException {
+        Path temp = Files.createTempFile("byte-frequency-large", ".bin");
+        byte[] data = new byte[5 << 20];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i % 251);
+        }
+        Files.write(temp, data);
+        try {
+            CharacterFrequencyCounter counter = new CharacterFrequencyCounter();
+
+            long[] counts = counter.countBytes(temp);
+
+            assertArrayEquals(counter.countBytes(data, 0, data.length), counts);
+            assertEquals(0, counts[251]);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
 }
@@ -0,0 +1,104 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+class CodeLengthBuilderTest {
+
+    private final CodeLengthBuilder builder = new CodeLengthBuilder();
+
+    private static long treeCost(long[] counts) {
+        Map<Character, Integer> lengths = new HuffmanCodeGenerator().generateCodeLengths(
+                new HuffmanTreeBuilder().buildTree(CharacterFrequencyCounter.toMap(counts)));
+        long total = 0;
+        for (Map.Entry<Character, Integer> entry : lengths.entrySet()) {
+            total += counts[entry.getKey()] * entry.getValue();
+        }
+        return total;
+    }
+
+    @Test
+    void matchesTheTreeOnRandomDistributions() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            long[] counts = new long[256];
+            int symbols = 2 + random.nextInt(255);
+            for (int i = 0; i < symbols; i++) {
+                counts[random.nextInt(counts.length)] = 1 + random.nextInt(1 + random.nextInt(100_000));
+            }
+
+            int[] lengths = builder.buildCodeLengths(counts, HuffmanCodeGenerator.MAX_CANONICAL_CODE_LENGTH);
+
+            assertEquals(treeCost(counts), CodeLengthBuilder.totalBits(counts, lengths));
+            assertEquals(1.0, LengthLimitedCodeBuilderTest.kraftSum(lengths), 1e-12);
+        }
+    }
+
+    @Test
+    void leavesAbsentSymbolsWithoutCode() {
+        long[] counts = new long[8];
+        counts[2] = 5;
+        counts[6] = 1;
+        counts[7] = 1;
+
+        assertArrayEquals(new int[] { 0, 0, 1, 0, 0, 0, 2, 2 }, builder.buildCodeLengths(counts, 15));
+    }
+
+    @Test
+    void singleSymbolGetsOneBit() {
+        long[] counts = new long[256];
+        counts['x'] = 1000;
+
+        int[] lengths = builder.buildCodeLengths(counts, 15);
+
+        assertEquals(1, lengths['x']);
+        assertEquals(1, Arrays.stream(lengths).sum());
+    }
+
+    @Test
+    void emptyCountsGiveNoCodes() {
+        assertArrayEquals(new int[4], builder.buildCodeLengths(new long[4], 15));
+    }
+
+    @Test
+    void fallsBackToLengthLimitingForDeepCodes() {
+        long[] counts = new long[30];
+        counts[0] = 1;
+        counts[1] = 1;
+        for (int i = 2; i < counts.length; i++) {
+            counts[i] = counts[i - 1] + counts[i - 2];
+        }
+
+        assertEquals(29, Arrays.stream(builder.buildCodeLengths(counts, 63)).max().getAsInt());
+        int[] limited = builder.buildCodeLengths(counts, 10);
+        assertEquals(10, Arrays.stream(limited).max().getAsInt());
+        assertEquals(1.0, LengthLimitedCodeBuilderTest.kraftSum(limited), 1e-12);
+    }
+
+    @Test
+    void handlesCountsTooLargeForPackedSorting() {
+        long[] counts = { 1L << 50, 3, 1L << 52, 2 };
+
+        assertArrayEquals(new int[] { 2, 3, 1, 3 }, builder.buildCodeLengths(counts, 15));
+    }
+
+    @Test
+    void rejectsNegativeCounts() {
+        assertThrows(IllegalArgumentException.class, () -> builder.buildCodeLengths(new long[] { 1, -1 }, 15));
+    }
+
+    @Test
+    void convertsLengthsToMap() {
+        int[] lengths = new int[128];
+        lengths['a'] = 1;
+        lengths['c'] = 2;
+
+        assertEquals(Map.of('a', 1, 'c', 2), CodeLengthBuilder.toMap(lengths));
+    }
+}
@@ -0,0 +1,79 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class CompressionContextTest {
+
+    @Test
+    void writesRecordsTheBlockCodecDecodes() throws IOException {
+        byte[] message = "{\"user\":42,\"action\":\"login\",\"status\":\"ok\"}".repeat(4).getBytes(StandardCharsets.US_ASCII);
+
+        byte[] record = new CompressionContext().compress(message);
+        byte[] decoded = new byte[message.length];
+        int length = new BlockCodec().decodeRecord(record, 0, record.length, decoded, 0);
+
+        assertEquals(BlockCodec.TYPE_HUFFMAN, record[0]);
+        assertTrue(record.length < message.length);
+        assertEquals(message.length, length);
+        assertArrayEquals(message, decoded);
+    }
+
+    @Test
+    void matchesTheBlockCodecByteForByte() throws IOException {
+        byte[] message = BlockCompressionEngineTest.mixedContent(3000);
+
+        assertArrayEquals(new BlockCodec().encode(message, 0, message.length),
+                new CompressionContext().compress(message));
+    }
+
+    @Test
+    void reusesTheContextAcrossMessages() throws IOException {
+        CompressionContext context = new CompressionContext();
+        DecompressionContext decompression = new DecompressionContext();
+        Random random = new Random(5);
+        byte[] destination = new byte[CompressionContext.maxCompressedLength(2048) + 16];
+        for (int i = 0; i < 200; i++) {
+            byte[] message = new byte[random.nextInt(2048)];
+            int alphabet = 1 + random.nextInt(256);
+            for (int j = 0; j < message.length; j++) {
+                message[j] = (byte) random.nextInt(alphabet);
+            }
+
+            int size = context.compress(message, 0, message.length, destination, 16);
+            byte[] decoded = new byte[message.length];
+            decompression.decompress(destination, 16, size, decoded, 0);
+
+            assertTrue(size <= CompressionContext.maxCompressedLength(message.length));
+            assertArrayEquals(message, decoded, "message " + i);
+        }
+    }
+
+    @Test
+    void storesEmptyAndIncompressibleMessages() {
+        CompressionContext context = new CompressionContext();
+        byte[] random = new byte[500];
+        new Random(8).nextBytes(random);
+
+        assertArrayEquals(new byte[] {BlockCodec.TYPE_STORED, 0, 0}, context.compress(new byte[0]));
+        byte[] record = context.compress(random);
+        assertEquals(BlockCodec.TYPE_STORED, record[0]);
+        assertEquals(CompressionContext.maxCompressedLength(random.length), record.length);
+    }
+
+    @Test
+    void rejectsTooSmallDestination() {
+        byte[] message = "abababababababababababab".getBytes(StandardCharsets.US_ASCII);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new CompressionContext().compress(message, 0, message.length, new byte[4], 0));
+        assertThrows(IllegalArgumentException.class, () -> CompressionContext.maxCompressedLength(-1));
+    }
+}
@@ -1,10 +1,16 @@
 package org.example;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -104,7 +110,8 @@ class CompressionEngineTest {
     void compressesFileWithVariedContent() throws IOException {
         Path inputFile = tempDir.resolve("input.txt");
         Path outputFile = tempDir.resolve("input.txt.compressed");
-        String content = "The quick brown fox jumps over the lazy dog";
+        // Repeated so that coding beats storing once the code table is paid for
+        String content = "The quick brown fox jumps over the lazy dog. ".repeat(20);
         Files.writeString(inputFile, content);
 
         CompressionEngine engine = new CompressionEngine();
@@ -116,11 +123,14 @@ class CompressionEngineTest {
         try (DataInputStream dis = new DataInputStream(Files.newInputStream(outputFile))) {
             int magic = dis.readInt();
             byte version = dis.readByte();
-            int charCount = dis.readInt();
+            byte flags = dis.readByte();
+            Map<Character, Integer> codeLengths = new HeaderReader().readCodeLengths(dis);
 
             assertEquals(0xC0DE, magic);
-            assertEquals(1, version);
-            assertTrue(charCount > 0, "Should have character frequencies");
+            assertEquals(2, version);
+            assertEquals(0, flags);
+            assertEquals(content.chars().distinct().count(), codeLengths.size(),
+                    "Should have a code length for every character");
         }
     }
 
@@ -153,4 +163,170 @@ class CompressionEngineTest {
                 () -> engine.compress(inputFile, outputFile),
                 "Should throw exception for empty file");
     }
+
+    @Test
+    void streamsInputLargerThanReadBuffer() throws IOException {
+        Path inputFile = tempDir.resolve("large.txt");
+        Path outputFile = tempDir.resolve("large.txt.compressed");
+        Path restoredFile = tempDir.resolve("large.out");
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            content.append("line ").append(i).append(" \u00e9t\u00e9\n");
+        }
+        Files.writeString(inputFile, content.toString());
+
+        CompressionEngine engine = new CompressionEngine();
+        CompressionEngine.CompressionStats stats = engine.compressWithStats(inputFile, outputFile);
+        new DecompressionEngine().decompress(outputFile, restoredFile);
+
+        long payloadBytes = (stats.totalBits() + 7) / 8;
+        assertTrue(Files.size(outputFile) > payloadBytes, "Output should hold the whole payload");
+        assertEquals(content.toString(), Files.readString(restoredFile));
+    }
+
+    @Test
+    void compressesBinaryFileInByteMode() throws IOException {
+        Path inputFile = tempDir.resolve("input.bin");
+        Path outputFile = tempDir.resolve("input.bin.compressed");
+        Path restoredFile = tempDir.resolve("restored.bin");
+        // Bytes that are not valid UTF-8, skewed towards zero
+        byte[] content = new byte[200_000];
+        Random random = new Random(3);
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (random.nextInt(4) == 0 ? random.nextInt(256) : 0x80 | random.nextInt(4));
+        }
+        Files.write(inputFile, content);
+
+        CompressionEngine engine = new CompressionEngine();
+        CompressionEngine.CompressionStats stats = engine.compressBytes(inputFile, outputFile);
+        new DecompressionEngine().decompress(outputFile, restoredFile);
+
+        assertArrayEquals(content, Files.readAllBytes(restoredFile));
+        assertTrue(stats.frequencies().keySet().stream().allMatch(symbol -> symbol <= 0xFF));
+        try (DataInputStream dis = new DataInputStream(Files.newInputStream(outputFile))) {
+            dis.readInt();
+            assertEquals(2, dis.readByte());
+            assertEquals(HeaderWriter.BYTE_SYMBOLS_FLAG, dis.readByte(), "Byte symbol flag should be set");
+        }
+    }
+
+    @Test
+    void storesInputWhoseCodeTableOutweighsTheSaving() throws IOException {
+        Path inputFile = tempDir.resolve("small.bin");
+        Path outputFile = tempDir.resolve("small.bin.compressed");
+        Path restoredFile = tempDir.resolve("small.out");
+        // Skewed enough to pass the entropy check, yet the 201-entry table costs more than coding saves
+        byte[] content = new byte[300];
+        Arrays.fill(content, 0, 100, (byte) 'a');
+        for (int i = 0; i < 200; i++) {
+            content[100 + i] = (byte) (i < 'a' ? i : i + 1);
+        }
+        Files.write(inputFile, content);
+
+        CompressionEngine.CompressionStats stats = new CompressionEngine().compressBytes(inputFile, outputFile);
+        new DecompressionEngine().decompress(outputFile, restoredFile);
+
+        assertTrue(stats.isStored());
+        assertEquals(content.length + 20, Files.size(outputFile));
+        assertArrayEquals(content, Files.readAllBytes(restoredFile));
+    }
+
+    @Test
+    void storesIncompressibleInputUnchanged() throws IOException {
+        Path inputFile = tempDir.resolve("random.bin");
+        Path outputFile = tempDir.resolve("random.bin.compressed");
+        Path restoredFile = tempDir.resolve("random.out");
+        byte[] content = new byte[300_000];
+        new Random(9).nextBytes(content);
+        Files.write(inputFile, content);
+
+        CompressionEngine.CompressionStats stats = new CompressionEngine().compressBytes(inputFile, outputFile);
+        new DecompressionEngine().decompress(outputFile, restoredFile);
+
+        assertTrue(stats.isStored());
+        assertEquals(8L * content.length, stats.totalBits());
+        // Magic, version, flags, empty code table, end marker, bit length and padding
+        assertEquals(content.length + 20, Files.size(outputFile));
+        assertArrayEquals(content, Files.readAllBytes(restoredFile));
+        try (DataInputStream dis = new DataInputStream(Files.newInputStream(outputFile))) {
+            dis.readInt();
+            dis.readByte();
+            assertEquals(HeaderWriter.BYTE_SYMBOLS_FLAG | HeaderWriter.STORED_FLAG, dis.readByte());
+        }
+    }
+
+    @Test
+    void limitsCodeLengths() throws IOException {
+        Path inputFile = tempDir.resolve("skewed.bin");
+        Path compressedFile = tempDir.resolve("skewed.bin.compressed");
+        Path outputFile = tempDir.resolve("skewed.out");
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        long previous = 1;
+        long current = 1;
+        for (int symbol = 0; symbol < 24; symbol++) {
+            for (long i = 0; i < current; i++) {
+                content.write(symbol);
+            }
+            long next = previous + current;
+            previous = current;
+            current = next;
+        }
+        Files.write(inputFile, content.toByteArray());
+
+        CompressionEngine.CompressionStats stats = new CompressionEngine(12).compressBytes(inputFile, compressedFile);
+        new DecompressionEngine().decompress(compressedFile, outputFile);
+
+        assertEquals(12, stats.codes().values().stream().mapToInt(String::length).max().getAsInt());
+        assertArrayEquals(content.toByteArray(), Files.readAllBytes(outputFile));
+    }
+
+    @Test
+    void tradesSpeedForRatioAcrossLevels() throws IOException {
+        Path inputFile = tempDir.resolve("service.log");
+        StringBuilder log = new StringBuilder();
+        Random random = new Random(11);
+        for (int i = 0; i < 4000; i++) {
+            log.append("2024-03-0").append(random.nextInt(9) + 1).append(" level=").append(random.nextBoolean() ? "INFO" : "WARN")
+                    .append(" user=").append(random.nextInt(50)).append(" latency=").append(random.nextInt(1000))
+                    .append("ms\n");
+        }
+        byte[] content = log.toString().getBytes();
+        Files.write(inputFile, content);
+
+        long[] sizes = new long[CompressionLevel.MAX_LEVEL + 1];
+        for (int level = CompressionLevel.MIN_LEVEL; level <= CompressionLevel.MAX_LEVEL; level++) {
+            Path compressedFile = tempDir.resolve("level" + level);
+            Path outputFile = tempDir.resolve("level" + level + ".out");
+            new CompressionEngine().compress(inputFile, compressedFile, CompressionLevel.of(level));
+            new DecompressionEngine().decompress(compressedFile, outputFile);
+
+            assertArrayEquals(content, Files.readAllBytes(outputFile), "level " + level);
+            sizes[level] = Files.size(compressedFile);
+        }
+
+        assertTrue(sizes[0] > content.length);
+        assertTrue(sizes[1] < sizes[0]);
+        assertTrue(sizes[2] < sizes[1]);
+        assertTrue(sizes[6] <= sizes[2]);
+        assertTrue(sizes[9] <= sizes[6]);
+    }
+
+    @Test
+    void compressesStreamsAtALevel() throws IOException {
+        byte[] content = "GET /index.html 200\n".repeat(3000).getBytes();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+        long count = new CompressionEngine().compress(new ByteArrayInputStream(content), compressed, CompressionLevel.BEST);
+        ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+        new DecompressionEngine().decompress(new ByteArrayInputStream(compressed.toByteArray()), decompressed);
+
+        assertEquals(content.length, count);
+        assertTrue(compressed.size() * 50 < content.length);
+        assertArrayEquals(content, decompressed.toByteArray());
+    }
+
+    @Test
+    void rejectsInvalidMaximumCodeLength() {
+        assertThrows(IllegalArgumentException.class, () -> new CompressionEngine(0));
+    }
 }
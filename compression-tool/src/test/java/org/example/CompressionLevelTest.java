@@ -0,0 +1,68 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class CompressionLevelTest {
+
+    @Test
+    void looksUpPresetsByNumber() {
+        for (int level = CompressionLevel.MIN_LEVEL; level <= CompressionLevel.MAX_LEVEL; level++) {
+            assertEquals(level, CompressionLevel.of(level).level());
+        }
+        assertSame(CompressionLevel.STORE, CompressionLevel.of(0));
+        assertSame(CompressionLevel.FAST, CompressionLevel.of(1));
+        assertSame(CompressionLevel.BEST, CompressionLevel.of(CompressionLevel.MAX_LEVEL));
+    }
+
+    @Test
+    void searchesHarderAtHigherLevels() {
+        assertTrue(CompressionLevel.STORE.storesBlocks());
+        assertFalse(CompressionLevel.FAST.storesBlocks());
+        assertFalse(CompressionLevel.FAST.findsMatches());
+        for (int level = 3; level <= CompressionLevel.MAX_LEVEL; level++) {
+            assertTrue(CompressionLevel.of(level).maxChainLength() > CompressionLevel.of(level - 1).maxChainLength());
+        }
+        assertTrue(CompressionLevel.BEST.optimalParsing());
+    }
+
+    @Test
+    void replacesBlockSize() {
+        CompressionLevel level = CompressionLevel.DEFAULT.withBlockSize(4096);
+
+        assertEquals(4096, level.blockSize());
+        assertEquals(CompressionLevel.DEFAULT.maxChainLength(), level.maxChainLength());
+    }
+
+    @Test
+    void switchesContextModelling() {
+        CompressionLevel level = CompressionLevel.FAST.withContextModelling(true);
+
+        assertFalse(CompressionLevel.DEFAULT.contextModelling());
+        assertTrue(CompressionLevel.BEST.contextModelling());
+        assertTrue(level.contextModelling());
+        assertEquals(CompressionLevel.FAST.maxChainLength(), level.maxChainLength());
+    }
+
+    @Test
+    void switchesBurrowsWheeler() {
+        CompressionLevel level = CompressionLevel.DEFAULT.withBurrowsWheeler(true);
+
+        assertFalse(CompressionLevel.DEFAULT.burrowsWheeler());
+        assertTrue(CompressionLevel.BEST.burrowsWheeler());
+        assertTrue(level.burrowsWheeler());
+        assertEquals(CompressionLevel.DEFAULT.maxChainLength(), level.maxChainLength());
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> CompressionLevel.of(-1));
+        assertThrows(IllegalArgumentException.class, () -> CompressionLevel.of(CompressionLevel.MAX_LEVEL + 1));
+        assertThrows(IllegalArgumentException.class, () -> CompressionLevel.FAST.withBlockSize(0));
+        assertThrows(IllegalArgumentException.class, () -> new CompressionLevel(5, 4096, -1, false, false, false, false, false));
+    }
+}
@@ -0,0 +1,68 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+class DecompressionContextTest {
+
+    @Test
+    void decodesLongCodes() throws IOException {
+        // Fibonacci counts give the rarest symbols codes well past the flat table
+        byte[] message = new byte[28_000];
+        int position = 0;
+        long previous = 1;
+        long current = 1;
+        for (int symbol = 0; position < message.length; symbol++) {
+            for (long i = 0; i < current && position < message.length; i++) {
+                message[position++] = (byte) symbol;
+            }
+            long next = previous + current;
+            previous = current;
+            current = next;
+        }
+
+        byte[] record = new CompressionContext().compress(message);
+
+        assertArrayEquals(message, new DecompressionContext().decompress(record));
+    }
+
+    @Test
+    void decodesSingleSymbolAndLz77Records() throws IOException {
+        byte[] single = new byte[1000];
+        Arrays.fill(single, (byte) 'x');
+        byte[] text = "the cat sat on the mat, the cat sat on the hat\n".repeat(40).getBytes(StandardCharsets.US_ASCII);
+        byte[] lz77 = new BlockCodec(CompressionLevel.DEFAULT).encode(text, 0, text.length);
+        DecompressionContext context = new DecompressionContext();
+
+        assertArrayEquals(single, context.decompress(new CompressionContext().compress(single)));
+        assertEquals(BlockCodec.TYPE_LZ77, lz77[0]);
+        assertArrayEquals(text, context.decompress(lz77));
+    }
+
+    @Test
+    void reportsDecompressedLength() throws IOException {
+        byte[] record = new CompressionContext().compress(new byte[300]);
+
+        assertEquals(300, DecompressionContext.decompressedLength(record, 0, record.length));
+    }
+
+    @Test
+    void rejectsMalformedRecords() {
+        byte[] message = "hello hello hello hello".getBytes(StandardCharsets.US_ASCII);
+        byte[] record = new CompressionContext().compress(message);
+        DecompressionContext context = new DecompressionContext();
+
+        assertThrows(IOException.class, () -> context.decompress(Arrays.copyOf(record, record.length - 1)));
+        assertThrows(IOException.class, () -> context.decompress(record, 0, record.length, new byte[5], 0));
+        byte[] unknownType = record.clone();
+        unknownType[0] = 0x7F;
+        assertThrows(IOException.class, () -> context.decompress(unknownType));
+        assertThrows(IOException.class, () -> context.decompress(new byte[0]));
+    }
+}
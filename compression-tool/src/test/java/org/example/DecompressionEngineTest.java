@@ -1,12 +1,20 @@
 package org.example;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
@@ -50,6 +58,63 @@ public class DecompressionEngineTest {
         assertEquals("aaaaaa", Files.readString(outputFile));
     }
 
+    @Test
+    void decompressesContentWithCodesLongerThanPrimaryTable() throws IOException {
+        Path inputFile = tempDir.resolve("skewed.txt");
+        Path compressedFile = tempDir.resolve("skewed.txt.compressed");
+        Path outputFile = tempDir.resolve("skewed.out");
+
+        // Fibonacci-like frequencies produce a maximally deep tree
+        StringBuilder content = new StringBuilder();
+        long previous = 1;
+        long current = 1;
+        for (char c = 'a'; c <= 'p'; c++) {
+            content.append(String.valueOf(c).repeat((int) current));
+            long next = previous + current;
+            previous = current;
+            current = next;
+        }
+        content.append("\u00e9\u4e2d");
+        Files.writeString(inputFile, content.toString());
+
+        new CompressionEngine().compress(inputFile, compressedFile);
+        new DecompressionEngine().decompress(compressedFile, outputFile);
+
+        assertEquals(content.toString(), Files.readString(outputFile));
+    }
+
+    @Test
+    void decompressesVersionOneFrequencyHeader() throws IOException {
+        Path compressedFile = tempDir.resolve("legacy.compressed");
+        Path outputFile = tempDir.resolve("legacy.out");
+
+        // "abb" with a=0, b=1 as built from the frequency table {a=1, b=2}
+        try (DataOutputStream output = new DataOutputStream(Files.newOutputStream(compressedFile))) {
+            new HeaderWriter().writeHeader(Map.of('a', 1L, 'b', 2L), output);
+            output.writeLong(3);
+            output.writeByte(5);
+            output.writeByte(0b01100000);
+        }
+
+        new DecompressionEngine().decompress(compressedFile, outputFile);
+
+        assertEquals("abb", Files.readString(outputFile));
+    }
+
+    @Test
+    void decompressesSingleByteSymbolFile() throws IOException {
+        Path inputFile = tempDir.resolve("zeros.bin");
+        Path compressedFile = tempDir.resolve("zeros.bin.compressed");
+        Path outputFile = tempDir.resolve("zeros.out");
+        byte[] content = new byte[100_000];
+        Files.write(inputFile, content);
+
+        new CompressionEngine().compressBytes(inputFile, compressedFile);
+        new DecompressionEngine().decompress(compressedFile, outputFile);
+
+        assertArrayEquals(content, Files.readAllBytes(outputFile));
+    }
+
     @Test
     void throwsExceptionForNullInputPath() {
         DecompressionEngine decompressionEngine = new DecompressionEngine();
@@ -86,4 +151,49 @@ public class DecompressionEngineTest {
         assertNotNull(exception.getMessage());
     }
 
+
+    @Test
+    void rejectsTruncatedStoredPayload() throws IOException {
+        Path inputFile = tempDir.resolve("random.bin");
+        Path compressedFile = tempDir.resolve("random.bin.compressed");
+        byte[] content = new byte[50_000];
+        new Random(2).nextBytes(content);
+        Files.write(inputFile, content);
+        new CompressionEngine().compressBytes(inputFile, compressedFile);
+        byte[] compressed = Files.readAllBytes(compressedFile);
+        Files.write(compressedFile, Arrays.copyOf(compressed, compressed.length - 100));
+
+        IOException exception = assertThrows(IOException.class,
+                () -> new DecompressionEngine().decompress(compressedFile, tempDir.resolve("random.out")));
+        assertTrue(exception.getMessage().contains("truncated"));
+    }
+
+    @Test
+    void streamsRoundTripThroughTheEngines() throws IOException {
+        byte[] content = BlockCompressionEngineTest.mixedContent(40_000);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        assertEquals(content.length, new CompressionEngine().compress(new ByteArrayInputStream(content), compressed));
+
+        Path framedFile = Files.write(tempDir.resolve("framed.compressed"), compressed.toByteArray());
+        Path outputFile = tempDir.resolve("framed.out");
+        new DecompressionEngine().decompress(framedFile, outputFile);
+
+        assertArrayEquals(content, Files.readAllBytes(outputFile));
+    }
+
+    @Test
+    void decompressesAdaptiveStreams() throws IOException {
+        byte[] content = BlockCompressionEngineTest.mixedContent(30_000);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        new CompressionEngine().compressAdaptive(new ByteArrayInputStream(content), compressed);
+
+        ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+        new DecompressionEngine().decompress(new ByteArrayInputStream(compressed.toByteArray()), decompressed);
+        assertArrayEquals(content, decompressed.toByteArray());
+
+        Path adaptiveFile = Files.write(tempDir.resolve("adaptive.compressed"), compressed.toByteArray());
+        Path outputFile = tempDir.resolve("adaptive.out");
+        new DecompressionEngine().decompress(adaptiveFile, outputFile);
+        assertArrayEquals(content, Files.readAllBytes(outputFile));
+    }
 }
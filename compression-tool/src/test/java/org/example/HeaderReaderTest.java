@@ -9,6 +9,7 @@ import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.Test;
 
 public class HeaderReaderTest {
@@ -55,7 +56,7 @@ public class HeaderReaderTest {
 
         //Act
         DataInputStream dis = new DataInputStream(new ByteArrayInputStream(validHeader));
-        Map<Character, Long> actualFrequencies = reader.readHeader(dis);
+        Map<Character, Long> actualFrequencies = reader.readHeader(dis).frequencies();
 
         //Assert
         assertEquals(expectedFrequencies, actualFrequencies);
@@ -67,7 +68,7 @@ public class HeaderReaderTest {
         HeaderReader reader = new HeaderReader();
         byte[] invalidHeader = new byte[]{
             (byte) 0x00, (byte) 0x00, (byte) 0xC0, (byte) 0xDE, // Valid magic number
-            0x02 // Unsupported version
+            0x7F // Unsupported version
         };
 
         //Act
@@ -75,7 +76,7 @@ public class HeaderReaderTest {
         IOException exception = assertThrows(IOException.class, () -> reader.readHeader(dis));
 
         //Assert
-        assertEquals("Unsupported version: 2", exception.getMessage());
+        assertEquals("Unsupported version: 127", exception.getMessage());
     }
 
     @Test
@@ -128,4 +129,43 @@ public class HeaderReaderTest {
 
     }
 
+    @Test
+    void itReadsACanonicalHeader() throws IOException {
+        //Arrange
+        HeaderReader reader = new HeaderReader();
+        Map<Character, Integer> expectedLengths = Map.of('a', 1, 'b', 2, 'c', 3, 'd', 3);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        new HeaderWriter().writeCanonicalHeader(expectedLengths, 0, new DataOutputStream(buffer));
+
+        //Act
+        DataInputStream dis = new DataInputStream(new ByteArrayInputStream(buffer.toByteArray()));
+        HeaderReader.Header header = reader.readHeader(dis);
+
+        //Assert
+        assertTrue(header.isCanonical());
+        assertEquals(expectedLengths, header.codeLengths());
+        assertTrue(header.frequencies().isEmpty());
+    }
+
+    @Test
+    void itThrowsExceptionForCanonicalSymbolOutOfRange() {
+        //Arrange
+        HeaderReader reader = new HeaderReader();
+        byte[] invalidHeader = new byte[]{
+            (byte) 0x00, (byte) 0x00, (byte) 0xC0, (byte) 0xDE, // Valid magic number
+            0x02, // Canonical version
+            0x00, // Flags
+            0x01, // Longest code length
+            0x01, // One symbol of length 1
+            (byte) 0x80, (byte) 0x80, 0x04 // Symbol 0x10000, past the character range
+        };
+
+        //Act
+        DataInputStream dis = new DataInputStream(new ByteArrayInputStream(invalidHeader));
+        IOException exception = assertThrows(IOException.class, () -> reader.readHeader(dis));
+
+        //Assert
+        assertEquals("Invalid symbol in code length table", exception.getMessage());
+    }
+
 }
@@ -9,6 +9,8 @@ import java.util.HashMap;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.Test;
 
 class HeaderWriterTest {
@@ -160,4 +162,51 @@ class HeaderWriterTest {
 
         assertEquals(0, charCount, "Character count should be 0 for empty map");
     }
+
+    @Test
+    void canonicalHeaderIsMuchSmallerThanFrequencyHeader() throws IOException {
+        HeaderWriter writer = new HeaderWriter();
+        Map<Character, Long> frequencies = new HashMap<>();
+        Map<Character, Integer> codeLengths = new HashMap<>();
+        for (char c = 'A'; c < 'A' + 64; c++) {
+            frequencies.put(c, 1000L + c);
+            codeLengths.put(c, 6);
+        }
+
+        ByteArrayOutputStream frequencyHeader = new ByteArrayOutputStream();
+        writer.writeHeader(frequencies, new DataOutputStream(frequencyHeader));
+        ByteArrayOutputStream canonicalHeader = new ByteArrayOutputStream();
+        writer.writeCanonicalHeader(codeLengths, 0, new DataOutputStream(canonicalHeader));
+
+        // magic + version + flags + max length + 6 counts + 64 one-byte symbols + end marker
+        assertEquals(4 + 1 + 1 + 1 + 6 + 64 + 4, canonicalHeader.size());
+        assertTrue(canonicalHeader.size() * 7 < frequencyHeader.size());
+    }
+
+    @Test
+    void writesCanonicalHeaderWithVersionTwo() throws IOException {
+        HeaderWriter writer = new HeaderWriter();
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        writer.writeCanonicalHeader(Map.of('a', 1, 'b', 1), 0, new DataOutputStream(baos));
+
+        DataInputStream dis = new DataInputStream(new ByteArrayInputStream(baos.toByteArray()));
+        assertEquals(0xC0DE, dis.readInt());
+        assertEquals(2, dis.readByte(), "Version should be 2");
+        assertEquals(0, dis.readByte(), "Flags should be 0");
+        assertEquals(1, dis.readByte(), "Longest code should be 1 bit");
+        assertEquals(2, dis.readByte(), "Two codes of length 1");
+        assertEquals('a', dis.readByte());
+        assertEquals(0, dis.readByte(), "'b' directly follows 'a'");
+        assertEquals(0x454E44, dis.readInt());
+    }
+
+    @Test
+    void rejectsOutOfRangeCodeLength() {
+        HeaderWriter writer = new HeaderWriter();
+        DataOutputStream dos = new DataOutputStream(new ByteArrayOutputStream());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> writer.writeCodeLengths(Map.of('a', 0), dos));
+    }
 }
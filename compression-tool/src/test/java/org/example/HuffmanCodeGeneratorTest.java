@@ -1,6 +1,7 @@
 package org.example;
 
 import org.junit.jupiter.api.Test;
+import java.util.HashMap;
 import java.util.Map;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -50,4 +51,88 @@ class HuffmanCodeGeneratorTest {
         Map<Character, String> codes = generator.generateCodes(null);
         assertTrue(codes.isEmpty());
     }
+
+    @Test
+    void testGenerateCodeLengths_StandardTree() {
+        HuffmanNode nodeB = new HuffmanNode('B', 1);
+        HuffmanNode nodeC = new HuffmanNode('C', 1);
+        HuffmanNode root = new HuffmanNode(new HuffmanNode('A', 2), new HuffmanNode(nodeB, nodeC));
+
+        HuffmanCodeGenerator generator = new HuffmanCodeGenerator();
+        Map<Character, Integer> lengths = generator.generateCodeLengths(root);
+
+        assertEquals(Map.of('A', 1, 'B', 2, 'C', 2), lengths);
+        assertEquals(Map.of('X', 1), generator.generateCodeLengths(new HuffmanNode('X', 5)));
+    }
+
+    @Test
+    void testGenerateCanonicalCodes_OrdersByLengthThenCharacter() {
+        HuffmanCodeGenerator generator = new HuffmanCodeGenerator();
+        Map<Character, String> codes = generator.generateCanonicalCodes(
+                Map.of('d', 2, 'a', 3, 'c', 3, 'b', 1));
+
+        assertEquals("0", codes.get('b'));
+        assertEquals("10", codes.get('d'));
+        assertEquals("110", codes.get('a'));
+        assertEquals("111", codes.get('c'));
+    }
+
+    @Test
+    void testGenerateCanonicalCodes_RejectsOversubscribedLengths() {
+        HuffmanCodeGenerator generator = new HuffmanCodeGenerator();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> generator.generateCanonicalCodes(Map.of('a', 1, 'b', 1, 'c', 1)));
+    }
+
+    @Test
+    void testGenerateCanonicalCodes_AcceptsLongestLength() {
+        // Lengths 1 to 62 once and 63 twice fill the code space exactly
+        Map<Character, Integer> lengths = new HashMap<>();
+        for (int length = 1; length < HuffmanCodeGenerator.MAX_CANONICAL_CODE_LENGTH; length++) {
+            lengths.put((char) length, length);
+        }
+        lengths.put((char) 63, 63);
+        lengths.put((char) 64, 63);
+
+        Map<Character, String> codes = new HuffmanCodeGenerator().generateCanonicalCodes(lengths);
+
+        assertEquals("1".repeat(62) + "0", codes.get((char) 63));
+        assertEquals("1".repeat(63), codes.get((char) 64));
+        assertThrows(IllegalArgumentException.class, () -> {
+            Map<Character, Integer> oversubscribed = new HashMap<>(lengths);
+            oversubscribed.put((char) 65, 63);
+            new HuffmanCodeGenerator().generateCanonicalCodes(oversubscribed);
+        });
+    }
+
+    @Test
+    void testGenerateCodeLengths_LimitedRebuildsDeepTrees() {
+        Map<Character, Long> frequencies = new HashMap<>();
+        long previous = 1;
+        long current = 1;
+        for (char c = 'a'; c <= 't'; c++) {
+            frequencies.put(c, current);
+            long next = previous + current;
+            previous = current;
+            current = next;
+        }
+        HuffmanNode root = new HuffmanTreeBuilder().buildTree(frequencies);
+        HuffmanCodeGenerator generator = new HuffmanCodeGenerator();
+
+        Map<Character, Integer> lengths = generator.generateCodeLengths(root, 10);
+
+        assertEquals(19, generator.generateCodeLengths(root).get('a'));
+        assertEquals(10, lengths.values().stream().mapToInt(Integer::intValue).max().getAsInt());
+        assertEquals(frequencies.keySet(), lengths.keySet());
+        assertDoesNotThrow(() -> generator.generateCanonicalCodes(lengths));
+    }
+
+    @Test
+    void testGenerateCodeLengths_LimitKeepsShallowTrees() {
+        HuffmanNode root = new HuffmanNode(new HuffmanNode('A', 2),
+                new HuffmanNode(new HuffmanNode('B', 1), new HuffmanNode('C', 1)));
+
+        assertEquals(Map.of('A', 1, 'B', 2, 'C', 2), new HuffmanCodeGenerator().generateCodeLengths(root, 2));
+    }
 }
@@ -0,0 +1,99 @@
+package org.example;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+class HuffmanDecodingTableTest {
+
+    @Test
+    void decodesShortCodesInOneProbe() throws IOException {
+        HuffmanDecodingTable table = HuffmanDecodingTable.fromCodes(Map.of('A', "0", 'B', "10", 'C', "11"));
+
+        // A B C A -> 0 10 11 0 -> 0101 1000
+        BitReader reader = new BitReader(new ByteArrayInputStream(new byte[]{(byte) 0b01011000}));
+
+        assertEquals('A', table.decode(reader));
+        assertEquals('B', table.decode(reader));
+        assertEquals('C', table.decode(reader));
+        assertEquals('A', table.decode(reader));
+        assertEquals(6, reader.bitsConsumed());
+        assertEquals(2, table.getPrimaryBits());
+    }
+
+    @Test
+    void decodesCodesLongerThanPrimaryTable() throws IOException {
+        // Degenerate tree: symbol i has code 1^i 0, the last one is all ones
+        Map<Character, String> codes = new HashMap<>();
+        int symbols = 24;
+        for (int i = 0; i < symbols - 1; i++) {
+            codes.put((char) ('a' + i), "1".repeat(i) + "0");
+        }
+        codes.put((char) ('a' + symbols - 1), "1".repeat(symbols - 1));
+        HuffmanDecodingTable table = HuffmanDecodingTable.fromCodes(codes);
+
+        StringBuilder bits = new StringBuilder();
+        String message = "xawbq";
+        for (char c : message.toCharArray()) {
+            bits.append(codes.get(c));
+        }
+        BitReader reader = new BitReader(new ByteArrayInputStream(toBytes(bits.toString())));
+
+        StringBuilder decoded = new StringBuilder();
+        for (int i = 0; i < message.length(); i++) {
+            decoded.append(table.decode(reader));
+        }
+        assertEquals(message, decoded.toString());
+        assertEquals(bits.length(), reader.bitsConsumed());
+    }
+
+    @Test
+    void decodesCanonicalCodesFromLengths() throws IOException {
+        // Canonical codes: B 0, A 10, C 110, D 111
+        int[] lengths = new int['D' + 1];
+        lengths['A'] = 2;
+        lengths['B'] = 1;
+        lengths['C'] = 3;
+        lengths['D'] = 3;
+        HuffmanDecodingTable table = HuffmanDecodingTable.fromLengths(lengths);
+
+        // D B A C -> 111 0 10 110
+        BitReader reader = new BitReader(new ByteArrayInputStream(toBytes("111010110")));
+
+        assertEquals('D', table.decode(reader));
+        assertEquals('B', table.decode(reader));
+        assertEquals('A', table.decode(reader));
+        assertEquals('C', table.decode(reader));
+        assertEquals(9, reader.bitsConsumed());
+        assertThrows(IllegalArgumentException.class, () -> HuffmanDecodingTable.fromLengths(new int[4]));
+    }
+
+    @Test
+    void rejectsUnassignedCode() {
+        HuffmanDecodingTable table = HuffmanDecodingTable.fromCodes(Map.of('A', "0"));
+        BitReader reader = new BitReader(new ByteArrayInputStream(new byte[]{(byte) 0x80}));
+
+        IOException exception = assertThrows(IOException.class, () -> table.decode(reader));
+        assertEquals("Invalid Huffman code in compressed data", exception.getMessage());
+    }
+
+    @Test
+    void rejectsEmptyCodeMap() {
+        assertThrows(IllegalArgumentException.class, () -> HuffmanDecodingTable.fromCodes(Map.of()));
+    }
+
+    private static byte[] toBytes(String bits) {
+        byte[] bytes = new byte[(bits.length() + 7) / 8];
+        for (int i = 0; i < bits.length(); i++) {
+            if (bits.charAt(i) == '1') {
+                bytes[i / 8] |= (byte) (0x80 >>> (i % 8));
+            }
+        }
+        return bytes;
+    }
+}
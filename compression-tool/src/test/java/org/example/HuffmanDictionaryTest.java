@@ -0,0 +1,101 @@
+package org.example;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class HuffmanDictionaryTest {
+
+    @Test
+    void shrinksSmallMessagesBelowPerMessageTables() throws IOException {
+        List<byte[]> samples = messages(500, 1);
+        HuffmanDictionary dictionary = HuffmanDictionary.train(samples);
+        CompressionContext shared = new CompressionContext(dictionary);
+        CompressionContext perMessage = new CompressionContext();
+        DecompressionContext decompression = new DecompressionContext(dictionary);
+
+        long sharedTotal = 0;
+        long perMessageTotal = 0;
+        long originalTotal = 0;
+        for (byte[] message : messages(100, 2)) {
+            byte[] record = shared.compress(message);
+            assertEquals(BlockCodec.TYPE_DICTIONARY, record[0]);
+            assertArrayEquals(message, decompression.decompress(record));
+            sharedTotal += record.length;
+            perMessageTotal += perMessage.compress(message).length;
+            originalTotal += message.length;
+        }
+
+        assertTrue(sharedTotal < perMessageTotal);
+        assertTrue(sharedTotal * 10 < originalTotal * 8);
+    }
+
+    @Test
+    void codesBytesMissingFromTheSamples() throws IOException {
+        HuffmanDictionary dictionary = HuffmanDictionary.train(List.of("aaaaabbbc".getBytes(StandardCharsets.US_ASCII)));
+        byte[] message = "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaz\u0001".getBytes(StandardCharsets.ISO_8859_1);
+
+        byte[] record = new CompressionContext(dictionary).compress(message);
+
+        assertEquals(BlockCodec.TYPE_DICTIONARY, record[0]);
+        assertArrayEquals(message, new DecompressionContext(dictionary).decompress(record));
+    }
+
+    @Test
+    void persistsWithTheSameId() throws IOException {
+        HuffmanDictionary dictionary = HuffmanDictionary.train(messages(50, 3));
+        ByteArrayOutputStream persisted = new ByteArrayOutputStream();
+        dictionary.write(persisted);
+
+        HuffmanDictionary loaded = HuffmanDictionary.read(new ByteArrayInputStream(persisted.toByteArray()));
+        byte[] message = messages(1, 4).get(0);
+
+        assertEquals(dictionary.id(), loaded.id());
+        assertArrayEquals(message,
+                new DecompressionContext(loaded).decompress(new CompressionContext(dictionary).compress(message)));
+    }
+
+    @Test
+    void rejectsRecordsOfAnotherDictionary() {
+        HuffmanDictionary json = HuffmanDictionary.train(messages(50, 5));
+        HuffmanDictionary text = HuffmanDictionary.train(List.of("plain words and spaces ".repeat(50).getBytes()));
+        byte[] record = new CompressionContext(json).compress(messages(1, 6).get(0));
+
+        assertNotEquals(json.id(), text.id());
+        assertThrows(IOException.class, () -> new DecompressionContext(text).decompress(record));
+        assertThrows(IOException.class, () -> new DecompressionContext().decompress(record));
+        assertThrows(IllegalArgumentException.class, () -> new DecompressionContext(json, json));
+    }
+
+    @Test
+    void rejectsMalformedDictionaries() {
+        assertThrows(IOException.class,
+                () -> HuffmanDictionary.read(new ByteArrayInputStream(new byte[] {0, 0, (byte) 0xC0, (byte) 0xDE, 7, 0})));
+        assertThrows(IOException.class,
+                () -> HuffmanDictionary.read(new ByteArrayInputStream(new byte[] {0, 0, (byte) 0xC0, (byte) 0xDE, 6, 0})));
+    }
+
+    private static List<byte[]> messages(int count, long seed) {
+        Random random = new Random(seed);
+        String[] actions = {"login", "logout", "purchase", "view", "search"};
+        List<byte[]> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String message = "{\"id\":" + random.nextInt(100_000) + ",\"user\":\"user" + random.nextInt(1000)
+                    + "\",\"action\":\"" + actions[random.nextInt(actions.length)] + "\",\"status\":"
+                    + (random.nextInt(10) == 0 ? 500 : 200) + ",\"latencyMs\":" + random.nextInt(2000) + "}";
+            messages.add(message.getBytes(StandardCharsets.US_ASCII));
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,95 @@
+package org.example;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class HuffmanInputStreamTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static byte[] compress(byte[] content, int blockSize) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (HuffmanOutputStream output = new HuffmanOutputStream(compressed, blockSize)) {
+            output.write(content);
+        }
+        return compressed.toByteArray();
+    }
+
+    @Test
+    void skipsAcrossBlocks() throws IOException {
+        byte[] content = BlockCompressionEngineTest.mixedContent(30_000);
+        try (HuffmanInputStream input = new HuffmanInputStream(new ByteArrayInputStream(compress(content, 4096)))) {
+            assertEquals(10_000, input.skip(10_000));
+            assertArrayEquals(Arrays.copyOfRange(content, 10_000, content.length), input.readAllBytes());
+        }
+    }
+
+    @Test
+    void rejectsTruncatedStream() throws IOException {
+        byte[] compressed = compress(BlockCompressionEngineTest.mixedContent(10_000), 4096);
+        byte[] truncated = Arrays.copyOf(compressed, compressed.length / 2);
+
+        try (HuffmanInputStream input = new HuffmanInputStream(new ByteArrayInputStream(truncated))) {
+            assertThrows(IOException.class, input::readAllBytes);
+        }
+    }
+
+    @Test
+    void verifiesBlockChecksums() throws IOException {
+        byte[] content = BlockCompressionEngineTest.mixedContent(20_000);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (HuffmanOutputStream output = new HuffmanOutputStream(compressed,
+                CompressionLevel.STORE.withBlockSize(4096), true)) {
+            output.write(content);
+        }
+        byte[] corrupt = compressed.toByteArray();
+        corrupt[3 * 4096] ^= 0x01;
+
+        try (HuffmanInputStream input = new HuffmanInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+            assertArrayEquals(content, input.readAllBytes());
+        }
+        try (HuffmanInputStream input = new HuffmanInputStream(new ByteArrayInputStream(corrupt))) {
+            IOException exception = assertThrows(IOException.class, input::readAllBytes);
+            assertTrue(exception.getMessage().startsWith("Block checksum mismatch"));
+        }
+    }
+
+    @Test
+    void rejectsOtherFormats() {
+        byte[] notAStream = { 0, 0, (byte) 0xC0, (byte) 0xDE, 3, 0, 0, 0, 16, 0 };
+
+        IOException error = assertThrows(IOException.class,
+                () -> new HuffmanInputStream(new ByteArrayInputStream(notAStream)));
+        assertTrue(error.getMessage().contains("Unsupported version"));
+    }
+
+    @Test
+    void readsAfterClosingFails() throws IOException {
+        HuffmanInputStream input = new HuffmanInputStream(new ByteArrayInputStream(compress(new byte[] { 1 }, 16)));
+        input.close();
+
+        assertThrows(IOException.class, input::read);
+    }
+
+    @Test
+    void detectsFramedStreamFiles() throws IOException {
+        Path framed = Files.write(tempDir.resolve("framed"), compress("abc".getBytes(), 16));
+        Path plain = Files.write(tempDir.resolve("plain"), "abc".getBytes());
+
+        assertTrue(HuffmanInputStream.isFramedStream(framed));
+        assertFalse(HuffmanInputStream.isFramedStream(plain));
+    }
+}
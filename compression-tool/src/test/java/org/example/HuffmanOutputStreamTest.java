@@ -0,0 +1,116 @@
+package org.example;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class HuffmanOutputStreamTest {
+
+    @Test
+    void roundTripsAcrossSeveralBlocks() throws IOException {
+        byte[] content = BlockCompressionEngineTest.mixedContent(50_000);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+        try (HuffmanOutputStream output = new HuffmanOutputStream(compressed, 4096)) {
+            output.write(content, 0, 10_000);
+            output.write(content[10_000]);
+            output.write(content, 10_001, content.length - 10_001);
+        }
+
+        assertTrue(compressed.size() < content.length);
+        try (HuffmanInputStream input = new HuffmanInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+            assertArrayEquals(content, input.readAllBytes());
+        }
+    }
+
+    @Test
+    void flushMakesWrittenDataDecodable() throws IOException {
+        byte[] content = "streamed log line\n".repeat(20).getBytes();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        HuffmanOutputStream output = new HuffmanOutputStream(compressed);
+
+        output.write(content);
+        output.flush();
+
+        HuffmanInputStream input = new HuffmanInputStream(new ByteArrayInputStream(compressed.toByteArray()));
+        byte[] decoded = new byte[content.length];
+        assertEquals(content.length, input.readNBytes(decoded, 0, decoded.length));
+        assertArrayEquals(content, decoded);
+    }
+
+    @Test
+    void finishLeavesUnderlyingStreamOpen() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        HuffmanOutputStream output = new HuffmanOutputStream(compressed);
+        output.write("first".getBytes());
+        output.finish();
+        compressed.write("trailing".getBytes());
+
+        ByteArrayInputStream source = new ByteArrayInputStream(compressed.toByteArray());
+        assertArrayEquals("first".getBytes(), new HuffmanInputStream(source).readAllBytes());
+        assertArrayEquals("trailing".getBytes(), source.readAllBytes());
+        assertThrows(IOException.class, () -> output.write(1));
+    }
+
+    @Test
+    void emptyStreamRoundTrips() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        new HuffmanOutputStream(compressed).close();
+
+        try (HuffmanInputStream input = new HuffmanInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+            assertEquals(-1, input.read());
+        }
+    }
+
+    @Test
+    void compressesThroughChannels() throws IOException {
+        byte[] content = BlockCompressionEngineTest.mixedContent(20_000);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+        try (WritableByteChannel channel = HuffmanOutputStream.newChannel(Channels.newChannel(compressed))) {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        ByteBuffer decoded = ByteBuffer.allocate(content.length + 1);
+        try (var channel = HuffmanInputStream.newChannel(
+                Channels.newChannel(new ByteArrayInputStream(compressed.toByteArray())))) {
+            while (channel.read(decoded) != -1) {
+                // keep reading until the end of the stream
+            }
+        }
+        assertArrayEquals(content, Arrays.copyOf(decoded.array(), decoded.position()));
+    }
+
+    @Test
+    void roundTripsWithMatchFinding() throws IOException {
+        byte[] content = "streamed log line number 1234\n".repeat(5000).getBytes();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+        try (HuffmanOutputStream output = new HuffmanOutputStream(compressed, CompressionLevel.DEFAULT.withBlockSize(32 << 10))) {
+            output.write(content);
+        }
+
+        assertTrue(compressed.size() * 20 < content.length);
+        try (HuffmanInputStream input = new HuffmanInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+            assertArrayEquals(content, input.readAllBytes());
+        }
+    }
+
+    @Test
+    void rejectsInvalidBlockSize() {
+        assertThrows(IllegalArgumentException.class, () -> new HuffmanOutputStream(new ByteArrayOutputStream(), 0));
+    }
+}
@@ -0,0 +1,97 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class LengthLimitedCodeBuilderTest {
+
+    private final LengthLimitedCodeBuilder builder = new LengthLimitedCodeBuilder();
+
+    private static long[] fibonacciWeights(int count) {
+        long[] weights = new long[count];
+        weights[0] = 1;
+        weights[1] = 1;
+        for (int i = 2; i < count; i++) {
+            weights[i] = weights[i - 1] + weights[i - 2];
+        }
+        return weights;
+    }
+
+    /**
+     * Returns the Kraft sum of the codes, leaving out symbols without one;
+     * it is at most 1 for every prefix code.
+     */
+    static double kraftSum(int[] lengths) {
+        return Arrays.stream(lengths).filter(length -> length > 0).mapToDouble(length -> Math.pow(2, -length)).sum();
+    }
+
+    @Test
+    void limitsSkewedDistributions() {
+        long[] weights = fibonacciWeights(30);
+
+        int[] lengths = builder.buildCodeLengths(weights, 8);
+
+        assertEquals(8, Arrays.stream(lengths).max().getAsInt());
+        assertEquals(1.0, kraftSum(lengths), 1e-12);
+        // Heavier symbols never get longer codes
+        for (int i = 1; i < lengths.length; i++) {
+            assertTrue(lengths[i] <= lengths[i - 1]);
+        }
+    }
+
+    @Test
+    void matchesHuffmanWhenTheLimitIsLoose() {
+        long[] weights = { 45, 13, 12, 16, 9, 5 };
+
+        int[] lengths = builder.buildCodeLengths(weights, 15);
+
+        assertArrayEquals(new int[] { 1, 3, 3, 3, 4, 4 }, lengths);
+    }
+
+    @Test
+    void costsNoMoreThanTheTreeWhenNotLimited() {
+        long[] weights = fibonacciWeights(20);
+        HuffmanCodeGenerator generator = new HuffmanCodeGenerator();
+        Map<Character, Long> frequencies = new HashMap<>();
+        for (int i = 0; i < weights.length; i++) {
+            frequencies.put((char) ('a' + i), weights[i]);
+        }
+        Map<Character, Integer> treeLengths = generator.generateCodeLengths(new HuffmanTreeBuilder().buildTree(frequencies));
+        int[] tree = new int[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            tree[i] = treeLengths.get((char) ('a' + i));
+        }
+
+        assertEquals(CodeLengthBuilder.totalBits(weights, tree),
+                CodeLengthBuilder.totalBits(weights, builder.buildCodeLengths(weights, 63)));
+    }
+
+    @Test
+    void fillsEveryCodeWhenSymbolsMatchTheLimit() {
+        long[] weights = { 1, 100, 1000, 5 };
+
+        assertArrayEquals(new int[] { 2, 2, 2, 2 }, builder.buildCodeLengths(weights, 2));
+    }
+
+    @Test
+    void singleSymbolGetsOneBit() {
+        assertArrayEquals(new int[] { 1 }, builder.buildCodeLengths(new long[] { 7 }, 4));
+    }
+
+    @Test
+    void rejectsTooManySymbols() {
+        assertThrows(IllegalArgumentException.class, () -> builder.buildCodeLengths(new long[] { 1, 1, 1, 1, 1 }, 2));
+    }
+
+    @Test
+    void rejectsNonPositiveWeights() {
+        assertThrows(IllegalArgumentException.class, () -> builder.buildCodeLengths(new long[] { 1, 0 }, 8));
+    }
+}
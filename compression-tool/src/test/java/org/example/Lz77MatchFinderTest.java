@@ -0,0 +1,160 @@
+package org.example;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class Lz77MatchFinderTest {
+
+    private final Lz77MatchFinder finder = new Lz77MatchFinder(32);
+
+    @Test
+    void replacesRepeatedStringsWithMatches() {
+        byte[] data = "abcdefabcdefabcdef".getBytes(StandardCharsets.US_ASCII);
+
+        Lz77MatchFinder.Tokens tokens = finder.tokenize(data, 0, data.length);
+
+        assertEquals(7, tokens.count());
+        int match = tokens.tokens()[6];
+        assertTrue(Lz77MatchFinder.isMatch(match));
+        assertEquals(12, Lz77MatchFinder.matchLength(match));
+        assertEquals(6, Lz77MatchFinder.matchDistance(match));
+        assertArrayEquals(data, replay(tokens));
+    }
+
+    @Test
+    void coversRunsWithOverlappingMatches() {
+        byte[] data = new byte[1000];
+        Arrays.fill(data, (byte) 'x');
+
+        Lz77MatchFinder.Tokens tokens = finder.tokenize(data, 0, data.length);
+
+        int match = tokens.tokens()[1];
+        assertEquals(1, Lz77MatchFinder.matchDistance(match));
+        assertEquals(Lz77MatchFinder.MAX_MATCH, Lz77MatchFinder.matchLength(match));
+        assertArrayEquals(data, replay(tokens));
+    }
+
+    @Test
+    void leavesRandomDataAsLiterals() {
+        byte[] data = new byte[4096];
+        new Random(7).nextBytes(data);
+
+        Lz77MatchFinder.Tokens tokens = finder.tokenize(data, 0, data.length);
+
+        assertArrayEquals(data, replay(tokens));
+        assertTrue(tokens.count() > data.length * 9 / 10);
+    }
+
+    @Test
+    void tokenizesAnArrayRegion() {
+        byte[] data = "????hello hello hello????".getBytes(StandardCharsets.US_ASCII);
+
+        Lz77MatchFinder.Tokens tokens = finder.tokenize(data, 4, 17);
+
+        assertArrayEquals("hello hello hello".getBytes(StandardCharsets.US_ASCII), replay(tokens));
+    }
+
+    @Test
+    void keepsMatchesInsideTheWindow() {
+        byte[] pattern = new byte[1000];
+        new Random(3).nextBytes(pattern);
+        byte[] noise = new byte[Lz77MatchFinder.WINDOW_SIZE];
+        new Random(4).nextBytes(noise);
+        byte[] data = new byte[2 * pattern.length + noise.length];
+        System.arraycopy(pattern, 0, data, 0, pattern.length);
+        System.arraycopy(noise, 0, data, pattern.length, noise.length);
+        System.arraycopy(pattern, 0, data, pattern.length + noise.length, pattern.length);
+
+        Lz77MatchFinder.Tokens tokens = finder.tokenize(data, 0, data.length);
+
+        for (int i = 0; i < tokens.count(); i++) {
+            int token = tokens.tokens()[i];
+            if (Lz77MatchFinder.isMatch(token)) {
+                assertTrue(Lz77MatchFinder.matchDistance(token) <= Lz77MatchFinder.WINDOW_SIZE);
+            }
+        }
+        assertArrayEquals(data, replay(tokens));
+    }
+
+    @Test
+    void mapsLengthsAndDistancesToTheirCodes() {
+        for (int length = Lz77MatchFinder.MIN_MATCH; length <= Lz77MatchFinder.MAX_MATCH; length++) {
+            int code = Lz77MatchFinder.lengthCode(length);
+            int offset = length - Lz77MatchFinder.LENGTH_BASE[code];
+            assertTrue(offset >= 0 && offset < 1 << Lz77MatchFinder.LENGTH_EXTRA_BITS[code], "length " + length);
+        }
+        for (int distance = 1; distance <= Lz77MatchFinder.WINDOW_SIZE; distance++) {
+            int code = Lz77MatchFinder.distanceCode(distance);
+            int offset = distance - Lz77MatchFinder.DISTANCE_BASE[code];
+            assertTrue(offset >= 0 && offset < 1 << Lz77MatchFinder.DISTANCE_EXTRA_BITS[code], "distance " + distance);
+        }
+        assertEquals(Lz77MatchFinder.LENGTH_CODES - 1, Lz77MatchFinder.lengthCode(Lz77MatchFinder.MAX_MATCH));
+        assertEquals(Lz77MatchFinder.DISTANCE_CODES - 1, Lz77MatchFinder.distanceCode(Lz77MatchFinder.WINDOW_SIZE));
+    }
+
+    @Test
+    void handlesShortInput() {
+        Lz77MatchFinder.Tokens empty = finder.tokenize(new byte[0], 0, 0);
+        Lz77MatchFinder.Tokens two = finder.tokenize(new byte[] {5, 5}, 0, 2);
+
+        assertEquals(0, empty.count());
+        assertEquals(2, two.count());
+        assertFalse(Lz77MatchFinder.isMatch(two.tokens()[1]));
+    }
+
+    @Test
+    void lazyMatchingPrefersALongerMatchAtTheNextPosition() {
+        // At "abcdef" the greedy parse takes "abc" and then misses the longer "bcdef"
+        byte[] data = "abcXbcdefYabcdef".getBytes(StandardCharsets.US_ASCII);
+
+        Lz77MatchFinder.Tokens greedy = finder.tokenize(data, 0, data.length);
+        Lz77MatchFinder.Tokens lazy = new Lz77MatchFinder(8, Lz77MatchFinder.Parsing.LAZY).tokenize(data, 0, data.length);
+
+        assertArrayEquals(data, replay(greedy));
+        assertArrayEquals(data, replay(lazy));
+        assertEquals(Lz77MatchFinder.matchToken(5, 7), lazy.tokens()[lazy.count() - 1]);
+        assertEquals(Lz77MatchFinder.matchToken(3, 10), greedy.tokens()[10]);
+    }
+
+    @Test
+    void everyParsingReproducesTheInput() {
+        byte[] data = BlockCompressionEngineTest.mixedContent(60_000);
+        byte[] run = new byte[5000];
+        System.arraycopy(run, 0, data, 20_000, run.length);
+
+        for (Lz77MatchFinder.Parsing parsing : Lz77MatchFinder.Parsing.values()) {
+            Lz77MatchFinder.Tokens tokens = new Lz77MatchFinder(64, parsing).tokenize(data, 0, data.length);
+            assertArrayEquals(data, replay(tokens), parsing.name());
+        }
+    }
+
+    @Test
+    void rejectsNonPositiveChainLength() {
+        assertThrows(IllegalArgumentException.class, () -> new Lz77MatchFinder(0));
+    }
+
+    private static byte[] replay(Lz77MatchFinder.Tokens tokens) {
+        byte[] output = new byte[tokens.count() * Lz77MatchFinder.MAX_MATCH];
+        int length = 0;
+        for (int i = 0; i < tokens.count(); i++) {
+            int token = tokens.tokens()[i];
+            if (Lz77MatchFinder.isMatch(token)) {
+                int from = length - Lz77MatchFinder.matchDistance(token);
+                for (int k = 0; k < Lz77MatchFinder.matchLength(token); k++) {
+                    output[length++] = output[from + k];
+                }
+            } else {
+                output[length++] = (byte) token;
+            }
+        }
+        return Arrays.copyOf(output, length);
+    }
+}
@@ -0,0 +1,67 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedInputStreamTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void readsAcrossWindowBoundaries() throws IOException {
+        Path file = tempDir.resolve("data.bin");
+        byte[] content = new byte[10_000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i * 31);
+        }
+        Files.write(file, content);
+
+        try (MappedInputStream input = new MappedInputStream(file, 4096)) {
+            assertEquals(content[0] & 0xFF, input.read());
+            byte[] rest = input.readAllBytes();
+            assertArrayEquals(Arrays.copyOfRange(content, 1, content.length), rest);
+            assertEquals(-1, input.read());
+        }
+    }
+
+    @Test
+    void exposesMappedWindows() throws IOException {
+        Path file = tempDir.resolve("data.bin");
+        Files.write(file, new byte[10_000]);
+
+        try (MappedInputStream input = new MappedInputStream(file, 4096)) {
+            int windows = 0;
+            long total = 0;
+            ByteBuffer window;
+            while ((window = input.nextWindow()) != null) {
+                windows++;
+                total += window.remaining();
+                window.position(window.limit());
+            }
+            assertEquals(3, windows);
+            assertEquals(10_000, total);
+            assertNull(input.nextWindow());
+        }
+    }
+
+    @Test
+    void readsEmptyFile() throws IOException {
+        Path file = tempDir.resolve("empty.bin");
+        Files.write(file, new byte[0]);
+
+        try (MappedInputStream input = new MappedInputStream(file)) {
+            assertEquals(-1, input.read());
+            assertEquals(-1, input.read(new byte[4], 0, 4));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+class MoveToFrontCoderTest {
+
+    @Test
+    void ranksBytesAndCodesZeroRuns() {
+        byte[] data = {1, 1, 1, 1, 0, 0};
+        int[] symbols = new int[data.length];
+
+        int count = MoveToFrontCoder.encode(data, 0, data.length, symbols);
+
+        // 1 has rank 1 (symbol 2), then a run of three zeros (RUN_A RUN_A), then 0 has rank 1 and a run of one
+        assertArrayEquals(new int[] {2, MoveToFrontCoder.RUN_A, MoveToFrontCoder.RUN_A, 2, MoveToFrontCoder.RUN_A},
+                Arrays.copyOf(symbols, count));
+    }
+
+    @Test
+    void roundTripsRunsOfEveryLength() throws IOException {
+        for (int run = 1; run <= 70; run++) {
+            byte[] data = new byte[run + 2];
+            Arrays.fill(data, 1, run + 1, (byte) 9);
+            data[run + 1] = 3;
+            assertRoundTrip(data);
+        }
+    }
+
+    @Test
+    void roundTripsText() throws IOException {
+        assertRoundTrip("the rain in spain stays mainly in the plain".getBytes(StandardCharsets.US_ASCII));
+        byte[] noise = new byte[10_000];
+        new Random(3).nextBytes(noise);
+        assertRoundTrip(noise);
+    }
+
+    @Test
+    void rejectsSymbolsThatDoNotMatchTheLength() {
+        int[] symbols = {5, MoveToFrontCoder.RUN_B};
+
+        assertThrows(IOException.class, () -> MoveToFrontCoder.decode(symbols, 2, new byte[2], 0, 2));
+        assertThrows(IOException.class, () -> MoveToFrontCoder.decode(symbols, 2, new byte[4], 0, 4));
+        assertThrows(IOException.class, () -> MoveToFrontCoder.decode(new int[] {300}, 1, new byte[1], 0, 1));
+    }
+
+    private static void assertRoundTrip(byte[] data) throws IOException {
+        int[] symbols = new int[data.length];
+        int count = MoveToFrontCoder.encode(data, 0, data.length, symbols);
+        byte[] decoded = new byte[data.length];
+
+        MoveToFrontCoder.decode(symbols, count, decoded, 0, data.length);
+
+        assertArrayEquals(data, decoded);
+        assertEquals(data.length, decoded.length);
+    }
+}
@@ -0,0 +1,66 @@
+package org.example;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+class PackedCodesTest {
+
+    @Test
+    void packsCodesIntoArrays() {
+        PackedCodes packed = PackedCodes.fromCodes(Map.of('a', "0", 'b', "10", 'c', "111"), 256);
+
+        assertEquals(0b0, packed.getCode('a'));
+        assertEquals(1, packed.getLength('a'));
+        assertEquals(0b10, packed.getCode('b'));
+        assertEquals(2, packed.getLength('b'));
+        assertEquals(0b111, packed.getCode('c'));
+        assertEquals(3, packed.getLength('c'));
+        assertEquals(0, packed.getLength('z'), "Symbols without a code have length 0");
+        assertEquals(256, packed.getAlphabetSize());
+    }
+
+    @Test
+    void packsSixtyFourBitCode() {
+        PackedCodes packed = PackedCodes.fromCodes(Map.of('a', "1".repeat(64)), 256);
+
+        assertEquals(-1L, packed.getCode('a'));
+        assertEquals(64, packed.getLength('a'));
+    }
+
+    @Test
+    void assignsCanonicalCodesFromLengths() {
+        int[] lengths = new int[256];
+        lengths['a'] = 2;
+        lengths['b'] = 1;
+        lengths['c'] = 3;
+        lengths['d'] = 3;
+        PackedCodes packed = PackedCodes.fromLengths(lengths);
+        Map<Character, String> expected = new HuffmanCodeGenerator()
+                .generateCanonicalCodes(Map.of('a', 2, 'b', 1, 'c', 3, 'd', 3));
+
+        assertEquals(expected, packed.toCodeMap());
+        assertEquals(0b110, packed.getCode('c'));
+        assertEquals(3, packed.getLength('c'));
+        assertEquals(0, packed.getLength('e'));
+        assertEquals(256, packed.getAlphabetSize());
+    }
+
+    @Test
+    void rejectsLengthsThatAreNotPrefixCodes() {
+        int[] lengths = new int[256];
+        lengths['a'] = 1;
+        lengths['b'] = 1;
+        lengths['c'] = 1;
+
+        assertThrows(IllegalArgumentException.class, () -> PackedCodes.fromLengths(lengths));
+        assertThrows(IllegalArgumentException.class, () -> PackedCodes.fromLengths(new int[] {64}));
+    }
+
+    @Test
+    void rejectsSymbolOutsideAlphabet() {
+        assertThrows(IllegalArgumentException.class, () -> PackedCodes.fromCodes(Map.of('\u0100', "0"), 256));
+    }
+}
@@ -0,0 +1,111 @@
+package org.example;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class RansCoderTest {
+
+    @Test
+    void roundTripsEveryLengthAroundTheInterleaving() throws IOException {
+        Random random = new Random(1);
+        for (int length = 1; length < 40; length++) {
+            byte[] data = skewed(random, length);
+            assertArrayEquals(data, roundTrip(data), "length " + length);
+        }
+        byte[] large = skewed(random, 200_000);
+        assertArrayEquals(large, roundTrip(large));
+    }
+
+    @Test
+    void beatsWholeBitCodesOnSkewedData() throws IOException {
+        byte[] data = new byte[100_000];
+        Random random = new Random(2);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (random.nextInt(20) == 0 ? 1 + random.nextInt(3) : 0);
+        }
+        long[] counts = new CharacterFrequencyCounter().countBytes(data, 0, data.length);
+        int[] lengths = new CodeLengthBuilder().buildCodeLengths(counts, LengthLimitedCodeBuilder.DEFAULT_MAX_CODE_LENGTH);
+        long huffmanBits = 0;
+        for (int symbol = 0; symbol < counts.length; symbol++) {
+            huffmanBits += counts[symbol] * lengths[symbol];
+        }
+
+        byte[] coded = RansCoder.encode(data, 0, data.length, RansCoder.normalize(counts));
+
+        assertTrue(coded.length * 2L * Byte.SIZE < huffmanBits);
+        assertArrayEquals(data, roundTrip(data));
+    }
+
+    @Test
+    void normalizesToTheProbabilityScale() {
+        long[] counts = new long[256];
+        Arrays.fill(counts, 1);
+        counts[7] = 1_000_000;
+
+        int[] frequencies = RansCoder.normalize(counts);
+
+        assertEquals(RansCoder.PROBABILITY_SCALE, Arrays.stream(frequencies).sum());
+        assertTrue(Arrays.stream(frequencies).allMatch(frequency -> frequency >= 1));
+    }
+
+    @Test
+    void decodesCertainSymbolsWithoutStates() throws IOException {
+        byte[] data = new byte[1000];
+        Arrays.fill(data, (byte) 'z');
+
+        assertArrayEquals(data, roundTrip(data));
+    }
+
+    @Test
+    void rejectsCorruptPayloads() throws IOException {
+        byte[] data = skewed(new Random(3), 5000);
+        int[] frequencies = RansCoder.normalize(new CharacterFrequencyCounter().countBytes(data, 0, data.length));
+        byte[] coded = RansCoder.encode(data, 0, data.length, frequencies);
+        byte[] decoded = new byte[data.length];
+
+        assertThrows(IOException.class,
+                () -> RansCoder.decode(coded, 0, coded.length - 1, frequencies, decoded, 0, data.length));
+        byte[] corrupted = coded.clone();
+        corrupted[coded.length / 2] ^= 0x40;
+        assertThrows(IOException.class,
+                () -> RansCoder.decode(corrupted, 0, corrupted.length, frequencies, decoded, 0, data.length));
+    }
+
+    @Test
+    void rejectsFrequenciesNotSummingToTheScale() {
+        byte[] table = {2, 0, 100, 0, 50};
+
+        assertThrows(IOException.class,
+                () -> RansCoder.readFrequencies(new DataInputStream(new ByteArrayInputStream(table))));
+    }
+
+    private static byte[] roundTrip(byte[] data) throws IOException {
+        int[] frequencies = RansCoder.normalize(new CharacterFrequencyCounter().countBytes(data, 0, data.length));
+        ByteArrayOutputStream table = new ByteArrayOutputStream();
+        RansCoder.writeFrequencies(frequencies, new DataOutputStream(table));
+        int[] read = RansCoder.readFrequencies(new DataInputStream(new ByteArrayInputStream(table.toByteArray())));
+        byte[] coded = RansCoder.encode(data, 0, data.length, frequencies);
+        byte[] decoded = new byte[data.length];
+        RansCoder.decode(coded, 0, coded.length, read, decoded, 0, data.length);
+        return decoded;
+    }
+
+    private static byte[] skewed(Random random, int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (random.nextInt(3) == 0 ? random.nextInt(256) : 'a' + random.nextInt(4));
+        }
+        return data;
+    }
+}